@@ -0,0 +1,170 @@
+package com.example.inventory_manager.bench;
+
+import com.example.inventory_manager.dao.impl.CachedProductDAO;
+import com.example.inventory_manager.db.DbUtil;
+import com.example.inventory_manager.db.SchemaInitializer;
+import com.example.inventory_manager.model.Product;
+import com.example.inventory_manager.model.Supplier;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark state holding an in-memory H2 database seeded with {@link #products} products
+ * (each with one inventory row) and {@link #orders} pending orders of three lines each.
+ * The database is wiped and reseeded for every trial, so results do not depend on
+ * what earlier benchmarks wrote.
+ */
+@State(Scope.Benchmark)
+public class Dataset {
+
+    private static final String BENCH_DB_URL = "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1";
+    private static final int LINES_PER_ORDER = 3;
+
+    @Param({"1000", "10000"})
+    public int products;
+
+    @Param({"500"})
+    public int orders;
+
+    /** Seeded products, with their database IDs. */
+    Product[] seededProducts;
+    Supplier supplier;
+
+    /**
+     * Points the application at an in-memory database. Must run before anything touches {@link DbUtil}.
+     */
+    static void useInMemoryDatabase() {
+        if (System.getProperty("inventory.db.url") == null) {
+            System.setProperty("inventory.db.url", BENCH_DB_URL);
+        }
+    }
+
+    /**
+     * Creates the schema and seeds it with the configured number of rows.
+     *
+     * @throws SQLException if seeding fails
+     */
+    @Setup
+    public void seed() throws SQLException {
+        useInMemoryDatabase();
+        SchemaInitializer.initialize();
+
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
+            Statement stmt = conn.createStatement();
+            stmt.executeUpdate("DELETE FROM order_items");
+            stmt.executeUpdate("DELETE FROM orders");
+            stmt.executeUpdate("DELETE FROM inventory_items");
+            stmt.executeUpdate("DELETE FROM products");
+            stmt.executeUpdate("DELETE FROM suppliers");
+            stmt.close();
+
+            PreparedStatement insertProduct = conn.prepareStatement(
+                    "INSERT INTO products (name, sku, category, price, description) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS
+            );
+            for (int i = 0; i < products; i++) {
+                insertProduct.setString(1, "Product " + i);
+                insertProduct.setString(2, sku(i));
+                insertProduct.setString(3, "Category " + (i % 20));
+                insertProduct.setDouble(4, 1.0 + (i % 100));
+                insertProduct.setString(5, "Benchmark product " + i);
+                insertProduct.addBatch();
+            }
+            insertProduct.executeBatch();
+
+            seededProducts = new Product[products];
+            ResultSet keys = insertProduct.getGeneratedKeys();
+            for (int i = 0; i < products && keys.next(); i++) {
+                seededProducts[i] = new Product(keys.getInt(1), "Product " + i, sku(i),
+                        "Category " + (i % 20), 1.0 + (i % 100), "Benchmark product " + i);
+            }
+            insertProduct.close();
+
+            Statement stock = conn.createStatement();
+            stock.executeUpdate(
+                    "INSERT INTO inventory_items (product_id, quantity, location) SELECT id, 1000000, 'Bench' FROM products"
+            );
+            stock.close();
+
+            PreparedStatement insertSupplier = conn.prepareStatement(
+                    "INSERT INTO suppliers (name, contact_email, phone) VALUES ('Bench Supplier', 'bench@example.com', '555-0100')",
+                    Statement.RETURN_GENERATED_KEYS
+            );
+            insertSupplier.executeUpdate();
+            ResultSet supplierKey = insertSupplier.getGeneratedKeys();
+            supplierKey.next();
+            supplier = new Supplier(supplierKey.getInt(1), "Bench Supplier", "bench@example.com", "555-0100");
+            insertSupplier.close();
+
+            seedOrders(conn);
+            conn.commit();
+            CachedProductDAO.getCache().invalidateAll();
+        } catch (SQLException e) {
+            DbUtil.rollbackQuietly(conn);
+            throw e;
+        } finally {
+            DbUtil.closeQuietly(conn);
+        }
+    }
+
+    private void seedOrders(Connection conn) throws SQLException {
+        PreparedStatement insertOrder = conn.prepareStatement(
+                "INSERT INTO orders (supplier_id, order_date, status) VALUES (?, CURRENT_DATE, 'Pending')",
+                Statement.RETURN_GENERATED_KEYS
+        );
+        for (int i = 0; i < orders; i++) {
+            insertOrder.setInt(1, supplier.getSupplierId());
+            insertOrder.addBatch();
+        }
+        insertOrder.executeBatch();
+
+        PreparedStatement insertLine = conn.prepareStatement(
+                "INSERT INTO order_items (order_id, product_id, quantity) VALUES (?, ?, ?)"
+        );
+        ResultSet keys = insertOrder.getGeneratedKeys();
+        int n = 0;
+        while (keys.next()) {
+            for (int line = 0; line < LINES_PER_ORDER; line++) {
+                insertLine.setInt(1, keys.getInt(1));
+                insertLine.setInt(2, seededProducts[(n * LINES_PER_ORDER + line) % products].getId());
+                insertLine.setInt(3, 1 + line);
+                insertLine.addBatch();
+            }
+            n++;
+        }
+        insertLine.executeBatch();
+        insertLine.close();
+        insertOrder.close();
+    }
+
+    /**
+     * Returns a seeded product chosen at random.
+     *
+     * @return a product with its database ID
+     */
+    Product randomProduct() {
+        return seededProducts[ThreadLocalRandom.current().nextInt(seededProducts.length)];
+    }
+
+    /**
+     * Returns the SKU given to the i-th seeded product.
+     *
+     * @param i the product index
+     * @return the SKU
+     */
+    static String sku(int i) {
+        return String.format("BENCH-%07d", i);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.inventory_manager.bench;
+
+import com.example.inventory_manager.dao.impl.InventoryItemDAOImpl;
+import com.example.inventory_manager.model.InventoryItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inventory writes: saving an item (an update of an existing product/location row)
+ * and an atomic stock adjustment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InventoryItemDaoBenchmark {
+
+    private final InventoryItemDAOImpl inventoryItemDAO = new InventoryItemDAOImpl();
+
+    @Benchmark
+    public int save(Dataset data) {
+        int quantity = ThreadLocalRandom.current().nextInt(1, 1_000_000);
+        return inventoryItemDAO.save(new InventoryItem(data.randomProduct(), quantity, "Bench"));
+    }
+
+    @Benchmark
+    public int adjustStock(Dataset data) {
+        int delta = ThreadLocalRandom.current().nextBoolean() ? 1 : -1;
+        return inventoryItemDAO.adjustStock(data.randomProduct().getId(), delta);
+    }
+}
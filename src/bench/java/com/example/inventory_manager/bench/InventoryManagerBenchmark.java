@@ -0,0 +1,48 @@
+package com.example.inventory_manager.bench;
+
+import com.example.inventory_manager.model.InventoryManager;
+import com.example.inventory_manager.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory stock updates by SKU. Lookups use lower-cased SKUs to include the
+ * case-insensitive matching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InventoryManagerBenchmark {
+
+    @Param({"1000", "10000"})
+    public int products;
+
+    private InventoryManager manager;
+    private String[] lookupSkus;
+
+    @Setup
+    public void setUp() {
+        manager = new InventoryManager();
+        lookupSkus = new String[products];
+        for (int i = 0; i < products; i++) {
+            String sku = Dataset.sku(i);
+            manager.addProduct(new Product(i + 1, "Product " + i, sku, "Category " + (i % 20), 1.0, ""));
+            lookupSkus[i] = sku.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Benchmark
+    public void updateStockForProduct() {
+        manager.updateStockForProduct(lookupSkus[ThreadLocalRandom.current().nextInt(products)], 1);
+    }
+}
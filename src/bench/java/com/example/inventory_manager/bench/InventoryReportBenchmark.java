@@ -0,0 +1,46 @@
+package com.example.inventory_manager.bench;
+
+import com.example.inventory_manager.model.InventoryItem;
+import com.example.inventory_manager.model.InventoryReport;
+import com.example.inventory_manager.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text report generation over an in-memory list of inventory items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InventoryReportBenchmark {
+
+    @Param({"1000", "10000"})
+    public int products;
+
+    private InventoryReport report;
+
+    @Setup
+    public void setUp() {
+        List<InventoryItem> items = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product(i + 1, "Product " + i, Dataset.sku(i), "Category " + (i % 20), 1.0, "");
+            items.add(new InventoryItem(product, i % 500, "Aisle " + (i % 40)));
+        }
+        report = new InventoryReport(items);
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return report.generateReport();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.inventory_manager.bench;
+
+import java.util.Arrays;
+
+/**
+ * Collects raw request latencies for one action. Each load-test worker keeps its own
+ * recorders, so recording is not synchronized; recorders are merged once the run ends.
+ */
+class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+    private boolean sorted;
+
+    /**
+     * Records the latency of a successful request.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        sorted = false;
+    }
+
+    /**
+     * Counts a failed request.
+     */
+    void recordError() {
+        errors++;
+    }
+
+    /**
+     * Adds all samples and errors of another recorder to this one.
+     *
+     * @param other the recorder to merge
+     */
+    void merge(LatencyRecorder other) {
+        if (count + other.count > samples.length) {
+            samples = Arrays.copyOf(samples, Math.max(samples.length * 2, count + other.count));
+        }
+        System.arraycopy(other.samples, 0, samples, count, other.count);
+        count += other.count;
+        errors += other.errors;
+        sorted = false;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns the latency at the given percentile, using the nearest-rank method.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the latency in milliseconds, or 0 if nothing was recorded
+     */
+    double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0.0;
+        }
+        if (!sorted) {
+            Arrays.sort(samples, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return samples[Math.max(0, Math.min(count, rank) - 1)] / 1_000_000.0;
+    }
+}
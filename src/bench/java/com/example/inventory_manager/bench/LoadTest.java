@@ -0,0 +1,342 @@
+package com.example.inventory_manager.bench;
+
+import com.example.inventory_manager.db.DbUtil;
+import org.apache.catalina.Context;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.webresources.DirResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * End-to-end load test for {@code /inventory} and {@code /order}.
+ * Boots the web application in an embedded Tomcat on an in-memory H2 database seeded by
+ * {@link Dataset}, drives a weighted mix of page views and form posts from concurrent
+ * workers, and reports p50/p99/p99.9 latency and requests per second for each action.
+ * A request counts as an error if it fails, returns a 4xx or 5xx status, or is a form post
+ * whose redirect is marked {@code X-Action-Outcome: failed} (for example a stock change that
+ * would go below zero, or an order that was already completed).
+ *
+ * <p>Settings are read from system properties:</p>
+ * <ul>
+ *     <li>{@code load.threads} &mdash; concurrent clients (default 16)</li>
+ *     <li>{@code load.warmupSeconds} / {@code load.durationSeconds} &mdash; unmeasured and measured run time (5 / 30)</li>
+ *     <li>{@code load.products} / {@code load.orders} &mdash; seeded dataset size (1000 / 500)</li>
+ *     <li>{@code load.mix} &mdash; action weights, e.g. {@code inventory=40,orders=20,updateStock=25,placeOrder=10,completeOrder=5}</li>
+ *     <li>{@code load.webappDir} / {@code load.classesDir} &mdash; application to deploy (src/main/webapp / target/classes)</li>
+ *     <li>{@code load.result} &mdash; JSON result file (target/loadtest-result.json)</li>
+ * </ul>
+ *
+ * <p>Run with {@code mvn -Pbench test-compile exec:exec@load-test}.</p>
+ */
+public class LoadTest {
+
+    /**
+     * Requests the load test can issue.
+     */
+    enum Action {
+        INVENTORY("inventory"),
+        ORDERS("orders"),
+        UPDATE_STOCK("updateStock"),
+        PLACE_ORDER("placeOrder"),
+        COMPLETE_ORDER("completeOrder");
+
+        private final String key;
+
+        Action(String key) {
+            this.key = key;
+        }
+
+        static Action fromKey(String key) {
+            for (Action action : values()) {
+                if (action.key.equalsIgnoreCase(key)) {
+                    return action;
+                }
+            }
+            throw new IllegalArgumentException("Unknown load test action: " + key);
+        }
+    }
+
+    private static final String DEFAULT_MIX = "inventory=40,orders=20,updateStock=25,placeOrder=10,completeOrder=5";
+
+    private final int threads = Integer.getInteger("load.threads", 16);
+    private final int warmupSeconds = Integer.getInteger("load.warmupSeconds", 5);
+    private final int durationSeconds = Integer.getInteger("load.durationSeconds", 30);
+    private final int products = Integer.getInteger("load.products", 1000);
+    private final int orders = Integer.getInteger("load.orders", 500);
+    private final Map<Action, Integer> mix = parseMix(System.getProperty("load.mix", DEFAULT_MIX));
+    private final int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private Dataset data;
+    private String baseUrl;
+
+    /** Pending orders not yet handed to a completeOrder request. Guarded by {@code this}. */
+    private final ArrayDeque<Integer> pendingOrders = new ArrayDeque<>();
+    private int lastQueuedOrderId;
+
+    private volatile boolean measuring;
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run();
+    }
+
+    private void run() throws Exception {
+        data = new Dataset();
+        data.products = products;
+        data.orders = orders;
+        data.seed();
+
+        Tomcat tomcat = startServer();
+        try {
+            baseUrl = "http://localhost:" + tomcat.getConnector().getLocalPort();
+            System.out.println("Load test against " + baseUrl + " with " + threads + " threads, mix " + mix);
+
+            ExecutorService workers = Executors.newFixedThreadPool(threads);
+            long warmupEnd = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+            long end = warmupEnd + durationSeconds * 1_000_000_000L;
+
+            List<Future<Map<Action, LatencyRecorder>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(workers.submit(() -> work(end)));
+            }
+            Thread.sleep(Math.max(0, (warmupEnd - System.nanoTime()) / 1_000_000));
+            measuring = true;
+            long measureStart = System.nanoTime();
+
+            Map<Action, LatencyRecorder> totals = new EnumMap<>(Action.class);
+            for (Action action : mix.keySet()) {
+                totals.put(action, new LatencyRecorder());
+            }
+            for (Future<Map<Action, LatencyRecorder>> result : results) {
+                for (Map.Entry<Action, LatencyRecorder> entry : result.get().entrySet()) {
+                    totals.get(entry.getKey()).merge(entry.getValue());
+                }
+            }
+            double seconds = (System.nanoTime() - measureStart) / 1e9;
+            workers.shutdown();
+
+            report(totals, seconds);
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    /**
+     * Deploys the application directory with the compiled classes mounted as WEB-INF/classes,
+     * so annotated servlets and filters are picked up as in a packaged war.
+     */
+    private Tomcat startServer() throws Exception {
+        File webappDir = new File(System.getProperty("load.webappDir", "src/main/webapp"));
+        File classesDir = new File(System.getProperty("load.classesDir", "target/classes"));
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("loadtest-tomcat").toString());
+        tomcat.setPort(Integer.getInteger("load.port", 0));
+        tomcat.getConnector();
+
+        Context context = tomcat.addWebapp("", webappDir.getAbsolutePath());
+        WebResourceRoot resources = new StandardRoot(context);
+        resources.addPreResources(
+                new DirResourceSet(resources, "/WEB-INF/classes", classesDir.getAbsolutePath(), "/"));
+        context.setResources(resources);
+
+        tomcat.start();
+        return tomcat;
+    }
+
+    /**
+     * Issues requests until the deadline, recording latencies once the warmup is over.
+     */
+    private Map<Action, LatencyRecorder> work(long end) {
+        Map<Action, LatencyRecorder> recorders = new EnumMap<>(Action.class);
+        for (Action action : mix.keySet()) {
+            recorders.put(action, new LatencyRecorder());
+        }
+
+        while (System.nanoTime() < end) {
+            Action action = pickAction();
+            HttpRequest request = buildRequest(action);
+            if (request == null) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                // Form posts always redirect; the servlets flag actions that did not take effect with a header
+                ok = response.statusCode() < 400
+                        && !"failed".equals(response.headers().firstValue("X-Action-Outcome").orElse(""));
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (measuring) {
+                if (ok) {
+                    recorders.get(action).record(elapsed);
+                } else {
+                    recorders.get(action).recordError();
+                }
+            }
+        }
+        return recorders;
+    }
+
+    private Action pickAction() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Action, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty action mix");
+    }
+
+    /**
+     * Builds the request for an action, or returns null if there is nothing to do
+     * (no pending order left to complete).
+     */
+    private HttpRequest buildRequest(Action action) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (action) {
+            case INVENTORY:
+                return get("/inventory");
+            case ORDERS:
+                return get("/order");
+            case UPDATE_STOCK:
+                return post("/inventory", "action=updateStock&productSku=" + encode(data.randomProduct().getSku())
+                        + "&quantityChange=" + random.nextInt(-2, 4));
+            case PLACE_ORDER:
+                return post("/order", "supplierId=" + data.supplier.getSupplierId()
+                        + "&productSku=" + encode(data.randomProduct().getSku())
+                        + "&quantity=" + random.nextInt(1, 6));
+            case COMPLETE_ORDER:
+                Integer orderId = nextPendingOrder();
+                return orderId == null ? null : post("/order", "action=completeOrder&orderId=" + orderId);
+            default:
+                throw new IllegalArgumentException("Unhandled action " + action);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String form) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hands out each pending order once, topping the queue up from the database
+     * (including orders placed during the run) when it runs dry.
+     */
+    private synchronized Integer nextPendingOrder() {
+        if (pendingOrders.isEmpty()) {
+            Connection conn = null;
+            try {
+                conn = DbUtil.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT order_id FROM orders WHERE status = 'Pending' AND order_id > ? ORDER BY order_id LIMIT 1000"
+                );
+                stmt.setInt(1, lastQueuedOrderId);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    lastQueuedOrderId = rs.getInt(1);
+                    pendingOrders.add(lastQueuedOrderId);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error loading pending orders: " + e.getMessage());
+            } finally {
+                DbUtil.closeQuietly(conn);
+            }
+        }
+        return pendingOrders.poll();
+    }
+
+    private void report(Map<Action, LatencyRecorder> totals, double seconds) throws IOException {
+        System.out.printf(Locale.ROOT, "%n%-14s %9s %7s %9s %9s %9s %9s%n",
+                "action", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+
+        File resultFile = new File(System.getProperty("load.result", "target/loadtest-result.json"));
+        try (PrintWriter json = new PrintWriter(resultFile, StandardCharsets.UTF_8)) {
+            json.printf(Locale.ROOT, "{\"threads\":%d,\"durationSeconds\":%.3f,\"products\":%d,\"orders\":%d,\"actions\":[",
+                    threads, seconds, products, orders);
+            String separator = "";
+            for (Map.Entry<Action, LatencyRecorder> entry : totals.entrySet()) {
+                LatencyRecorder r = entry.getValue();
+                double rps = r.getCount() / seconds;
+                System.out.printf(Locale.ROOT, "%-14s %9d %7d %9.1f %9.2f %9.2f %9.2f%n",
+                        entry.getKey().key, r.getCount(), r.getErrors(), rps,
+                        r.percentileMillis(50), r.percentileMillis(99), r.percentileMillis(99.9));
+                json.printf(Locale.ROOT,
+                        "%s{\"action\":\"%s\",\"requests\":%d,\"errors\":%d,\"rps\":%.2f,\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"p999Ms\":%.3f}",
+                        separator, entry.getKey().key, r.getCount(), r.getErrors(), rps,
+                        r.percentileMillis(50), r.percentileMillis(99), r.percentileMillis(99.9));
+                separator = ",";
+            }
+            json.println("]}");
+        }
+        System.out.println("\nResults written to " + resultFile.getPath());
+    }
+
+    private static Map<Action, Integer> parseMix(String spec) {
+        Map<Action, Integer> weights = new EnumMap<>(Action.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected action=weight in load.mix, got: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Action.fromKey(pair[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no actions with a positive weight");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.inventory_manager.bench;
+
+import com.example.inventory_manager.dao.impl.OrderDAOImpl;
+import com.example.inventory_manager.model.InventoryItem;
+import com.example.inventory_manager.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order reads and writes. {@link #findAll} loads every seeded order with its lines;
+ * {@link #save} adds a three-line order, so the orders table grows during the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderDaoBenchmark {
+
+    private final OrderDAOImpl orderDAO = new OrderDAOImpl();
+
+    @Benchmark
+    public List<Order> findAll(Dataset data) {
+        return orderDAO.findAll();
+    }
+
+    @Benchmark
+    public boolean save(Dataset data) {
+        Order order = new Order(0, data.supplier);
+        for (int i = 1; i <= 3; i++) {
+            order.addItem(new InventoryItem(data.randomProduct(), i, "Bench"));
+        }
+        return orderDAO.save(order);
+    }
+}
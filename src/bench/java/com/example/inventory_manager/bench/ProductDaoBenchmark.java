@@ -0,0 +1,35 @@
+package com.example.inventory_manager.bench;
+
+import com.example.inventory_manager.dao.impl.CachedProductDAO;
+import com.example.inventory_manager.dao.impl.ProductDAOImpl;
+import com.example.inventory_manager.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product lookups by SKU, straight from the database and through the product cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductDaoBenchmark {
+
+    private final ProductDAOImpl productDAO = new ProductDAOImpl();
+    private final CachedProductDAO cachedProductDAO = new CachedProductDAO();
+
+    @Benchmark
+    public Product findBySku(Dataset data) {
+        return productDAO.findBySku(data.randomProduct().getSku());
+    }
+
+    @Benchmark
+    public Product findBySkuCached(Dataset data) {
+        return cachedProductDAO.findBySku(data.randomProduct().getSku());
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.inventory_manager.bench;
+
+import com.example.inventory_manager.dao.impl.InventoryItemDAOImpl;
+import com.example.inventory_manager.model.StockTable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the heap retained by the inventory loaded as a {@code List<InventoryItem>} and
+ * as an on-heap {@link StockTable}, for the figures quoted in the StockTable class comment.
+ * Seeds {@link Dataset} with {@code footprint.products} products (default 100000) in a
+ * file database with a 1 MB page cache, so the loaded Strings are not shared with it, loads
+ * each representation through {@link InventoryItemDAOImpl}, and takes the difference in
+ * used heap, after full collections, between holding the result and dropping it again.
+ * Measuring the drop rather than the load keeps caches that H2 fills during the query
+ * out of the figure.
+ *
+ * <p>Run with {@code mvn -Pbench test-compile exec:exec@footprint}.</p>
+ */
+public class StockFootprint {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int products = Integer.getInteger("footprint.products", 100_000);
+        if (System.getProperty("inventory.db.url") == null) {
+            // An in-memory database keeps its rows as objects and hands out the same Strings,
+            // which would then not count towards the list
+            Path dir = Files.createTempDirectory("footprint-db");
+            System.setProperty("inventory.db.url", "jdbc:h2:" + dir.resolve("inventory") + ";CACHE_SIZE=1024");
+        }
+        Dataset data = new Dataset();
+        data.products = products;
+        data.orders = 0;
+        data.seed();
+
+        InventoryItemDAOImpl dao = new InventoryItemDAOImpl();
+        // Warm up class loading and statement caches so they are not counted
+        dao.findAll();
+        dao.loadStock(new StockTable(products, false));
+
+        // Results are only referenced from the holder, so clearing it makes them unreachable
+        Object[] holder = {dao.findAll()};
+        int rows = ((List<?>) holder[0]).size();
+        long listBytes = retainedUntilCleared(holder);
+
+        holder[0] = loadTable(dao, products);
+        int entries = ((StockTable) holder[0]).size();
+        long reported = ((StockTable) holder[0]).footprintBytes();
+        long tableBytes = retainedUntilCleared(holder);
+
+        System.out.printf(Locale.ROOT, "List<InventoryItem>: %,d rows, %,d bytes, %.1f bytes per row (estimate %.1f)%n",
+                rows, listBytes, (double) listBytes / rows, (double) StockTable.estimateItemListBytes(rows) / rows);
+        System.out.printf(Locale.ROOT, "StockTable:          %,d rows, %,d bytes, %.1f bytes per row (footprintBytes %.1f)%n",
+                entries, tableBytes, (double) tableBytes / entries, (double) reported / entries);
+    }
+
+    private static StockTable loadTable(InventoryItemDAOImpl dao, int products) {
+        StockTable table = new StockTable(products, false);
+        dao.loadStock(table);
+        return table;
+    }
+
+    /**
+     * Returns the used heap while the holder references its object minus the used heap
+     * after the reference is cleared.
+     */
+    private static long retainedUntilCleared(Object[] holder) {
+        long held = usedAfterGc();
+        holder[0] = null;
+        return held - usedAfterGc();
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.inventory_manager.cache;
+
+/**
+ * Immutable snapshot of cache counters.
+ */
+public class CacheStats {
+    private final int size;
+    private final int maxSize;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long loads;
+    private final long totalLoadNanos;
+
+    /**
+     * Constructs a new CacheStats snapshot.
+     *
+     * @param size           entries currently cached
+     * @param maxSize        configured capacity
+     * @param hits           lookups served from the cache
+     * @param misses         lookups that went to the database
+     * @param evictions      entries dropped to stay within capacity
+     * @param loads          database loads recorded
+     * @param totalLoadNanos total time spent in those loads
+     */
+    public CacheStats(int size, int maxSize, long hits, long misses, long evictions, long loads, long totalLoadNanos) {
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.loads = loads;
+        this.totalLoadNanos = totalLoadNanos;
+    }
+
+    public int getSize() { return size; }
+
+    public int getMaxSize() { return maxSize; }
+
+    public long getHits() { return hits; }
+
+    public long getMisses() { return misses; }
+
+    public long getEvictions() { return evictions; }
+
+    public long getLoads() { return loads; }
+
+    public long getTotalLoadNanos() { return totalLoadNanos; }
+
+    /**
+     * Returns the fraction of lookups served from the cache.
+     *
+     * @return hit ratio between 0 and 1
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the average time of a database load.
+     *
+     * @return mean load time in milliseconds
+     */
+    public double getAverageLoadMillis() {
+        return loads == 0 ? 0.0 : totalLoadNanos / 1_000_000.0 / loads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats[size=%d/%d, hits=%d, misses=%d, hitRatio=%.3f, evictions=%d, loads=%d, avgLoadMs=%.3f]",
+                size, maxSize, hits, misses, getHitRatio(), evictions, loads, getAverageLoadMillis());
+    }
+}
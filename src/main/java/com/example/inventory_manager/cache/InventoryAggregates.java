@@ -0,0 +1,295 @@
+package com.example.inventory_manager.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory inventory totals overall, per product category and per location:
+ * product count, stocked items (inventory rows holding stock), units in stock and stock value.
+ * The DAOs report each committed change, so reading the totals never touches the
+ * database. Counters are {@link LongAdder}s, so concurrent writers do not contend on them.
+ * Products without a category and rows without a location are counted under {@code ""}.
+ */
+public class InventoryAggregates {
+
+    /**
+     * The grouping a set of totals belongs to.
+     */
+    public enum Dimension {
+        TOTAL,
+        CATEGORY,
+        LOCATION
+    }
+
+    private volatile State state = new State();
+    private volatile InventoryAggregates recorder;
+    private final LongAdder changes = new LongAdder();
+
+    /**
+     * Counts a new product.
+     *
+     * @param category the product's category
+     */
+    public void productAdded(String category) {
+        State current = state;
+        current.total.products.increment();
+        current.category(category).products.increment();
+        changes.increment();
+        InventoryAggregates copy = recorder;
+        if (copy != null) {
+            copy.productAdded(category);
+        }
+    }
+
+    /**
+     * Stops counting a deleted product. Its stock must already have been removed.
+     *
+     * @param category the product's category
+     */
+    public void productRemoved(String category) {
+        State current = state;
+        current.total.products.decrement();
+        current.category(category).products.decrement();
+        changes.increment();
+        InventoryAggregates copy = recorder;
+        if (copy != null) {
+            copy.productRemoved(category);
+        }
+    }
+
+    /**
+     * Records a change to the stock of one inventory row.
+     *
+     * @param category    the product's category
+     * @param price       the product's price
+     * @param location    the row's location
+     * @param oldQuantity the quantity before the change, 0 for a new row
+     * @param newQuantity the quantity after the change, 0 for a deleted row
+     */
+    public void stockChanged(String category, double price, String location, long oldQuantity, long newQuantity) {
+        long units = newQuantity - oldQuantity;
+        long stocked = (newQuantity > 0 ? 1 : 0) - (oldQuantity > 0 ? 1 : 0);
+        if (units == 0 && stocked == 0) {
+            return;
+        }
+        long value = units * cents(price);
+        State current = state;
+        current.total.add(0, stocked, units, value);
+        current.category(category).add(0, stocked, units, value);
+        current.location(location).add(0, stocked, units, value);
+        changes.increment();
+        InventoryAggregates copy = recorder;
+        if (copy != null) {
+            copy.stockChanged(category, price, location, oldQuantity, newQuantity);
+        }
+    }
+
+    /**
+     * Records changes collected inside a transaction, once it has committed.
+     *
+     * @param changes the stock changes
+     */
+    public void apply(List<StockChange> changes) {
+        for (StockChange change : changes) {
+            stockChanged(change.category, change.price, change.location, change.oldQuantity, change.newQuantity);
+        }
+    }
+
+    /**
+     * Adds raw totals to one group. Used to fill a fresh instance from the database.
+     *
+     * @param dimension    the grouping
+     * @param name         the category or location, ignored for {@code TOTAL}
+     * @param products     product count
+     * @param stockedItems inventory rows holding stock
+     * @param units        units in stock
+     * @param valueCents   stock value in cents
+     */
+    public void add(Dimension dimension, String name, long products, long stockedItems, long units, long valueCents) {
+        State current = state;
+        Totals totals;
+        switch (dimension) {
+            case CATEGORY:
+                totals = current.category(name);
+                break;
+            case LOCATION:
+                totals = current.location(name);
+                break;
+            default:
+                totals = current.total;
+                break;
+        }
+        totals.products.add(products);
+        totals.add(0, stockedItems, units, valueCents);
+    }
+
+    /**
+     * Adds all totals of another instance to this one.
+     *
+     * @param other the instance to add
+     */
+    public void addAll(InventoryAggregates other) {
+        State from = other.state;
+        add(Dimension.TOTAL, "", from.total);
+        from.categories.forEach((name, totals) -> add(Dimension.CATEGORY, name, totals));
+        from.locations.forEach((name, totals) -> add(Dimension.LOCATION, name, totals));
+    }
+
+    /**
+     * Starts copying every change made to this instance into a new, empty one, so that
+     * changes made while a rebuild reads the database can be added to its result.
+     *
+     * @return the instance receiving the changes
+     */
+    public InventoryAggregates startRecording() {
+        InventoryAggregates copy = new InventoryAggregates();
+        recorder = copy;
+        return copy;
+    }
+
+    /**
+     * Stops copying changes started with {@link #startRecording()}.
+     */
+    public void stopRecording() {
+        recorder = null;
+    }
+
+    /**
+     * Replaces all totals with those of another instance, for example after a rebuild,
+     * and stops any recording.
+     *
+     * @param other the instance to copy from; it should not be used afterwards
+     */
+    public void replaceWith(InventoryAggregates other) {
+        state = other.state;
+        recorder = null;
+        changes.increment();
+    }
+
+    /**
+     * Returns the number of changes made so far, to tell whether anything changed since
+     * an earlier call.
+     *
+     * @return the change count
+     */
+    public long getChangeCount() {
+        return changes.sum();
+    }
+
+    private void add(Dimension dimension, String name, Totals totals) {
+        add(dimension, name, totals.getProducts(), totals.getStockedItems(), totals.getUnits(), totals.getValueCents());
+    }
+
+    /**
+     * Returns the overall totals.
+     *
+     * @return the totals across the whole inventory
+     */
+    public Totals getTotal() {
+        return state.total;
+    }
+
+    /**
+     * Returns the totals per category, sorted by name.
+     *
+     * @return category name to totals
+     */
+    public SortedMap<String, Totals> getCategories() {
+        return new TreeMap<>(state.categories);
+    }
+
+    /**
+     * Returns the totals per location, sorted by name.
+     *
+     * @return location name to totals
+     */
+    public SortedMap<String, Totals> getLocations() {
+        return new TreeMap<>(state.locations);
+    }
+
+    /**
+     * Converts a price to whole cents, rounding half up.
+     *
+     * @param price the price
+     * @return the price in cents
+     */
+    public static long cents(double price) {
+        return Math.round(price * 100);
+    }
+
+    /**
+     * Running totals for one group.
+     */
+    public static final class Totals {
+        private final LongAdder products = new LongAdder();
+        private final LongAdder stockedItems = new LongAdder();
+        private final LongAdder units = new LongAdder();
+        private final LongAdder valueCents = new LongAdder();
+
+        private void add(long productCount, long stocked, long unitCount, long value) {
+            if (productCount != 0) {
+                products.add(productCount);
+            }
+            if (stocked != 0) {
+                stockedItems.add(stocked);
+            }
+            units.add(unitCount);
+            valueCents.add(value);
+        }
+
+        public long getProducts() { return products.sum(); }
+
+        public long getStockedItems() { return stockedItems.sum(); }
+
+        public long getUnits() { return units.sum(); }
+
+        public long getValueCents() { return valueCents.sum(); }
+    }
+
+    /**
+     * A stock change of one inventory row, collected inside a transaction and applied
+     * with {@link #apply(List)} after it commits.
+     */
+    public static final class StockChange {
+        private final String category;
+        private final double price;
+        private final String location;
+        private final long oldQuantity;
+        private final long newQuantity;
+
+        /**
+         * Constructs a new StockChange.
+         *
+         * @param category    the product's category
+         * @param price       the product's price
+         * @param location    the row's location
+         * @param oldQuantity the quantity before the change
+         * @param newQuantity the quantity after the change
+         */
+        public StockChange(String category, double price, String location, long oldQuantity, long newQuantity) {
+            this.category = category;
+            this.price = price;
+            this.location = location;
+            this.oldQuantity = oldQuantity;
+            this.newQuantity = newQuantity;
+        }
+    }
+
+    private static final class State {
+        final Totals total = new Totals();
+        final Map<String, Totals> categories = new ConcurrentHashMap<>();
+        final Map<String, Totals> locations = new ConcurrentHashMap<>();
+
+        Totals category(String name) {
+            return categories.computeIfAbsent(name == null ? "" : name, key -> new Totals());
+        }
+
+        Totals location(String name) {
+            return locations.computeIfAbsent(name == null ? "" : name, key -> new Totals());
+        }
+    }
+}
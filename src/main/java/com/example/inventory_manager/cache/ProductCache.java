@@ -0,0 +1,183 @@
+package com.example.inventory_manager.cache;
+
+import com.example.inventory_manager.model.Product;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-process cache of products, addressable by ID and by SKU.
+ * Entries are evicted least-recently-used once the cache is full and, if a TTL is
+ * configured, expire after that many milliseconds.
+ *
+ * <p>Cached products are shared between callers and must be treated as read-only.</p>
+ */
+public class ProductCache {
+
+    private final int maxSize;
+    private final long ttlMillis;
+
+    /** Products by ID in access order. Guarded by {@code this}. */
+    private final LinkedHashMap<Integer, Entry> byId = new LinkedHashMap<>(256, 0.75f, true);
+    /** Secondary index from SKU to product ID. Guarded by {@code this}. */
+    private final Map<String, Integer> idBySku = new HashMap<>();
+
+    /** Bumped on every invalidation so loads that raced with a write are not cached. */
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long loads;
+    private long loadNanos;
+
+    /**
+     * Constructs a new ProductCache.
+     *
+     * @param maxSize   maximum number of products kept
+     * @param ttlMillis time after which an entry expires, or 0 for no expiry
+     */
+    public ProductCache(int maxSize, long ttlMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Looks up a product by ID.
+     *
+     * @param id the product ID
+     * @return the cached product, or null on a miss
+     */
+    public synchronized Product getById(int id) {
+        Entry entry = byId.get(id);
+        if (entry == null || isExpired(entry)) {
+            if (entry != null) {
+                remove(id);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.product;
+    }
+
+    /**
+     * Looks up a product by SKU.
+     *
+     * @param sku the product SKU
+     * @return the cached product, or null on a miss
+     */
+    public synchronized Product getBySku(String sku) {
+        Integer id = idBySku.get(sku);
+        if (id == null) {
+            misses++;
+            return null;
+        }
+        return getById(id);
+    }
+
+    /**
+     * Returns a stamp to pass to {@link #putIfUnchanged} after loading a product.
+     *
+     * @return the current invalidation generation
+     */
+    public synchronized long stamp() {
+        return generation;
+    }
+
+    /**
+     * Caches a freshly loaded product unless the cache was invalidated since the load started.
+     *
+     * @param product   the loaded product
+     * @param stamp     the value of {@link #stamp()} taken before the load
+     * @param loadNanos how long the load took
+     */
+    public synchronized void putIfUnchanged(Product product, long stamp, long loadNanos) {
+        loads++;
+        this.loadNanos += loadNanos;
+        if (stamp != generation) {
+            return;
+        }
+
+        Entry previous = byId.put(product.getId(), new Entry(product, System.currentTimeMillis()));
+        if (previous != null && !previous.product.getSku().equals(product.getSku())) {
+            idBySku.remove(previous.product.getSku());
+        }
+        idBySku.put(product.getSku(), product.getId());
+
+        Iterator<Map.Entry<Integer, Entry>> it = byId.entrySet().iterator();
+        while (byId.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            idBySku.remove(eldest.product.getSku());
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops the product with the given ID.
+     *
+     * @param id the product ID
+     */
+    public synchronized void invalidateId(int id) {
+        generation++;
+        remove(id);
+    }
+
+    /**
+     * Drops the product with the given SKU.
+     *
+     * @param sku the product SKU
+     */
+    public synchronized void invalidateSku(String sku) {
+        generation++;
+        Integer id = idBySku.get(sku);
+        if (id != null) {
+            remove(id);
+        }
+    }
+
+    /**
+     * Drops every cached product, for example after a bulk change.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        byId.clear();
+        idBySku.clear();
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return current cache statistics
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(byId.size(), maxSize, hits, misses, evictions, loads, loadNanos);
+    }
+
+    private void remove(int id) {
+        Entry entry = byId.remove(id);
+        if (entry != null) {
+            idBySku.remove(entry.product.getSku());
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        return ttlMillis > 0 && System.currentTimeMillis() - entry.loadedAt > ttlMillis;
+    }
+
+    private static final class Entry {
+        private final Product product;
+        private final long loadedAt;
+
+        private Entry(Product product, long loadedAt) {
+            this.product = product;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.inventory_manager.concurrent;
+
+/**
+ * Immutable snapshot of striped lock counters.
+ */
+public class LockStats {
+    private final int stripes;
+    private final long acquisitions;
+    private final long contended;
+    private final long totalWaitNanos;
+
+    /**
+     * Constructs a new LockStats snapshot.
+     *
+     * @param stripes        number of stripes
+     * @param acquisitions   stripes locked so far
+     * @param contended      acquisitions that had to wait for another holder
+     * @param totalWaitNanos total time spent waiting in those acquisitions
+     */
+    public LockStats(int stripes, long acquisitions, long contended, long totalWaitNanos) {
+        this.stripes = stripes;
+        this.acquisitions = acquisitions;
+        this.contended = contended;
+        this.totalWaitNanos = totalWaitNanos;
+    }
+
+    public int getStripes() { return stripes; }
+
+    public long getAcquisitions() { return acquisitions; }
+
+    public long getContended() { return contended; }
+
+    public long getTotalWaitNanos() { return totalWaitNanos; }
+
+    /**
+     * Returns the share of acquisitions that had to wait.
+     *
+     * @return contended acquisitions divided by all acquisitions, or 0 if there were none
+     */
+    public double getContentionRatio() {
+        return acquisitions == 0 ? 0 : (double) contended / acquisitions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LockStats[stripes=%d, acquisitions=%d, contended=%d, contentionRatio=%.3f, waitMs=%.3f]",
+                stripes, acquisitions, contended, getContentionRatio(), totalWaitNanos / 1e6);
+    }
+}
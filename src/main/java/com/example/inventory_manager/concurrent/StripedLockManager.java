@@ -0,0 +1,262 @@
+package com.example.inventory_manager.concurrent;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed array of locks shared by many keys, such as product IDs or SKUs.
+ * Each key maps to one stripe, so changes to the same key are serialized while changes
+ * to different keys rarely wait for each other, without one lock per key.
+ * Several keys are locked with {@link #lockAll(Collection)}, which takes their stripes in
+ * ascending index order, so two callers locking overlapping sets cannot deadlock.
+ * {@code withLock} and {@code withLocks} run a block of code with the stripes held, for
+ * callers that do not otherwise need the {@link Held} handle.
+ * Locks are reentrant. Acquisitions, the ones that had to wait and the time spent waiting
+ * are counted for {@link #getStats()}.
+ */
+public final class StripedLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * Constructs a new StripedLockManager.
+     *
+     * @param stripes the number of locks, rounded up to a power of two
+     */
+    public StripedLockManager(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive.");
+        }
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Creates a manager with the number of stripes given by the {@code inventory.lock.stripes}
+     * system property (default 64).
+     *
+     * @return a new lock manager
+     */
+    public static StripedLockManager fromSystemProperties() {
+        return new StripedLockManager(Integer.getInteger("inventory.lock.stripes", 64));
+    }
+
+    /**
+     * Returns the number of stripes, a power of two.
+     *
+     * @return the stripe count
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Returns the index of the stripe a key maps to.
+     *
+     * @param key the key; equal keys map to the same stripe
+     * @return the stripe index
+     */
+    public int stripeOf(Object key) {
+        int h = key.hashCode();
+        // Spread the bits so sequential IDs and similar strings use the whole array
+        h ^= h >>> 16;
+        h *= 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Locks the stripe of one key. Release it by closing the returned handle,
+     * preferably with try-with-resources.
+     *
+     * @param key the key to lock
+     * @return the held lock
+     */
+    public Held lock(Object key) {
+        ReentrantLock stripe = stripes[stripeOf(key)];
+        acquire(stripe);
+        return new Held(new ReentrantLock[] {stripe});
+    }
+
+    /**
+     * Locks the stripes of several keys, each once, in ascending stripe order.
+     * Release them by closing the returned handle.
+     *
+     * @param keys the keys to lock
+     * @return the held locks
+     */
+    public Held lockAll(Collection<?> keys) {
+        boolean[] wanted = new boolean[stripes.length];
+        int count = 0;
+        for (Object key : keys) {
+            int index = stripeOf(key);
+            if (!wanted[index]) {
+                wanted[index] = true;
+                count++;
+            }
+        }
+
+        ReentrantLock[] locked = new ReentrantLock[count];
+        int n = 0;
+        try {
+            for (int i = 0; i < wanted.length; i++) {
+                if (wanted[i]) {
+                    acquire(stripes[i]);
+                    locked[n++] = stripes[i];
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            for (int i = n - 1; i >= 0; i--) {
+                locked[i].unlock();
+            }
+            throw e;
+        }
+        return new Held(locked);
+    }
+
+    /**
+     * Runs an action with the stripe of one key held and returns its result.
+     *
+     * @param key    the key to lock
+     * @param action the action to run
+     * @param <T>    the result type
+     * @param <E>    the checked exception the action may throw
+     * @return the action's result
+     * @throws E if the action throws it
+     */
+    public <T, E extends Exception> T withLock(Object key, LockedCall<T, E> action) throws E {
+        Held held = lock(key);
+        try {
+            return action.call();
+        } finally {
+            held.close();
+        }
+    }
+
+    /**
+     * Runs an action with the stripe of one key held.
+     *
+     * @param key    the key to lock
+     * @param action the action to run
+     * @param <E>    the checked exception the action may throw
+     * @throws E if the action throws it
+     */
+    public <E extends Exception> void withLock(Object key, LockedTask<E> action) throws E {
+        Held held = lock(key);
+        try {
+            action.run();
+        } finally {
+            held.close();
+        }
+    }
+
+    /**
+     * Runs an action with the stripes of several keys held, taken as by {@link #lockAll(Collection)},
+     * and returns its result.
+     *
+     * @param keys   the keys to lock
+     * @param action the action to run
+     * @param <T>    the result type
+     * @param <E>    the checked exception the action may throw
+     * @return the action's result
+     * @throws E if the action throws it
+     */
+    public <T, E extends Exception> T withLocks(Collection<?> keys, LockedCall<T, E> action) throws E {
+        Held held = lockAll(keys);
+        try {
+            return action.call();
+        } finally {
+            held.close();
+        }
+    }
+
+    /**
+     * Runs an action with the stripes of several keys held, taken as by {@link #lockAll(Collection)}.
+     *
+     * @param keys   the keys to lock
+     * @param action the action to run
+     * @param <E>    the checked exception the action may throw
+     * @throws E if the action throws it
+     */
+    public <E extends Exception> void withLocks(Collection<?> keys, LockedTask<E> action) throws E {
+        Held held = lockAll(keys);
+        try {
+            action.run();
+        } finally {
+            held.close();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the lock counters.
+     *
+     * @return the current statistics
+     */
+    public LockStats getStats() {
+        return new LockStats(stripes.length, acquisitions.sum(), contended.sum(), waitNanos.sum());
+    }
+
+    private void acquire(ReentrantLock stripe) {
+        acquisitions.increment();
+        if (stripe.tryLock()) {
+            return;
+        }
+        contended.increment();
+        long start = System.nanoTime();
+        stripe.lock();
+        waitNanos.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Stripes held by one caller. Closing the handle releases them in reverse order;
+     * closing it again does nothing.
+     */
+    public static final class Held implements AutoCloseable {
+        private final ReentrantLock[] locked;
+        private boolean closed;
+
+        private Held(ReentrantLock[] locked) {
+            this.locked = locked;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (int i = locked.length - 1; i >= 0; i--) {
+                locked[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Code run with stripes held that returns a result.
+     *
+     * @param <T> the result type
+     * @param <E> the checked exception it may throw
+     */
+    @FunctionalInterface
+    public interface LockedCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Code run with stripes held that returns nothing.
+     *
+     * @param <E> the checked exception it may throw
+     */
+    @FunctionalInterface
+    public interface LockedTask<E extends Exception> {
+        void run() throws E;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.inventory_manager.controller;
+
+import com.example.inventory_manager.cache.InventoryAggregates;
+import com.example.inventory_manager.dao.impl.InventorySummaryDAO;
+import com.example.inventory_manager.db.SchemaInitializer;
+import com.example.inventory_manager.io.ExportWriter;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Serves the inventory totals as JSON: overall, per product category and per location,
+ * each with the stocked items (inventory rows holding stock), units in stock and stock value,
+ * plus the product count except for locations.
+ * The totals come from the in-memory {@link InventoryAggregates}, so the response takes
+ * the same time however large the catalog is.
+ */
+
+@WebServlet("/dashboard")
+public class DashboardServlet extends HttpServlet {
+
+    /**
+     * Makes sure the summary table exists and the aggregates are loaded.
+     */
+
+    @Override
+    public void init() {
+        SchemaInitializer.initialize();
+        InventorySummaryDAO.start();
+    }
+
+    /**
+     * Handles GET requests by rendering the current totals.
+     */
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        InventoryAggregates aggregates = InventorySummaryDAO.aggregates();
+        PrintWriter out = response.getWriter();
+        out.write("{\"total\":");
+        writeTotals(out, null, aggregates.getTotal(), true);
+        out.write(",\"categories\":");
+        writeGroups(out, aggregates.getCategories(), true);
+        out.write(",\"locations\":");
+        writeGroups(out, aggregates.getLocations(), false);
+        out.write("}\n");
+    }
+
+    private static void writeGroups(PrintWriter out, Map<String, InventoryAggregates.Totals> groups,
+                                    boolean withProducts) throws IOException {
+        out.write('[');
+        boolean first = true;
+        for (Map.Entry<String, InventoryAggregates.Totals> e : groups.entrySet()) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            writeTotals(out, e.getKey(), e.getValue(), withProducts);
+        }
+        out.write(']');
+    }
+
+    private static void writeTotals(PrintWriter out, String name, InventoryAggregates.Totals totals,
+                                    boolean withProducts) throws IOException {
+        out.write('{');
+        if (name != null) {
+            out.write("\"name\":");
+            ExportWriter.writeJsonString(out, name);
+            out.write(',');
+        }
+        if (withProducts) {
+            out.write("\"products\":" + totals.getProducts() + ",");
+        }
+        out.write("\"stockedItems\":" + totals.getStockedItems()
+                + ",\"units\":" + totals.getUnits()
+                + ",\"stockValue\":" + BigDecimal.valueOf(totals.getValueCents(), 2).toPlainString());
+        out.write('}');
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.inventory_manager.controller;
+
+import com.example.inventory_manager.dao.impl.InventoryItemDAOFactory;
+import com.example.inventory_manager.dao.impl.InventoryItemDAOImpl;
+import com.example.inventory_manager.dao.impl.OrderDAOImpl;
+import com.example.inventory_manager.dao.impl.ProductDAOImpl;
+import com.example.inventory_manager.io.ExportWriter;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams products, inventory items or orders as CSV or NDJSON for downstream jobs.
+ * Parameters: {@code type} ({@code products}, {@code inventory} or {@code orders}),
+ * {@code format} ({@code csv} by default, or {@code ndjson}) and {@code sinceId} to
+ * export only rows with a larger ID, for incremental pulls. Rows are read from a
+ * database cursor and written in flushed chunks, so memory use does not grow with
+ * the export. The response is gzip-compressed when the client accepts it;
+ * {@code gzip=true} or {@code gzip=false} overrides that.
+ */
+
+@WebServlet("/export")
+public class ExportServlet extends HttpServlet {
+
+    /**
+     * Records written between flushes of the response.
+     */
+    private static final int FLUSH_ROWS = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ProductDAOImpl productDAO;
+    private InventoryItemDAOImpl inventoryItemDAO;
+    private OrderDAOImpl orderDAO;
+
+    /**
+     * Initializes the DAO objects. Exports read the database directly, bypassing the product cache.
+     */
+
+    @Override
+    public void init() {
+        productDAO = new ProductDAOImpl();
+        inventoryItemDAO = InventoryItemDAOFactory.get();
+        orderDAO = new OrderDAOImpl();
+    }
+
+    /**
+     * Handles GET requests by streaming the requested export.
+     * Responds 400 for an unknown type or format or an invalid sinceId.
+     */
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        ExportWriter.Type type;
+        ExportWriter.Format format;
+        int sinceId;
+        try {
+            type = ExportWriter.Type.valueOf(upper(request.getParameter("type"), ""));
+            format = ExportWriter.Format.valueOf(upper(request.getParameter("format"), "CSV"));
+            String sinceParam = request.getParameter("sinceId");
+            sinceId = sinceParam == null || sinceParam.isEmpty() ? 0 : Integer.parseInt(sinceParam);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    "Expected type=products|inventory|orders, format=csv|ndjson and a numeric sinceId");
+            return;
+        }
+
+        String gzipParam = request.getParameter("gzip");
+        boolean gzip = gzipParam != null ? Boolean.parseBoolean(gzipParam) : acceptsGzip(request);
+
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment;filename="
+                + type.name().toLowerCase(Locale.ROOT) + "." + format.getExtension());
+        response.setHeader("Vary", "Accept-Encoding");
+        response.setBufferSize(BUFFER_SIZE);
+
+        OutputStream body = response.getOutputStream();
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            // Sync flush so every chunk flush reaches the client instead of waiting in the deflater
+            body = new GZIPOutputStream(body, BUFFER_SIZE, true);
+        }
+
+        Writer out = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+        ExportWriter export = new ExportWriter(out, format, FLUSH_ROWS);
+        export.begin(type);
+
+        boolean complete;
+        try {
+            switch (type) {
+                case PRODUCTS:
+                    complete = productDAO.forEachProduct(sinceId, export::writeProduct);
+                    break;
+                case INVENTORY:
+                    complete = inventoryItemDAO.forEachItem(sinceId, export::writeItem);
+                    break;
+                default:
+                    complete = orderDAO.forEachOrder(sinceId, export::writeOrder);
+                    break;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (!complete) {
+            // Headers are already sent; failing the request drops the connection before
+            // the final chunk, so the client sees a truncated transfer rather than a short file
+            throw new ServletException("Export of " + type + " failed after " + export.getCount() + " records");
+        }
+        export.finish();
+        out.close();
+    }
+
+    private static String upper(String value, String defaultValue) {
+        return (value == null || value.isEmpty() ? defaultValue : value).toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String accept = request.getHeader("Accept-Encoding");
+        return accept != null && accept.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.inventory_manager.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * One-time messages for the page a form post redirects to.
+ * The redirect looks the same whether the action worked or not, so failures also set the
+ * {@value #OUTCOME_HEADER} header to {@value #FAILED}, which clients such as the load test
+ * can check without loading the page.
+ */
+final class Flash {
+
+    static final String OUTCOME_HEADER = "X-Action-Outcome";
+    static final String FAILED = "failed";
+
+    private Flash() {
+    }
+
+    /**
+     * Shows a message after an action that worked.
+     *
+     * @param request the current request
+     * @param message the message to show
+     */
+    static void success(HttpServletRequest request, String message) {
+        request.getSession().setAttribute("flashMessage", message);
+    }
+
+    /**
+     * Shows a warning after an action that did not take effect, and marks the response as failed.
+     *
+     * @param request  the current request
+     * @param response the response that will carry the redirect
+     * @param message  the warning to show
+     */
+    static void failure(HttpServletRequest request, HttpServletResponse response, String message) {
+        request.getSession().setAttribute("flashMessage", message);
+        response.setHeader(OUTCOME_HEADER, FAILED);
+    }
+}
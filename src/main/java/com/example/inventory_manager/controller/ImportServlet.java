@@ -0,0 +1,109 @@
+package com.example.inventory_manager.controller;
+
+import com.example.inventory_manager.dao.impl.CachedProductDAO;
+import com.example.inventory_manager.dao.impl.InventoryItemDAOFactory;
+import com.example.inventory_manager.dao.impl.InventorySummaryDAO;
+import com.example.inventory_manager.db.SchemaInitializer;
+import com.example.inventory_manager.io.CsvImporter;
+import com.example.inventory_manager.io.ImportResult;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.MultipartConfig;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bulk import of products and stock levels from CSV (see {@link CsvImporter} for the format).
+ * Accepts either a raw {@code text/csv} request body or a multipart form upload in the
+ * {@code file} field, and replies with a plain-text summary and the rejected rows.
+ * Rows per transaction can be set with {@code inventory.import.chunkSize}.
+ */
+
+@WebServlet("/import")
+@MultipartConfig(fileSizeThreshold = 1024 * 1024)
+public class ImportServlet extends HttpServlet {
+
+    private CsvImporter importer;
+
+    /**
+     * Initializes the importer.
+     */
+
+    @Override
+    public void init() {
+        SchemaInitializer.initialize();
+        InventorySummaryDAO.start();
+        importer = new CsvImporter(new CachedProductDAO(), InventoryItemDAOFactory.get(),
+                Integer.getInteger("inventory.import.chunkSize", CsvImporter.DEFAULT_CHUNK_SIZE),
+                CsvImporter.DEFAULT_MAX_ERRORS);
+    }
+
+    /**
+     * Handles POST requests by importing the uploaded CSV.
+     * Responds 400 if the CSV cannot be parsed and 422 if some rows were rejected.
+     */
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        response.setContentType("text/plain");
+        response.setCharacterEncoding("UTF-8");
+
+        ImportResult result;
+        try (Reader in = open(request)) {
+            if (in == null) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.getWriter().println("No CSV uploaded: send text/csv or a multipart 'file' field.");
+                return;
+            }
+            result = importer.importCsv(in);
+        } catch (IOException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.getWriter().println("Import failed: " + e.getMessage());
+            return;
+        }
+
+        if (result.getRowsFailed() > 0) {
+            response.setStatus(422);
+        }
+        PrintWriter out = response.getWriter();
+        out.println(result.summary());
+        for (ImportResult.RowError error : result.getErrors()) {
+            out.println(error);
+        }
+        if (result.getRowsFailed() > result.getErrors().size()) {
+            out.println("... and " + (result.getRowsFailed() - result.getErrors().size()) + " more");
+        }
+    }
+
+    /**
+     * Opens the uploaded CSV as UTF-8 unless the request declares another charset.
+     *
+     * @return a reader over the CSV, or null if the request has none
+     */
+    private static Reader open(HttpServletRequest request) throws IOException, ServletException {
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith("multipart/form-data")) {
+            Part part = request.getPart("file");
+            if (part == null) {
+                return null;
+            }
+            return new BufferedReader(new InputStreamReader(part.getInputStream(), StandardCharsets.UTF_8));
+        }
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+        return request.getReader();
+    }
+}
@@ -1,13 +1,21 @@
 package com.example.inventory_manager.controller;
 
+import com.example.inventory_manager.dao.Page;
+import com.example.inventory_manager.dao.UpdateResult;
+import com.example.inventory_manager.dao.impl.CachedProductDAO;
 import com.example.inventory_manager.dao.impl.ProductDAOImpl;
 import com.example.inventory_manager.dao.impl.SupplierDAOImpl;
+import com.example.inventory_manager.dao.impl.InventoryItemDAOFactory;
+import com.example.inventory_manager.dao.impl.InventorySummaryDAO;
 import com.example.inventory_manager.dao.impl.InventoryItemDAOImpl;
 import com.example.inventory_manager.db.SchemaInitializer;
-import com.example.inventory_manager.model.InventoryReport;
+import com.example.inventory_manager.metrics.MethodTimer;
+import com.example.inventory_manager.metrics.MetricsRegistry;
+import com.example.inventory_manager.model.InventoryReportWriter;
 import com.example.inventory_manager.model.Product;
 import com.example.inventory_manager.model.Supplier;
 import com.example.inventory_manager.model.InventoryItem;
+import com.example.inventory_manager.model.StockMovement;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -16,7 +24,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Servlet controller for managing the inventory system.
@@ -29,6 +40,26 @@ public class InventoryServlet extends HttpServlet {
     private ProductDAOImpl productDAO;
     private SupplierDAOImpl supplierDAO;
     private InventoryItemDAOImpl inventoryItemDAO;
+    private PageLoader pageLoader;
+
+    /**
+     * Report lines written between flushes of the response.
+     */
+    private static final int REPORT_FLUSH_ROWS = 1000;
+
+    /**
+     * Timers for the POST actions; anything else is recorded as {@code unknown}.
+     */
+    private static final Map<String, MethodTimer> ACTION_TIMERS = Map.of(
+            "addProduct", MetricsRegistry.actionTimer(InventoryServlet.class, "addProduct"),
+            "editProduct", MetricsRegistry.actionTimer(InventoryServlet.class, "editProduct"),
+            "addSupplier", MetricsRegistry.actionTimer(InventoryServlet.class, "addSupplier"),
+            "updateStock", MetricsRegistry.actionTimer(InventoryServlet.class, "updateStock"),
+            "deleteProduct", MetricsRegistry.actionTimer(InventoryServlet.class, "deleteProduct"),
+            "deleteSupplier", MetricsRegistry.actionTimer(InventoryServlet.class, "deleteSupplier"),
+            "generateReport", MetricsRegistry.actionTimer(InventoryServlet.class, "generateReport")
+    );
+    private static final MethodTimer UNKNOWN_ACTION = MetricsRegistry.actionTimer(InventoryServlet.class, "unknown");
 
     /**
      * Initializes database schema and inserts sample data if necessary.
@@ -37,25 +68,27 @@ public class InventoryServlet extends HttpServlet {
     @Override
     public void init() throws ServletException {
         SchemaInitializer.initialize();
-        productDAO = new ProductDAOImpl();
+        InventorySummaryDAO.start();
+        productDAO = new CachedProductDAO();
         supplierDAO = new SupplierDAOImpl();
-        inventoryItemDAO = new InventoryItemDAOImpl();
+        inventoryItemDAO = InventoryItemDAOFactory.get();
+        pageLoader = PageLoader.fromSystemProperties("inventory");
 
         try {
             // Insert sample supplier if none exists
-            if (supplierDAO.findAll().isEmpty()) {
+            if (supplierDAO.findPage(0, 1, null).getItems().isEmpty()) {
                 Supplier defaultSupplier = new Supplier(0, "Default Supplier", "default@supplier.com", "123-456-7890");
                 supplierDAO.save(defaultSupplier);
             }
 
             // Insert sample product if none exists
-            if (productDAO.findAll().isEmpty()) {
+            if (productDAO.findPage(0, 1, null).getItems().isEmpty()) {
                 Product defaultProduct = new Product(0, "Sample Product", "SP001", "General", 10.99, "Demo product.");
-                productDAO.save(defaultProduct);
+                int productId = productDAO.save(defaultProduct);
 
                 // Also insert an inventory item for it
-                Product savedProduct = productDAO.findBySku("SP001");
-                if (savedProduct != null) {
+                if (productId > 0) {
+                    Product savedProduct = new Product(productId, "Sample Product", "SP001", "General", 10.99, "Demo product.");
                     InventoryItem item = new InventoryItem(savedProduct, 10, "Warehouse A");
                     inventoryItemDAO.save(item);
                 }
@@ -66,25 +99,59 @@ public class InventoryServlet extends HttpServlet {
     }
 
     /**
-     * Handles GET requests by loading products, suppliers, and inventory items from the database.
-     * Forwards the data to the inventory.jsp page.
+     * Stops the page loading threads. The shared DAO and the summary are closed by
+     * {@link ShutdownListener}.
+     */
+
+    @Override
+    public void destroy() {
+        pageLoader.close();
+    }
+
+    /**
+     * Handles GET requests by loading one page of products and suppliers, plus the
+     * inventory items of the products on that page. The product and supplier pages load
+     * concurrently; the inventory items need the product IDs, so they load afterwards.
+     * If the suppliers do not load in time, the page shows none and a warning.
+     * Pages are selected with the {@code productAfter}, {@code supplierAfter},
+     * {@code size} and {@code sort} parameters. Forwards the data to the inventory.jsp page.
      */
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
-        List<Product> products = productDAO.findAll();
-        List<Supplier> suppliers = supplierDAO.findAll();
-        List<InventoryItem> inventoryItems = inventoryItemDAO.findAll();
+        int pageSize = Paging.size(request);
+        String sort = request.getParameter("sort");
 
-        System.out.println("[DEBUG] Products loaded: " + products.size());
-        System.out.println("[DEBUG] Suppliers loaded: " + suppliers.size());
-        System.out.println("[DEBUG] InventoryItems loaded: " + inventoryItems.size());
+        int productAfter = Paging.cursor(request, "productAfter");
+        int supplierAfter = Paging.cursor(request, "supplierAfter");
 
-        request.setAttribute("products", products);
-        request.setAttribute("suppliers", suppliers);
+        PageLoader.Batch batch = pageLoader.batch();
+        PageLoader.Result<Page<Product>> products = batch.add(() -> productDAO.findPage(productAfter, pageSize, sort));
+        PageLoader.Result<Page<Supplier>> suppliers = batch.add(() -> supplierDAO.findPage(supplierAfter, pageSize, null),
+                new Page<>(List.of(), null));
+        batch.run();
+
+        Page<Product> productPage = products.get();
+        Page<Supplier> supplierPage = suppliers.get();
+        if (suppliers.isFallback()) {
+            Flash.failure(request, response, "⚠️ Suppliers could not be loaded in time. Reload the page to try again.");
+        }
+
+        List<Integer> productIds = new ArrayList<>();
+        for (Product product : productPage.getItems()) {
+            productIds.add(product.getId());
+        }
+        List<InventoryItem> inventoryItems = inventoryItemDAO.findByProductIds(productIds);
+
+        request.setAttribute("products", productPage.getItems());
+        request.setAttribute("productsNext", productPage.getNextCursor());
+        request.setAttribute("suppliers", supplierPage.getItems());
+        request.setAttribute("suppliersNext", supplierPage.getNextCursor());
         request.setAttribute("inventoryItems", inventoryItems);
+        request.setAttribute("pageSize", pageSize);
+        request.setAttribute("sort", sort);
 
         request.getRequestDispatcher("/inventory.jsp").forward(request, response);
     }
@@ -98,25 +165,61 @@ public class InventoryServlet extends HttpServlet {
             throws ServletException, IOException {
 
         String action = request.getParameter("action");
+        MethodTimer timer = action == null ? UNKNOWN_ACTION : ACTION_TIMERS.getOrDefault(action, UNKNOWN_ACTION);
+        long start = timer.start();
+        try {
+            handleAction(action, request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            timer.error();
+            throw e;
+        } finally {
+            timer.stop(start);
+        }
+    }
+
+    /**
+     * Runs a POST action and redirects back to the inventory page (except for reports,
+     * which are written to the response).
+     */
+
+    private void handleAction(String action, HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
 
         if ("addProduct".equals(action)) {
-            addProduct(request);
-            request.getSession().setAttribute("flashMessage", "✅ New product added successfully!");
+            if (addProduct(request)) {
+                Flash.success(request, "✅ New product added successfully!");
+            } else {
+                Flash.failure(request, response, "⚠️ Product not added: the SKU already exists (use Edit to change that product) or the input is invalid.");
+            }
+        } else if ("editProduct".equals(action)) {
+            UpdateResult result = editProduct(request);
+            if (result == UpdateResult.UPDATED) {
+                Flash.success(request, "✅ Product updated successfully!");
+            } else if (result == UpdateResult.CONFLICT) {
+                Flash.failure(request, response, "⚠️ Product not updated: someone else changed it in the meantime. Check the current values and try again.");
+            } else if (result == UpdateResult.NOT_FOUND) {
+                Flash.failure(request, response, "⚠️ Product not updated: it no longer exists.");
+            } else {
+                Flash.failure(request, response, "⚠️ Product not updated: invalid input or the SKU is already in use.");
+            }
         } else if ("addSupplier".equals(action)) {
             addSupplier(request);
-            request.getSession().setAttribute("flashMessage", "✅ New supplier added successfully!");
+            Flash.success(request, "✅ New supplier added successfully!");
         } else if ("updateStock".equals(action)) {
-            updateStock(request);
-            request.getSession().setAttribute("flashMessage", "✅ Stock updated successfully!");
+            if (updateStock(request)) {
+                Flash.success(request, "✅ Stock updated successfully!");
+            } else {
+                Flash.failure(request, response, "⚠️ Stock not updated: unknown product or stock would go below zero.");
+            }
         } else if ("deleteProduct".equals(action)) {
             deleteProduct(request);
-            request.getSession().setAttribute("flashMessage", "🗑️ Product deleted successfully!");
+            Flash.success(request, "🗑️ Product deleted successfully!");
         } else if ("deleteSupplier".equals(action)) {
             deleteSupplier(request);
-            request.getSession().setAttribute("flashMessage", "🗑️ Supplier deleted successfully!");
+            Flash.success(request, "🗑️ Supplier deleted successfully!");
         } else if ("generateReport".equals(action)) {
             generateReport(request, response);
-            request.getSession().setAttribute("flashMessage", "📄 Inventory report generated!");
+            Flash.success(request, "📄 Inventory report generated!");
             return;
         }
 
@@ -125,20 +228,36 @@ public class InventoryServlet extends HttpServlet {
 
     /**
      * Generates and downloads the inventory report as a text file.
+     * Rows are streamed from the database straight to the response and flushed in
+     * chunks, so memory use does not grow with the size of the inventory.
+     * If the rows cannot all be read, the request fails before the totals are written,
+     * so a partial report is never presented as complete.
      *
      * @param request  HTTP request
      * @param response HTTP response
-     * @throws IOException if an I/O error occurs
+     * @throws ServletException if reading the inventory failed part way
+     * @throws IOException      if an I/O error occurs
      */
 
-    private void generateReport(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        List<InventoryItem> inventoryItems = inventoryItemDAO.findAll();
-        InventoryReport report = new InventoryReport(inventoryItems);
-        String reportText = report.generateReport();
-
+    private void generateReport(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
         response.setContentType("text/plain");
+        response.setCharacterEncoding("UTF-8");
         response.setHeader("Content-Disposition", "attachment;filename=inventory_report.txt");
-        response.getWriter().write(reportText);
+
+        InventoryReportWriter report = new InventoryReportWriter(response.getWriter(), REPORT_FLUSH_ROWS);
+        report.begin();
+        boolean complete;
+        try {
+            complete = inventoryItemDAO.forEachItem(report);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (!complete) {
+            // Rows already went out; failing the request truncates the download instead of adding the totals
+            throw new ServletException("Inventory report failed after " + report.getCount() + " items");
+        }
+        report.finish();
     }
 
     /**
@@ -156,7 +275,7 @@ public class InventoryServlet extends HttpServlet {
                 supplierDAO.deleteById(supplierId);
 
                 // Flash a success message
-                request.getSession().setAttribute("flashMessage", "Supplier deleted successfully!");
+                Flash.success(request, "Supplier deleted successfully!");
 
             } catch (NumberFormatException e) {
                 System.err.println("Invalid supplier ID for delete: " + e.getMessage());
@@ -178,16 +297,18 @@ public class InventoryServlet extends HttpServlet {
             try {
                 int productId = Integer.parseInt(productIdStr);
 
-                // Delete inventory item first if it exists
-                InventoryItem item = inventoryItemDAO.findByProductId(productId);
-                if (item != null) {
-                    inventoryItemDAO.deleteByProductId(productId);
-                }
+                StockLocks.get().withLock(productId, () -> {
+                    // Delete inventory item first if it exists
+                    InventoryItem item = inventoryItemDAO.findByProductId(productId);
+                    if (item != null) {
+                        inventoryItemDAO.deleteByProductId(productId);
+                    }
 
-                // Delete the product
-                productDAO.deleteById(productId);
+                    // Delete the product
+                    productDAO.deleteById(productId);
+                });
 
-                request.getSession().setAttribute("flashMessage", "Product deleted successfully!");
+                Flash.success(request, "Product deleted successfully!");
 
             } catch (NumberFormatException e) {
                 System.err.println("Invalid product ID for delete: " + e.getMessage());
@@ -197,11 +318,14 @@ public class InventoryServlet extends HttpServlet {
 
     /**
      * Adds a new product based on form data.
+     * A product whose SKU already exists is not overwritten; it is changed with
+     * {@link #editProduct(HttpServletRequest)} instead.
      *
      * @param request HTTP request
+     * @return true if the product was added, false otherwise
      */
 
-    private void addProduct(HttpServletRequest request) {
+    private boolean addProduct(HttpServletRequest request) {
         String name = request.getParameter("productName");
         String sku = request.getParameter("productSku");
         String category = request.getParameter("productCategory");
@@ -214,22 +338,73 @@ public class InventoryServlet extends HttpServlet {
                 double price = Double.parseDouble(priceStr);
                 int quantity = Integer.parseInt(quantityStr);
 
+                if (productDAO.findBySku(sku) != null) {
+                    return false;
+                }
                 Product product = new Product(0, name, sku, category, price, description);
 
-                boolean saved = productDAO.save(product);
+                int productId = productDAO.save(product);
 
-                if (saved) {
-                    Product savedProduct = productDAO.findBySku(sku);
-                    if (savedProduct != null) {
-                        InventoryItem item = new InventoryItem(savedProduct, quantity, "Default Location");
+                if (productId > 0) {
+                    Product savedProduct = new Product(productId, name, sku, category, price, description);
+                    InventoryItem item = new InventoryItem(savedProduct, quantity, "Default Location");
 
-                        inventoryItemDAO.save(item);
-                    }
+                    return StockLocks.get().withLock(productId, () -> inventoryItemDAO.save(item) > 0);
                 }
             } catch (NumberFormatException e) {
                 System.err.println("Invalid price or quantity input: " + e.getMessage());
             }
         }
+        return false;
+    }
+
+    /**
+     * Changes a product and the stock of its first inventory row based on the edit form.
+     * The form carries the versions the page was rendered with, and both rows are written
+     * with compare-and-swap updates, so a change someone else made after the page was
+     * loaded is reported as a conflict instead of being overwritten. Both are written in one
+     * transaction, so a conflict on either leaves both unchanged.
+     *
+     * @param request HTTP request
+     * @return the outcome; {@code REJECTED} for missing or invalid input
+     */
+
+    private UpdateResult editProduct(HttpServletRequest request) {
+        String productIdStr = request.getParameter("productId");
+        String productVersionStr = request.getParameter("productVersion");
+        String name = request.getParameter("productName");
+        String sku = request.getParameter("productSku");
+        String category = request.getParameter("productCategory");
+        String priceStr = request.getParameter("productPrice");
+        String description = request.getParameter("productDescription");
+        String inventoryIdStr = request.getParameter("inventoryId");
+        String inventoryVersionStr = request.getParameter("inventoryVersion");
+        String quantityStr = request.getParameter("productQuantity");
+
+        if (productIdStr == null || productVersionStr == null || name == null || sku == null || priceStr == null) {
+            return UpdateResult.REJECTED;
+        }
+        try {
+            int productId = Integer.parseInt(productIdStr);
+            Product product = new Product(productId, name, sku, category, Double.parseDouble(priceStr), description);
+            product.setVersion(Long.parseLong(productVersionStr));
+
+            // Products without stock have no inventory row to edit
+            InventoryItem item;
+            if (inventoryIdStr != null && !inventoryIdStr.isEmpty()) {
+                item = new InventoryItem(product, Integer.parseInt(quantityStr), null);
+                item.setInventoryId(Integer.parseInt(inventoryIdStr));
+                item.setVersion(Long.parseLong(inventoryVersionStr));
+            } else {
+                item = null;
+            }
+
+            return StockLocks.get().withLock(productId,
+                    () -> item == null ? productDAO.update(product) : inventoryItemDAO.update(product, item));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid product edit input: " + e.getMessage());
+            return UpdateResult.REJECTED;
+        }
     }
 
 
@@ -252,11 +427,15 @@ public class InventoryServlet extends HttpServlet {
 
     /**
      * Updates stock quantity for a given product SKU.
+     * The change is applied atomically in the database and rejected if stock would go below zero.
+     * It runs under the product's stock lock, so concurrent requests for one product queue in
+     * the servlet rather than on the database row.
      *
      * @param request HTTP request
+     * @return true if the stock was changed, false otherwise
      */
 
-    private void updateStock(HttpServletRequest request) {
+    private boolean updateStock(HttpServletRequest request) {
         String sku = request.getParameter("productSku");
         String quantityStr = request.getParameter("quantityChange");
 
@@ -267,18 +446,13 @@ public class InventoryServlet extends HttpServlet {
                 Product product = productDAO.findBySku(sku);
 
                 if (product != null) {
-                    // Load or create InventoryItem
-                    InventoryItem item = inventoryItemDAO.findByProductId(product.getId());
-                    if (item == null) {
-                        item = new InventoryItem(product, 0, "Default Location");
-                    }
-                    item.setCurrentStock(item.getCurrentStock() + quantityChange);
-
-                    inventoryItemDAO.save(item);
+                    return StockLocks.get().withLock(product.getId(), () -> inventoryItemDAO.adjustStock(product.getId(),
+                            quantityChange, StockMovement.Reason.ADJUSTMENT, 0) >= 0);
                 }
             } catch (NumberFormatException e) {
                 System.err.println("Invalid quantity input: " + e.getMessage());
             }
         }
+        return false;
     }
 }
@@ -0,0 +1,83 @@
+package com.example.inventory_manager.controller;
+
+import com.example.inventory_manager.cache.CacheStats;
+import com.example.inventory_manager.concurrent.LockStats;
+import com.example.inventory_manager.dao.impl.CachedProductDAO;
+import com.example.inventory_manager.dao.impl.InventoryItemDAOFactory;
+import com.example.inventory_manager.dao.impl.InventoryItemDAOImpl;
+import com.example.inventory_manager.dao.impl.LedgerInventoryItemDAO;
+import com.example.inventory_manager.dao.impl.WriteBehindInventoryItemDAO;
+import com.example.inventory_manager.db.DbUtil;
+import com.example.inventory_manager.db.PoolStats;
+import com.example.inventory_manager.metrics.MetricsRegistry;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Exposes application metrics in the Prometheus text format: DAO method and servlet
+ * action latency histograms with call and error counters, plus connection pool,
+ * product cache, stock lock, write-behind stock buffer and stock ledger statistics.
+ */
+
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    /**
+     * Handles GET requests by rendering all metrics.
+     */
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("text/plain; version=0.0.4");
+        response.setCharacterEncoding("UTF-8");
+
+        PrintWriter out = response.getWriter();
+        MetricsRegistry.writePrometheus(out);
+
+        PoolStats pool = DbUtil.getPoolStats();
+        write(out, "inventory_db_pool_active_connections", "gauge", "Connections currently borrowed.", pool.getActive());
+        write(out, "inventory_db_pool_idle_connections", "gauge", "Connections idle in the pool.", pool.getIdle());
+        write(out, "inventory_db_pool_waiting_threads", "gauge", "Threads waiting for a connection.", pool.getWaiting());
+        write(out, "inventory_db_pool_borrows_total", "counter", "Connections borrowed.", pool.getBorrowed());
+        write(out, "inventory_db_pool_timeouts_total", "counter", "Borrows that timed out.", pool.getTimeouts());
+        write(out, "inventory_db_statement_cache_hits_total", "counter", "Prepared statements served from cache.", pool.getStatementCacheHits());
+        write(out, "inventory_db_statement_cache_misses_total", "counter", "Prepared statements that had to be parsed.", pool.getStatementCacheMisses());
+
+        CacheStats cache = CachedProductDAO.getCache().getStats();
+        write(out, "inventory_product_cache_size", "gauge", "Products in the cache.", cache.getSize());
+        write(out, "inventory_product_cache_hits_total", "counter", "Product lookups served from the cache.", cache.getHits());
+        write(out, "inventory_product_cache_misses_total", "counter", "Product lookups that went to the database.", cache.getMisses());
+        write(out, "inventory_product_cache_evictions_total", "counter", "Products evicted from the cache.", cache.getEvictions());
+
+        LockStats locks = StockLocks.get().getStats();
+        write(out, "inventory_stock_lock_stripes", "gauge", "Stripes of the per-product stock locks.", locks.getStripes());
+        write(out, "inventory_stock_lock_acquisitions_total", "counter", "Stock lock stripes taken.", locks.getAcquisitions());
+        write(out, "inventory_stock_lock_contended_total", "counter", "Stock lock stripes that had to wait for another request.", locks.getContended());
+        write(out, "inventory_stock_lock_wait_milliseconds_total", "counter", "Time spent waiting for stock lock stripes.", locks.getTotalWaitNanos() / 1_000_000);
+
+        InventoryItemDAOImpl inventoryItemDAO = InventoryItemDAOFactory.get();
+        if (inventoryItemDAO instanceof WriteBehindInventoryItemDAO) {
+            write(out, "inventory_stock_pending_adjustments", "gauge", "Stock adjustments buffered for the next flush.",
+                    ((WriteBehindInventoryItemDAO) inventoryItemDAO).getPendingCount());
+        } else if (inventoryItemDAO instanceof LedgerInventoryItemDAO) {
+            write(out, "inventory_stock_unfolded_movements", "gauge", "Stock movements not yet folded into inventory_items.",
+                    ((LedgerInventoryItemDAO) inventoryItemDAO).getUnfoldedCount());
+            LockStats ledgerLocks = ((LedgerInventoryItemDAO) inventoryItemDAO).getLockStats();
+            write(out, "inventory_stock_ledger_lock_acquisitions_total", "counter", "Ledger product stripes taken.", ledgerLocks.getAcquisitions());
+            write(out, "inventory_stock_ledger_lock_contended_total", "counter", "Ledger product stripes that had to wait for another append.", ledgerLocks.getContended());
+            write(out, "inventory_stock_ledger_lock_wait_milliseconds_total", "counter", "Time spent waiting for ledger product stripes.", ledgerLocks.getTotalWaitNanos() / 1_000_000);
+        }
+    }
+
+    private static void write(PrintWriter out, String name, String type, String help, long value) {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+        out.write(name + " " + value + "\n");
+    }
+}
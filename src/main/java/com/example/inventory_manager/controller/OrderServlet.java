@@ -1,9 +1,14 @@
 package com.example.inventory_manager.controller;
 
+import com.example.inventory_manager.dao.Page;
 import com.example.inventory_manager.dao.impl.OrderDAOImpl;
 import com.example.inventory_manager.dao.impl.SupplierDAOImpl;
+import com.example.inventory_manager.dao.impl.CachedProductDAO;
 import com.example.inventory_manager.dao.impl.ProductDAOImpl;
+import com.example.inventory_manager.dao.impl.InventoryItemDAOFactory;
 import com.example.inventory_manager.dao.impl.InventoryItemDAOImpl;
+import com.example.inventory_manager.metrics.MethodTimer;
+import com.example.inventory_manager.metrics.MetricsRegistry;
 import com.example.inventory_manager.model.Order;
 import com.example.inventory_manager.model.Supplier;
 import com.example.inventory_manager.model.Product;
@@ -26,10 +31,14 @@ import java.util.List;
 @WebServlet("/order")
 public class OrderServlet extends HttpServlet {
 
+    private static final MethodTimer PLACE_ORDER = MetricsRegistry.actionTimer(OrderServlet.class, "placeOrder");
+    private static final MethodTimer COMPLETE_ORDER = MetricsRegistry.actionTimer(OrderServlet.class, "completeOrder");
+
     private OrderDAOImpl orderDAO;
     private SupplierDAOImpl supplierDAO;
     private ProductDAOImpl productDAO;
     private InventoryItemDAOImpl inventoryItemDAO;
+    private PageLoader pageLoader;
 
     /**
      * Initializes DAO objects for order, supplier, product, and inventory management.
@@ -39,27 +48,62 @@ public class OrderServlet extends HttpServlet {
     public void init() {
         orderDAO = new OrderDAOImpl();
         supplierDAO = new SupplierDAOImpl();
-        productDAO = new ProductDAOImpl();
-        inventoryItemDAO = new InventoryItemDAOImpl();
+        productDAO = new CachedProductDAO();
+        inventoryItemDAO = InventoryItemDAOFactory.get();
+        pageLoader = PageLoader.fromSystemProperties("order");
+    }
+
+    /**
+     * Stops the page loading threads. The shared DAO is closed by {@link ShutdownListener}.
+     */
+
+    @Override
+    public void destroy() {
+        pageLoader.close();
     }
 
     /**
-     * Handles GET requests by loading all orders, suppliers, and products.
-     * Forwards the data to orders.jsp.
+     * Handles GET requests by loading one page of orders and products, plus suppliers for the order form.
+     * The three queries run concurrently. If the suppliers or products for the form do not
+     * load in time, the orders are still shown, with a warning.
+     * Pages are selected with the {@code orderAfter}, {@code productAfter}, {@code size}
+     * and {@code sort} parameters. Forwards the data to orders.jsp.
      */
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
 
-        List<Order> orders = orderDAO.findAll();
-        request.setAttribute("orders", orders);
+        int pageSize = Paging.size(request);
+        String sort = request.getParameter("sort");
+
+        int orderAfter = Paging.cursor(request, "orderAfter");
+        int productAfter = Paging.cursor(request, "productAfter");
+
+        PageLoader.Batch batch = pageLoader.batch();
+        PageLoader.Result<Page<Order>> orders = batch.add(() -> orderDAO.findPage(orderAfter, pageSize, sort));
+        PageLoader.Result<Page<Supplier>> suppliers = batch.add(() -> supplierDAO.findPage(0, Page.MAX_SIZE, "name"),
+                new Page<>(List.of(), null));
+        PageLoader.Result<Page<Product>> products = batch.add(() -> productDAO.findPage(productAfter, pageSize, null),
+                new Page<>(List.of(), null));
+        batch.run();
+        if (suppliers.isFallback() || products.isFallback()) {
+            Flash.failure(request, response, "⚠️ The order form could not be loaded in time. Reload the page to try again.");
+        }
 
-        List<Supplier> suppliers = supplierDAO.findAll();
-        request.setAttribute("suppliers", suppliers);
+        Page<Order> orderPage = orders.get();
+        request.setAttribute("orders", orderPage.getItems());
+        request.setAttribute("ordersNext", orderPage.getNextCursor());
 
-        List<Product> products = productDAO.findAll();
-        request.setAttribute("products", products);
+        Page<Supplier> supplierPage = suppliers.get();
+        request.setAttribute("suppliers", supplierPage.getItems());
+
+        Page<Product> productPage = products.get();
+        request.setAttribute("products", productPage.getItems());
+        request.setAttribute("productsNext", productPage.getNextCursor());
+
+        request.setAttribute("pageSize", pageSize);
+        request.setAttribute("sort", sort);
 
         request.getRequestDispatcher("/orders.jsp").forward(request, response);
     }
@@ -73,11 +117,20 @@ public class OrderServlet extends HttpServlet {
             throws ServletException, IOException {
 
         String action = request.getParameter("action");
+        boolean complete = "completeOrder".equals(action);
+        MethodTimer timer = complete ? COMPLETE_ORDER : PLACE_ORDER;
 
-        if ("completeOrder".equals(action)) {
-            completeOrder(request, response);
-        } else {
-            placeOrder(request, response);
+        long start = timer.start();
+        try {
+            boolean ok = complete ? completeOrder(request, response) : placeOrder(request, response);
+            if (!ok) {
+                timer.error();
+            }
+        } catch (IOException | RuntimeException e) {
+            timer.error();
+            throw e;
+        } finally {
+            timer.stop(start);
         }
     }
 
@@ -86,10 +139,11 @@ public class OrderServlet extends HttpServlet {
      *
      * @param request  HTTP request
      * @param response HTTP response
+     * @return false if the request failed with an error
      * @throws IOException if an error occurs during redirection
      */
 
-    private void placeOrder(HttpServletRequest request, HttpServletResponse response)
+    private boolean placeOrder(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
 
         try {
@@ -97,10 +151,7 @@ public class OrderServlet extends HttpServlet {
             String productSku = request.getParameter("productSku");
             int quantity = Integer.parseInt(request.getParameter("quantity"));
 
-            Supplier supplier = supplierDAO.findAll().stream()
-                    .filter(s -> s.getSupplierId() == supplierId)
-                    .findFirst()
-                    .orElse(null);
+            Supplier supplier = supplierDAO.findById(supplierId);
 
             if (supplier == null) {
                 throw new IllegalArgumentException("Supplier not found");
@@ -117,61 +168,53 @@ public class OrderServlet extends HttpServlet {
             Order order = new Order(0, supplier);
             order.addItem(item);
 
-            orderDAO.save(order);
-
-            request.getSession().setAttribute("flashMessage", "✅ New order placed successfully!");
-
+            if (orderDAO.save(order)) {
+                Flash.success(request, "✅ New order placed successfully!");
+            } else {
+                Flash.failure(request, response, "⚠️ Order not placed: the database update failed.");
+            }
 
             response.sendRedirect(request.getContextPath() + "/order");
+            return true;
 
         } catch (Exception e) {
             e.printStackTrace();
+            Flash.failure(request, response, "⚠️ Order not placed: unknown supplier or product, or invalid quantity.");
             response.sendRedirect(request.getContextPath() + "/order");
+            return false;
         }
     }
 
     /**
-     * Marks an order as completed, updates its status, and increases inventory stock based on ordered items.
+     * Marks a pending order as completed and adds its ordered items to stock, in one transaction.
+     * Submitting the same order again has no effect.
      *
      * @param request  HTTP request
      * @param response HTTP response
+     * @return false if the request failed with an error
      * @throws IOException if an error occurs during redirection
      */
 
-    private void completeOrder(HttpServletRequest request, HttpServletResponse response)
+    private boolean completeOrder(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
 
         try {
             int orderId = Integer.parseInt(request.getParameter("orderId"));
 
-            Order order = orderDAO.findById(orderId);
-
-            if (order != null && "Pending".equals(order.getStatus())) {
-                order.markAsCompleted();
-                orderDAO.update(order);
-
-                for (InventoryItem item : order.getOrderedItems()) {
-                    InventoryItem existingItem = inventoryItemDAO.findByProductId(item.getProduct().getId());
-                    if (existingItem != null) {
-                        existingItem.updateStock(item.getCurrentStock());
-                        inventoryItemDAO.save(existingItem);
-                    } else {
-                        inventoryItemDAO.save(new InventoryItem(
-                                item.getProduct(),
-                                item.getCurrentStock(),
-                                "Default Location"
-                        ));
-                    }
-                }
-
-                request.getSession().setAttribute("flashMessage", "✅ Order #" + order.getOrderId() + " marked as completed!");
+            if (orderDAO.complete(orderId, inventoryItemDAO)) {
+                Flash.success(request, "✅ Order #" + orderId + " marked as completed!");
+            } else {
+                Flash.failure(request, response, "⚠️ Order #" + orderId + " not completed: it is not pending or the update failed.");
             }
 
             response.sendRedirect(request.getContextPath() + "/order");
+            return true;
 
         } catch (Exception e) {
             e.printStackTrace();
+            Flash.failure(request, response, "⚠️ Order not completed: invalid order ID.");
             response.sendRedirect(request.getContextPath() + "/order");
+            return false;
         }
     }
 
@@ -0,0 +1,237 @@
+package com.example.inventory_manager.controller;
+
+import com.example.inventory_manager.db.SqlTracer;
+
+import jakarta.servlet.ServletException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the independent queries behind a page concurrently, so page latency is bounded
+ * by the slowest query rather than the sum of all of them.
+ * Each servlet owns one loader, created in {@code init()} and closed in {@code destroy()}.
+ * Work runs on a bounded pool of daemon threads. Every batch shares one timeout, after which
+ * unfinished queries are cancelled. A query that the pool rejects because it and its queue
+ * are full is treated like one that timed out: it never runs on the request thread, where
+ * it would escape the timeout. Such a query yields its fallback value if it was given one,
+ * and fails the batch otherwise.
+ */
+final class PageLoader implements AutoCloseable {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    /**
+     * Constructs a new PageLoader.
+     *
+     * @param name          prefix for the worker thread names
+     * @param threads       maximum number of worker threads
+     * @param timeoutMillis how long a whole batch may take
+     */
+    PageLoader(String name, int threads, long timeoutMillis) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, name + "-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 4), factory, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Creates a loader configured from the {@code inventory.page.loadThreads} (default 4)
+     * and {@code inventory.page.loadTimeoutMillis} (default 10000) system properties.
+     *
+     * @param name prefix for the worker thread names
+     * @return a new loader
+     */
+    static PageLoader fromSystemProperties(String name) {
+        return new PageLoader(name,
+                Integer.getInteger("inventory.page.loadThreads", 4),
+                Long.getLong("inventory.page.loadTimeoutMillis", 10_000L));
+    }
+
+    /**
+     * Starts a new batch of queries.
+     *
+     * @return an empty batch
+     */
+    Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * Stops the worker threads, interrupting any query still running.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A set of queries for one page. Add the queries, call {@link #run()}, then read the results.
+     */
+    final class Batch {
+        private final List<Result<?>> results = new ArrayList<>();
+
+        private Batch() {
+        }
+
+        /**
+         * Adds a query to the batch that the page cannot do without. If it is rejected or
+         * times out, {@link #run()} fails.
+         *
+         * @param query the query to run
+         * @param <T>   the result type
+         * @return a holder for the result, filled in by {@link #run()}
+         */
+        <T> Result<T> add(Callable<T> query) {
+            return add(query, false, null);
+        }
+
+        /**
+         * Adds a query to the batch whose result the page can do without. If it is rejected
+         * or times out, its result is the fallback instead.
+         *
+         * @param query    the query to run
+         * @param fallback the result to use if the query does not run in time
+         * @param <T>      the result type
+         * @return a holder for the result, filled in by {@link #run()}
+         */
+        <T> Result<T> add(Callable<T> query, T fallback) {
+            return add(query, true, fallback);
+        }
+
+        private <T> Result<T> add(Callable<T> query, boolean hasFallback, T fallback) {
+            SqlTracer.RequestTrace trace = SqlTracer.currentRequest();
+            Result<T> result = new Result<>(() -> {
+                boolean attached = trace != null && SqlTracer.currentRequest() == null;
+                if (attached) {
+                    SqlTracer.attachRequest(trace);
+                }
+                try {
+                    return query.call();
+                } finally {
+                    if (attached) {
+                        SqlTracer.detachRequest();
+                    }
+                }
+            }, hasFallback, fallback);
+            results.add(result);
+            return result;
+        }
+
+        /**
+         * Runs every query in the batch concurrently and waits for all of them.
+         *
+         * @throws ServletException if a query failed, or a query without a fallback was
+         *                          rejected or timed out
+         */
+        void run() throws ServletException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            List<Future<?>> futures = new ArrayList<>();
+            try {
+                for (Result<?> result : results) {
+                    Future<?> future;
+                    try {
+                        future = executor.submit(result.query);
+                    } catch (RejectedExecutionException e) {
+                        future = null;
+                    }
+                    futures.add(future);
+                }
+
+                for (int i = 0; i < results.size(); i++) {
+                    Result<?> result = results.get(i);
+                    Future<?> future = futures.get(i);
+                    if (future == null) {
+                        result.fallBack("Page data could not be loaded: all loader threads are busy");
+                        continue;
+                    }
+                    try {
+                        result.complete(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                    } catch (TimeoutException e) {
+                        future.cancel(true);
+                        result.fallBack("Loading page data took longer than " + timeoutMillis + " ms");
+                    } catch (ExecutionException e) {
+                        throw new ServletException("Error loading page data: " + e.getCause().getMessage(), e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new ServletException("Interrupted while loading page data", e);
+                    }
+                }
+            } finally {
+                // After a failure, stop the queries that are still running
+                for (Future<?> future : futures) {
+                    if (future != null) {
+                        future.cancel(true);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The result of one query in a batch.
+     *
+     * @param <T> the result type
+     */
+    static final class Result<T> {
+        private final Callable<T> query;
+        private final boolean hasFallback;
+        private final T fallback;
+        private T value;
+        private boolean fellBack;
+
+        private Result(Callable<T> query, boolean hasFallback, T fallback) {
+            this.query = query;
+            this.hasFallback = hasFallback;
+            this.fallback = fallback;
+        }
+
+        /**
+         * Returns the query result. Only valid after the batch has run.
+         *
+         * @return the value the query returned, or the fallback if it did not run in time
+         */
+        T get() {
+            return value;
+        }
+
+        /**
+         * Returns whether the query did not run in time and {@link #get()} is the fallback.
+         *
+         * @return true if the fallback was used
+         */
+        boolean isFallback() {
+            return fellBack;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object result) {
+            value = (T) result;
+        }
+
+        private void fallBack(String reason) throws ServletException {
+            if (!hasFallback) {
+                throw new ServletException(reason);
+            }
+            value = fallback;
+            fellBack = true;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.inventory_manager.controller;
+
+import com.example.inventory_manager.dao.Page;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Reads page size and cursor parameters for the paged list views.
+ */
+final class Paging {
+
+    private Paging() {
+    }
+
+    /**
+     * Reads an after-id cursor parameter.
+     *
+     * @param request HTTP request
+     * @param name    the parameter name
+     * @return the cursor, or 0 (first page) if missing or invalid
+     */
+    static int cursor(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Reads the {@code size} parameter, bounded to {@link Page#MAX_SIZE}.
+     *
+     * @param request HTTP request
+     * @return the page size to use
+     */
+    static int size(HttpServletRequest request) {
+        String value = request.getParameter("size");
+        if (value == null || value.isEmpty()) {
+            return Page.DEFAULT_SIZE;
+        }
+        try {
+            return Page.clampSize(Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return Page.DEFAULT_SIZE;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.inventory_manager.controller;
+
+import com.example.inventory_manager.dao.impl.InventoryItemDAOFactory;
+import com.example.inventory_manager.dao.impl.InventorySummaryDAO;
+import com.example.inventory_manager.db.DbUtil;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+/**
+ * Releases the application-wide resources when the web application is undeployed.
+ * The container calls it after every servlet has been destroyed, so no request is still
+ * using the shared DAO, the summary or the connection pool.
+ */
+
+@WebListener
+public class ShutdownListener implements ServletContextListener {
+
+    /**
+     * Flushes buffered stock changes, saves the inventory summary and then closes the
+     * connection pool and its evictor thread, in that order, since the first two still
+     * need connections.
+     */
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        InventoryItemDAOFactory.close();
+        InventorySummaryDAO.stop();
+        DbUtil.shutdown();
+    }
+}
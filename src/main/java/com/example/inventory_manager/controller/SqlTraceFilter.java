@@ -0,0 +1,43 @@
+package com.example.inventory_manager.controller;
+
+import com.example.inventory_manager.db.SqlTracer;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements each request executes.
+ * Requests that run at least {@code inventory.sql.requestStatementWarn} statements
+ * (default 50) are written to the slow-query log, which points at N+1 query patterns.
+ */
+
+@WebFilter("/*")
+public class SqlTraceFilter extends HttpFilter {
+
+    private static final int STATEMENT_WARN_THRESHOLD = Integer.getInteger("inventory.sql.requestStatementWarn", 50);
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        SqlTracer.beginRequest();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlTracer.RequestTrace trace = SqlTracer.endRequest();
+            if (trace.getStatements() >= STATEMENT_WARN_THRESHOLD) {
+                String query = request.getQueryString();
+                SqlTracer.logChattyRequest(
+                        request.getMethod() + " " + request.getRequestURI() + (query != null ? "?" + query : ""),
+                        trace, System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.inventory_manager.controller;
+
+import com.example.inventory_manager.dao.impl.CachedProductDAO;
+import com.example.inventory_manager.dao.impl.InventoryItemDAOFactory;
+import com.example.inventory_manager.dao.impl.InventoryItemDAOImpl;
+import com.example.inventory_manager.dao.impl.LedgerInventoryItemDAO;
+import com.example.inventory_manager.dao.impl.ProductDAOImpl;
+import com.example.inventory_manager.model.Product;
+import com.example.inventory_manager.model.StockMovement;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shows a product's stock at a point in time and its latest stock movements, as plain text.
+ * Parameters: {@code sku}, {@code asOf} (an ISO-8601 instant such as
+ * {@code 2024-05-01T12:00:00Z} or a local date-time such as {@code 2024-05-01T12:00};
+ * defaults to now) and {@code limit}, the number of movements to list (default 20).
+ * Only available when stock changes are kept in the ledger ({@code inventory.stock.mode=ledger}).
+ */
+
+@WebServlet("/stock")
+public class StockHistoryServlet extends HttpServlet {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 500;
+
+    private ProductDAOImpl productDAO;
+    private InventoryItemDAOImpl inventoryItemDAO;
+
+    /**
+     * Initializes the DAO objects.
+     */
+
+    @Override
+    public void init() {
+        productDAO = new CachedProductDAO();
+        inventoryItemDAO = InventoryItemDAOFactory.get();
+    }
+
+    /**
+     * Handles GET requests by printing the stock per location at the requested time,
+     * followed by the latest movements. Responds 404 if the ledger is off or the SKU is
+     * unknown, and 400 for an invalid time or limit.
+     */
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!(inventoryItemDAO instanceof LedgerInventoryItemDAO)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Stock history needs inventory.stock.mode=ledger");
+            return;
+        }
+        LedgerInventoryItemDAO ledger = (LedgerInventoryItemDAO) inventoryItemDAO;
+
+        Instant asOf;
+        int limit;
+        try {
+            asOf = parseTime(request.getParameter("asOf"));
+            String limitParam = request.getParameter("limit");
+            limit = limitParam == null || limitParam.isEmpty() ? DEFAULT_LIMIT : Integer.parseInt(limitParam);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    "Expected an ISO-8601 asOf time and a numeric limit");
+            return;
+        }
+        limit = Math.max(0, Math.min(limit, MAX_LIMIT));
+
+        String sku = request.getParameter("sku");
+        Product product = sku == null ? null : productDAO.findBySku(sku);
+        if (product == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown SKU");
+            return;
+        }
+
+        Map<String, Integer> stock = ledger.stockAsOf(product.getId(), asOf);
+        if (stock == null) {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Stock history could not be read");
+            return;
+        }
+        List<StockMovement> movements = ledger.findMovements(product.getId(), limit);
+
+        response.setContentType("text/plain");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+
+        out.println("Stock of " + product.getSku() + " (" + product.getName() + ") as of " + asOf);
+        int total = 0;
+        for (Map.Entry<String, Integer> e : stock.entrySet()) {
+            out.println("  " + e.getKey() + ": " + e.getValue());
+            total += e.getValue();
+        }
+        out.println("  Total: " + total);
+
+        out.println();
+        out.println("Latest movements:");
+        for (StockMovement movement : movements) {
+            out.println("  #" + movement.getMovementId()
+                    + " " + movement.getCreatedAt().toInstant()
+                    + " " + movement.getLocation()
+                    + " " + (movement.getDelta() > 0 ? "+" : "") + movement.getDelta()
+                    + " " + movement.getReason()
+                    + (movement.getOrderId() > 0 ? " order #" + movement.getOrderId() : ""));
+        }
+    }
+
+    private static Instant parseTime(String value) {
+        if (value == null || value.isEmpty()) {
+            return Instant.now();
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(value).atZone(ZoneId.systemDefault()).toInstant();
+        }
+    }
+}
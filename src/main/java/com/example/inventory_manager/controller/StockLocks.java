@@ -0,0 +1,26 @@
+package com.example.inventory_manager.controller;
+
+import com.example.inventory_manager.concurrent.StripedLockManager;
+
+/**
+ * Striped locks, keyed by product ID, that the servlets hold while changing a product's stock.
+ * Requests for the same product queue here instead of each borrowing a database connection
+ * only to wait on the same row lock; requests for other products are not held up.
+ * Taken before any lock inside the DAOs, never while holding one.
+ */
+final class StockLocks {
+
+    private static final StripedLockManager LOCKS = StripedLockManager.fromSystemProperties();
+
+    private StockLocks() {
+    }
+
+    /**
+     * Returns the lock manager shared by all servlets.
+     *
+     * @return the stock lock manager
+     */
+    static StripedLockManager get() {
+        return LOCKS;
+    }
+}
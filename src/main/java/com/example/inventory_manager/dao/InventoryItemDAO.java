@@ -1,7 +1,11 @@
 package com.example.inventory_manager.dao;
 
 import com.example.inventory_manager.model.InventoryItem;
+import com.example.inventory_manager.model.Product;
+import com.example.inventory_manager.model.StockMovement;
+import com.example.inventory_manager.model.StockTable;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for performing CRUD operations on InventoryItem entities.
@@ -31,14 +35,134 @@ public interface InventoryItemDAO {
      */
     List<InventoryItem> findAll();
 
+    /**
+     * Streams all inventory items, joined with their products, without loading them into a list.
+     *
+     * @param action called once per inventory item
+     * @return true if every row was read, false if the query failed
+     */
+    boolean forEachItem(Consumer<InventoryItem> action);
+
+    /**
+     * Streams the inventory items after the given inventory ID, joined with their products,
+     * without loading them into a list. Used for incremental exports.
+     *
+     * @param afterId only items with a larger inventory ID are read; 0 reads all
+     * @param action  called once per inventory item, in inventory ID order
+     * @return true if every row was read, false if the query failed
+     */
+    boolean forEachItem(int afterId, Consumer<InventoryItem> action);
+
+    /**
+     * Loads the total stock of every product into a stock table.
+     * Quantities held at several locations are summed per product.
+     *
+     * @param table the table to fill; existing entries for loaded products are overwritten
+     * @return true if every row was read, false if the query failed
+     */
+    boolean loadStock(StockTable table);
+
+    /**
+     * Retrieves one page of inventory items, joined with their products, using keyset pagination.
+     * Sort keys: {@code id} (default), {@code sku}, {@code name}, {@code quantity}, {@code location}.
+     *
+     * @param afterId  the inventory ID of the last item on the previous page, or 0 for the first page
+     * @param pageSize the maximum number of items to return (clamped to {@link Page#MAX_SIZE})
+     * @param sortKey  the sort key, or null to sort by inventory ID
+     * @return the page of inventory items
+     */
+    Page<InventoryItem> findPage(int afterId, int pageSize, String sortKey);
+
+    /**
+     * Retrieves the inventory items of the given products, joined with their products.
+     *
+     * @param productIds the product IDs to look up
+     * @return the matching inventory items
+     */
+    List<InventoryItem> findByProductIds(List<Integer> productIds);
+
     /**
      * Saves an inventory item to the database.
-     * Inserts if new, updates if existing.
+     * Inserts if new, updates if existing, in a single statement.
      *
      * @param inventoryItem the inventory item to save
-     * @return true if the operation was successful, false otherwise
+     * @return the ID of the saved row, or -1 if the operation failed
+     */
+    int save(InventoryItem inventoryItem);
+
+    /**
+     * Saves many inventory items together with their products in one transaction.
+     * Products are inserted or updated by SKU, then each item's quantity is set at its
+     * location. If any row fails, nothing is saved.
+     *
+     * @param items the inventory items to save; their products are identified by SKU
+     * @return true if all rows were saved, false otherwise
+     */
+    boolean saveAll(List<InventoryItem> items);
+
+    /**
+     * Atomically changes the stock of a product by the given amount.
+     * The change is rejected if it would take the stock below zero.
+     *
+     * @param productId the ID of the product
+     * @param delta     the amount to add (positive) or remove (negative)
+     * @return the new quantity, or -1 if the change was rejected or failed
+     */
+    int adjustStock(int productId, int delta);
+
+    /**
+     * Changes the stock of a product, recording why. Implementations that keep a stock
+     * ledger store the reason and order with the movement; others ignore them.
+     *
+     * @param productId the ID of the product
+     * @param delta     the amount to add (positive) or remove (negative)
+     * @param reason    why the stock changes
+     * @param orderId   the related order ID, or 0 if none
+     * @return the new quantity, or -1 if the change was rejected or failed
+     */
+    int adjustStock(int productId, int delta, StockMovement.Reason reason, int orderId);
+
+    /**
+     * Sets the quantity of an inventory row if it has not changed since it was read:
+     * the update applies only while the row still has the item's version, which it
+     * then increments. The item receives the new version on success.
+     *
+     * @param inventoryItem the item as read (with its inventory ID and version), holding the new quantity
+     * @return the outcome; {@link UpdateResult#CONFLICT} if someone else changed the row first
+     */
+    UpdateResult update(InventoryItem inventoryItem);
+
+    /**
+     * Updates a product and the quantity of one of its inventory rows together, each only if
+     * it has not changed since it was read. If either has changed, neither is updated.
+     * Both receive their new versions on success.
+     *
+     * @param product       the product as read (with its ID and version), holding the new values
+     * @param inventoryItem one of the product's rows as read (with its inventory ID and version), holding the new quantity
+     * @return the outcome; {@link UpdateResult#CONFLICT} if someone else changed either row first
+     */
+    UpdateResult update(Product product, InventoryItem inventoryItem);
+
+    /**
+     * Changes the stock of one inventory row with compare-and-swap updates, retrying
+     * conflicts with the configured default {@link RetryPolicy}.
+     *
+     * @param inventoryId the ID of the inventory row
+     * @param delta       the amount to add (positive) or remove (negative)
+     * @return the outcome; {@link UpdateResult#REJECTED} if the stock would go below zero
+     */
+    UpdateResult updateStock(int inventoryId, int delta);
+
+    /**
+     * Changes the stock of one inventory row with compare-and-swap updates, retrying
+     * conflicts according to the given policy.
+     *
+     * @param inventoryId the ID of the inventory row
+     * @param delta       the amount to add (positive) or remove (negative)
+     * @param retryPolicy how often to retry after a conflict
+     * @return the outcome; {@link UpdateResult#REJECTED} if the stock would go below zero
      */
-    boolean save(InventoryItem inventoryItem);
+    UpdateResult updateStock(int inventoryId, int delta, RetryPolicy retryPolicy);
 
     /**
      * Deletes an inventory item from the database based on its ID.
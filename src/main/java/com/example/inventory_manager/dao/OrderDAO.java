@@ -2,6 +2,7 @@ package com.example.inventory_manager.dao;
 
 import com.example.inventory_manager.model.Order;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for performing CRUD operations on Order entities.
@@ -23,6 +24,28 @@ public interface OrderDAO {
      */
     List<Order> findAll();
 
+    /**
+     * Streams the orders after the given ID, with their suppliers and lines, without
+     * loading them into a list. Used for incremental exports.
+     *
+     * @param afterId only orders with a larger ID are read; 0 reads all
+     * @param action  called once per order, in ID order
+     * @return true if every row was read, false if the query failed
+     */
+    boolean forEachOrder(int afterId, Consumer<Order> action);
+
+    /**
+     * Retrieves one page of orders, including their supplier and ordered items,
+     * using keyset pagination.
+     * Sort keys: {@code id} (default), {@code date}, {@code status}.
+     *
+     * @param afterId  the ID of the last order on the previous page, or 0 for the first page
+     * @param pageSize the maximum number of orders to return (clamped to {@link Page#MAX_SIZE})
+     * @param sortKey  the sort key, or null to sort by ID
+     * @return the page of orders
+     */
+    Page<Order> findPage(int afterId, int pageSize, String sortKey);
+
     /**
      * Saves an order to the database.
      * Inserts if new, updates if existing.
@@ -32,6 +55,14 @@ public interface OrderDAO {
      */
     boolean save(Order order);
 
+    /**
+     * Saves several new orders and their items in a single transaction.
+     *
+     * @param orders the orders to save
+     * @return true if all orders were saved, false if none were
+     */
+    boolean saveAll(List<Order> orders);
+
     /**
      * Deletes an order from the database based on its ID.
      *
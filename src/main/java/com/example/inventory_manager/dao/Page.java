@@ -0,0 +1,76 @@
+package com.example.inventory_manager.dao;
+
+import java.util.List;
+
+/**
+ * One page of results from a keyset-paginated query.
+ * The next page is requested by passing {@link #getNextCursor()} as the after-id cursor.
+ *
+ * @param <T> the type of the items on the page
+ */
+public class Page<T> {
+
+    /**
+     * Page size used when the caller does not ask for one.
+     */
+    public static final int DEFAULT_SIZE = 50;
+
+    /**
+     * Largest page size a caller may ask for.
+     */
+    public static final int MAX_SIZE = 500;
+
+    private final List<T> items;
+    private final Integer nextCursor;
+
+    /**
+     * Constructs a new Page.
+     *
+     * @param items      the items on this page
+     * @param nextCursor the ID to continue after, or null if this is the last page
+     */
+    public Page(List<T> items, Integer nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Clamps a requested page size to the range 1..{@link #MAX_SIZE}.
+     *
+     * @param requested the requested size, or a non-positive value for the default
+     * @return the page size to use
+     */
+    public static int clampSize(int requested) {
+        if (requested <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(requested, MAX_SIZE);
+    }
+
+    /**
+     * Returns the items on this page.
+     *
+     * @return list of items
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the cursor for the next page.
+     *
+     * @return the ID of the last item on this page, or null if there are no more pages
+     */
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns whether another page follows this one.
+     *
+     * @return true if there is a next page
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.inventory_manager.dao;
 
 import com.example.inventory_manager.model.Product;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for performing CRUD operations on Product entities.
@@ -16,6 +17,14 @@ public interface ProductDAO {
      */
     Product findBySku(String sku);
 
+    /**
+     * Finds a product by its ID.
+     *
+     * @param id the ID of the product
+     * @return the Product if found, or null if not found
+     */
+    Product findById(int id);
+
     /**
      * Retrieves all products from the database.
      *
@@ -23,14 +32,54 @@ public interface ProductDAO {
      */
     List<Product> findAll();
 
+    /**
+     * Streams the products after the given ID without loading them into a list.
+     * Used for incremental exports.
+     *
+     * @param afterId only products with a larger ID are read; 0 reads all
+     * @param action  called once per product, in ID order
+     * @return true if every row was read, false if the query failed
+     */
+    boolean forEachProduct(int afterId, Consumer<Product> action);
+
+    /**
+     * Retrieves one page of products using keyset pagination.
+     * Sort keys: {@code id} (default), {@code name}, {@code sku}, {@code category}, {@code price}.
+     *
+     * @param afterId  the ID of the last product on the previous page, or 0 for the first page
+     * @param pageSize the maximum number of products to return (clamped to {@link Page#MAX_SIZE})
+     * @param sortKey  the sort key, or null to sort by ID
+     * @return the page of products
+     */
+    Page<Product> findPage(int afterId, int pageSize, String sortKey);
+
     /**
      * Saves a product to the database.
-     * Inserts if new, updates if existing.
+     * Inserts if new, updates if existing, in a single statement.
      *
      * @param product the product to save
-     * @return true if the operation was successful, false otherwise
+     * @return the ID of the saved row, or -1 if the operation failed
+     */
+    int save(Product product);
+
+    /**
+     * Updates a product if it has not changed since it was read: the update applies only
+     * while the row still has the product's version, which it then increments.
+     * The product receives the new version on success.
+     *
+     * @param product the product as read (with its ID and version), holding the new values
+     * @return the outcome; {@link UpdateResult#CONFLICT} if someone else changed the row first
+     */
+    UpdateResult update(Product product);
+
+    /**
+     * Saves many products in one transaction, inserting new SKUs and updating existing ones.
+     * If any product fails, none are saved.
+     *
+     * @param products the products to save
+     * @return true if all products were saved, false otherwise
      */
-    boolean save(Product product);
+    boolean saveAll(List<Product> products);
 
     /**
      * Deletes a product from the database based on its SKU.
@@ -0,0 +1,99 @@
+package com.example.inventory_manager.dao;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * How often, and after what pause, a compare-and-swap update that hit a
+ * {@link UpdateResult#CONFLICT} is tried again. Each attempt must re-read the row.
+ * The pause before retry {@code n} is a random time up to
+ * {@code min(maxBackoffMillis, initialBackoffMillis * 2^(n-1))}, so writers that
+ * collided spread out instead of colliding again.
+ */
+public final class RetryPolicy {
+
+    /**
+     * Tries once and reports conflicts to the caller.
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    /**
+     * Constructs a new RetryPolicy.
+     *
+     * @param maxAttempts          attempts in total, at least 1
+     * @param initialBackoffMillis upper bound of the pause before the first retry
+     * @param maxBackoffMillis     upper bound of any pause
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = Math.max(0, initialBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.initialBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * Creates a policy configured from the {@code inventory.retry.maxAttempts} (default 5),
+     * {@code inventory.retry.initialBackoffMillis} (default 1) and
+     * {@code inventory.retry.maxBackoffMillis} (default 50) system properties.
+     *
+     * @return a new retry policy
+     */
+    public static RetryPolicy fromSystemProperties() {
+        return new RetryPolicy(
+                Integer.getInteger("inventory.retry.maxAttempts", 5),
+                Long.getLong("inventory.retry.initialBackoffMillis", 1L),
+                Long.getLong("inventory.retry.maxBackoffMillis", 50L));
+    }
+
+    /**
+     * Runs an attempt until it returns something other than {@link UpdateResult#CONFLICT}
+     * or the attempts run out. If the thread is interrupted while pausing, it stops
+     * and returns the conflict.
+     *
+     * @param attempt reads the row, computes the change and tries to write it
+     * @return the result of the last attempt
+     */
+    public UpdateResult run(Supplier<UpdateResult> attempt) {
+        UpdateResult result = attempt.get();
+        for (int retry = 1; retry < maxAttempts && result == UpdateResult.CONFLICT; retry++) {
+            long bound = backoffBound(retry);
+            if (bound > 0) {
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return result;
+                }
+            }
+            result = attempt.get();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the longest pause before a retry.
+     *
+     * @param retry the retry number, starting at 1
+     * @return {@code min(maxBackoffMillis, initialBackoffMillis * 2^(retry-1))} in milliseconds
+     */
+    long backoffBound(int retry) {
+        int doublings = Math.min(retry - 1, 62);
+        // Compare before shifting, so a large initial pause cannot overflow to a negative bound
+        if (initialBackoffMillis > maxBackoffMillis >> doublings) {
+            return maxBackoffMillis;
+        }
+        return Math.min(maxBackoffMillis, initialBackoffMillis << doublings);
+    }
+
+    public int getMaxAttempts() { return maxAttempts; }
+
+    public long getInitialBackoffMillis() { return initialBackoffMillis; }
+
+    public long getMaxBackoffMillis() { return maxBackoffMillis; }
+}
@@ -23,14 +23,25 @@ public interface SupplierDAO {
      */
     List<Supplier> findAll();
 
+    /**
+     * Retrieves one page of suppliers using keyset pagination.
+     * Sort keys: {@code id} (default), {@code name}.
+     *
+     * @param afterId  the ID of the last supplier on the previous page, or 0 for the first page
+     * @param pageSize the maximum number of suppliers to return (clamped to {@link Page#MAX_SIZE})
+     * @param sortKey  the sort key, or null to sort by ID
+     * @return the page of suppliers
+     */
+    Page<Supplier> findPage(int afterId, int pageSize, String sortKey);
+
     /**
      * Saves a supplier to the database.
-     * Inserts if new, updates if existing.
+     * Inserts if new, updates if existing, in a single statement.
      *
      * @param supplier the supplier to save
-     * @return true if the operation was successful, false otherwise
+     * @return the ID of the saved row, or -1 if the operation failed
      */
-    boolean save(Supplier supplier);
+    int save(Supplier supplier);
 
     /**
      * Deletes a supplier from the database based on its ID.
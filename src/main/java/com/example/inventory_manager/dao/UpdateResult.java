@@ -0,0 +1,33 @@
+package com.example.inventory_manager.dao;
+
+/**
+ * Outcome of a compare-and-swap update, which only applies while the row still has
+ * the version the caller read.
+ */
+public enum UpdateResult {
+
+    /**
+     * The row was changed and its version incremented.
+     */
+    UPDATED,
+
+    /**
+     * The row was changed by someone else since it was read. Re-read it and try again.
+     */
+    CONFLICT,
+
+    /**
+     * The row does not exist, for example because it was deleted.
+     */
+    NOT_FOUND,
+
+    /**
+     * The change was refused because the result would be invalid, such as stock below zero.
+     */
+    REJECTED,
+
+    /**
+     * The update failed with a database error.
+     */
+    FAILED
+}
@@ -0,0 +1,177 @@
+package com.example.inventory_manager.dao.impl;
+
+import com.example.inventory_manager.cache.ProductCache;
+import com.example.inventory_manager.dao.UpdateResult;
+import com.example.inventory_manager.metrics.MethodTimer;
+import com.example.inventory_manager.metrics.MetricsRegistry;
+import com.example.inventory_manager.model.Product;
+
+import java.util.List;
+
+/**
+ * Read-through caching layer over {@link ProductDAOImpl}.
+ * Lookups by SKU and ID are served from a shared, bounded {@link ProductCache};
+ * saves and deletes go to the database and then invalidate the affected entry.
+ * The cache size and TTL come from the {@code inventory.productCache.maxSize} and
+ * {@code inventory.productCache.ttlMillis} system properties.
+ * Lookups are timed under this class, including cache hits; writes pass straight
+ * through and are timed by {@link ProductDAOImpl}.
+ */
+public class CachedProductDAO extends ProductDAOImpl {
+
+    private static final ProductCache CACHE = new ProductCache(
+            Integer.getInteger("inventory.productCache.maxSize", 10_000),
+            Long.getLong("inventory.productCache.ttlMillis", 0L)
+    );
+
+    private static final MethodTimer FIND_BY_SKU = MetricsRegistry.daoTimer(CachedProductDAO.class, "findBySku");
+    private static final MethodTimer FIND_BY_ID = MetricsRegistry.daoTimer(CachedProductDAO.class, "findById");
+
+    /**
+     * Returns the cache shared by all CachedProductDAO instances.
+     *
+     * @return the product cache
+     */
+    public static ProductCache getCache() {
+        return CACHE;
+    }
+
+    /**
+     * Finds a product by SKU, loading it from the database on a cache miss.
+     *
+     * @param sku the SKU of the product
+     * @return the matching Product or null if not found
+     */
+
+    @Override
+    public Product findBySku(String sku) {
+        long start = FIND_BY_SKU.start();
+        try {
+            Product product = CACHE.getBySku(sku);
+            if (product != null) {
+                return product;
+            }
+
+            long stamp = CACHE.stamp();
+            long loadStart = System.nanoTime();
+            product = super.findBySku(sku);
+            if (product != null) {
+                CACHE.putIfUnchanged(product, stamp, System.nanoTime() - loadStart);
+            }
+            return product;
+        } finally {
+            FIND_BY_SKU.stop(start);
+        }
+    }
+
+    /**
+     * Finds a product by ID, loading it from the database on a cache miss.
+     *
+     * @param id the product ID
+     * @return the matching Product or null if not found
+     */
+
+    @Override
+    public Product findById(int id) {
+        long start = FIND_BY_ID.start();
+        try {
+            Product product = CACHE.getById(id);
+            if (product != null) {
+                return product;
+            }
+
+            long stamp = CACHE.stamp();
+            long loadStart = System.nanoTime();
+            product = super.findById(id);
+            if (product != null) {
+                CACHE.putIfUnchanged(product, stamp, System.nanoTime() - loadStart);
+            }
+            return product;
+        } finally {
+            FIND_BY_ID.stop(start);
+        }
+    }
+
+    /**
+     * Saves a product and invalidates its cache entry.
+     *
+     * @param product the Product to save or update
+     * @return the ID of the saved product, or -1 if the save failed
+     */
+
+    @Override
+    public int save(Product product) {
+        try {
+            return super.save(product);
+        } finally {
+            CACHE.invalidateSku(product.getSku());
+        }
+    }
+
+    /**
+     * Updates a product if its version is unchanged and invalidates its cache entry,
+     * which may still hold the old SKU.
+     *
+     * @param product the product as read, with its new values
+     * @return the outcome of the compare-and-swap update
+     */
+
+    @Override
+    public UpdateResult update(Product product) {
+        try {
+            return super.update(product);
+        } finally {
+            CACHE.invalidateId(product.getId());
+        }
+    }
+
+    /**
+     * Saves many products and invalidates their cache entries.
+     *
+     * @param products the products to save
+     * @return true if all products were saved, false otherwise
+     */
+
+    @Override
+    public boolean saveAll(List<Product> products) {
+        try {
+            return super.saveAll(products);
+        } finally {
+            for (Product product : products) {
+                CACHE.invalidateSku(product.getSku());
+            }
+        }
+    }
+
+    /**
+     * Deletes a product by SKU and invalidates its cache entry.
+     *
+     * @param sku the SKU of the product
+     * @return true if deletion was successful, false otherwise
+     */
+
+    @Override
+    public boolean delete(String sku) {
+        try {
+            return super.delete(sku);
+        } finally {
+            CACHE.invalidateSku(sku);
+        }
+    }
+
+    /**
+     * Deletes a product by ID and invalidates its cache entry.
+     *
+     * @param id the product ID
+     * @return true if deletion was successful, false otherwise
+     */
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return super.deleteById(id);
+        } finally {
+            CACHE.invalidateId(id);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.inventory_manager.dao.impl;
+
+import com.example.inventory_manager.db.SchemaInitializer;
+
+import java.io.IOException;
+
+/**
+ * Provides the inventory item DAO shared by the web controllers.
+ * The {@code inventory.stock.mode} system property selects how stock adjustments are written:
+ * {@code direct} (default) applies each one to the database immediately,
+ * {@code write-behind} buffers and coalesces them in a {@link WriteBehindInventoryItemDAO},
+ * and {@code ledger} appends them to the stock ledger through a {@link LedgerInventoryItemDAO}.
+ * The write-behind buffer and the ledger's fold watermark must be shared by every caller,
+ * so all controllers use the single instance returned here.
+ */
+public final class InventoryItemDAOFactory {
+
+    private static InventoryItemDAOImpl shared;
+
+    private InventoryItemDAOFactory() {
+    }
+
+    /**
+     * Returns the shared DAO, creating it on first use.
+     * Falls back to direct writes if the write-behind journal cannot be opened.
+     *
+     * @return the shared inventory item DAO
+     */
+    public static synchronized InventoryItemDAOImpl get() {
+        if (shared == null) {
+            String mode = System.getProperty("inventory.stock.mode", "direct");
+            if ("write-behind".equalsIgnoreCase(mode)) {
+                // The journal's committed segment is read before replaying it
+                SchemaInitializer.initialize();
+                try {
+                    shared = WriteBehindInventoryItemDAO.fromSystemProperties();
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Error starting write-behind stock buffer, using direct writes: " + e.getMessage());
+                }
+            } else if ("ledger".equalsIgnoreCase(mode)) {
+                // The ledger tables must exist before the first fold
+                SchemaInitializer.initialize();
+                shared = LedgerInventoryItemDAO.fromSystemProperties();
+            } else if (!"direct".equalsIgnoreCase(mode)) {
+                System.err.println("Unknown inventory.stock.mode '" + mode + "', using direct writes.");
+            }
+            if (shared == null) {
+                shared = new InventoryItemDAOImpl();
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Flushes and stops the write-behind buffer or the ledger fold, if one is in use.
+     * Safe to call more than once.
+     */
+    public static synchronized void close() {
+        if (shared instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) shared).close();
+            } catch (Exception e) {
+                System.err.println("Error closing inventory item DAO: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.example.inventory_manager.dao.impl;
 
+import com.example.inventory_manager.cache.InventoryAggregates;
 import com.example.inventory_manager.dao.InventoryItemDAO;
+import com.example.inventory_manager.dao.Page;
+import com.example.inventory_manager.dao.RetryPolicy;
+import com.example.inventory_manager.dao.UpdateResult;
 import com.example.inventory_manager.db.DbUtil;
+import com.example.inventory_manager.metrics.MethodTimer;
+import com.example.inventory_manager.metrics.MetricsRegistry;
 import com.example.inventory_manager.model.InventoryItem;
 import com.example.inventory_manager.model.Product;
+import com.example.inventory_manager.model.StockMovement;
+import com.example.inventory_manager.model.StockTable;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Implementation of InventoryItemDAO for managing inventory item records in the database.
@@ -15,6 +25,136 @@ import java.util.List;
 
 public class InventoryItemDAOImpl implements InventoryItemDAO {
 
+    private static final MethodTimer FIND_BY_ID = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "findById");
+    private static final MethodTimer DELETE_BY_PRODUCT_ID = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "deleteByProductId");
+    private static final MethodTimer FIND_BY_PRODUCT_ID = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "findByProductId");
+    private static final MethodTimer FIND_ALL = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "findAll");
+    private static final MethodTimer FOR_EACH_ITEM = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "forEachItem");
+    private static final MethodTimer LOAD_STOCK = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "loadStock");
+    private static final MethodTimer FIND_PAGE = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "findPage");
+    private static final MethodTimer FIND_BY_PRODUCT_IDS = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "findByProductIds");
+    private static final MethodTimer SAVE = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "save");
+    private static final MethodTimer SAVE_ALL = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "saveAll");
+    private static final MethodTimer ADJUST_STOCK = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "adjustStock");
+    private static final MethodTimer UPDATE = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "update");
+    private static final MethodTimer DELETE = MetricsRegistry.daoTimer(InventoryItemDAOImpl.class, "delete");
+
+    /**
+     * Rows fetched per round trip when streaming inventory items.
+     */
+    static final int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Retry policy of {@link #updateStock(int, int)}, from the {@code inventory.retry.*} system properties.
+     */
+    private static final RetryPolicy RETRY_POLICY = RetryPolicy.fromSystemProperties();
+
+    private static final String ITEM_COLUMNS = """
+            SELECT ii.inventory_id, ii.quantity, ii.location, ii.version,
+                   p.id AS product_id, p.name, p.sku, p.category, p.price, p.description
+            """;
+
+    private static final String ITEM_FROM = "inventory_items ii JOIN products p ON ii.product_id = p.id";
+
+    /**
+     * The inventory row that relative stock changes of a product go to: its oldest row,
+     * the same one the ledger books them at. A product stocked at several locations
+     * keeps the other rows unchanged. Format with the SQL expression of the product ID.
+     */
+    static final String STOCK_ROW = "(SELECT MIN(inventory_id) FROM inventory_items WHERE product_id = %s)";
+
+    /**
+     * Adds a delta to a product's {@link #STOCK_ROW}, creating a row at the default location
+     * if the product has none. Rejected (no row changed) if that row's stock would go below zero.
+     * Parameters: product ID, delta.
+     */
+    static final String ADJUST_STOCK_MERGE = String.format("""
+            MERGE INTO inventory_items t
+            USING (SELECT v.product_id, v.delta, %s AS inventory_id
+                   FROM (VALUES (CAST(? AS INT), CAST(? AS INT))) v(product_id, delta)) s
+            ON t.inventory_id = s.inventory_id
+            WHEN MATCHED AND t.quantity + s.delta >= 0 THEN
+                UPDATE SET quantity = t.quantity + s.delta, version = t.version + 1
+            WHEN NOT MATCHED AND s.delta >= 0 THEN
+                INSERT (product_id, quantity, location) VALUES (s.product_id, s.delta, 'Default Location')
+            """, String.format(STOCK_ROW, "v.product_id"));
+
+    /**
+     * Sets the quantity of a product at a location, inserting the row if there is none.
+     * Format with the SQL expression of the product ID.
+     * Parameters: product ID (as used in the expression), quantity, location.
+     */
+    private static final String MERGE_ITEM = """
+            MERGE INTO inventory_items t
+            USING (VALUES (%s, CAST(? AS INT), CAST(? AS VARCHAR(255)))) s(product_id, quantity, location)
+            ON t.product_id = s.product_id AND t.location = s.location
+            WHEN MATCHED THEN
+                UPDATE SET quantity = s.quantity, version = t.version + 1
+            WHEN NOT MATCHED THEN
+                INSERT (product_id, quantity, location) VALUES (s.product_id, s.quantity, s.location)
+            """;
+
+    /**
+     * Sets the quantity of an inventory row if its version is unchanged, incrementing the
+     * version, and returns the old quantity, location and product category and price.
+     * Parameters: quantity, inventory ID, expected version.
+     */
+    private static final String COMPARE_AND_SET = """
+            SELECT o.quantity, o.location, p.category, p.price
+            FROM OLD TABLE (
+                UPDATE inventory_items SET quantity = ?, version = version + 1
+                WHERE inventory_id = ? AND version = ?
+            ) o
+            JOIN products p ON p.id = o.product_id
+            """;
+
+    /**
+     * Total ordered quantity per product of one order. Parameter: order ID.
+     */
+    static final String ORDER_QUANTITIES =
+            "SELECT product_id, SUM(quantity) AS delta FROM order_items WHERE order_id = ? GROUP BY product_id";
+
+    /**
+     * Adds every line of an order to its product's {@link #STOCK_ROW}, like
+     * {@link #ADJUST_STOCK_MERGE} does for one product, and returns the changed rows with
+     * the product's category and price and the quantity added.
+     * Parameters: order ID, order ID.
+     */
+    private static final String RECEIVE_ORDER = String.format("""
+            SELECT f.product_id, f.quantity, f.location, p.category, p.price, o.delta
+            FROM FINAL TABLE (
+                MERGE INTO inventory_items t
+                USING (SELECT q.product_id, q.delta, %1$s AS inventory_id
+                       FROM (%2$s) q) s
+                ON t.inventory_id = s.inventory_id
+                WHEN MATCHED AND t.quantity + s.delta >= 0 THEN
+                    UPDATE SET quantity = t.quantity + s.delta, version = t.version + 1
+                WHEN NOT MATCHED AND s.delta >= 0 THEN
+                    INSERT (product_id, quantity, location) VALUES (s.product_id, s.delta, 'Default Location')
+            ) f
+            JOIN products p ON p.id = f.product_id
+            JOIN (%2$s) o ON o.product_id = f.product_id
+            """, String.format(STOCK_ROW, "q.product_id"), ORDER_QUANTITIES);
+
+    /**
+     * Deletes inventory rows and returns their quantity, location and product category and
+     * price, so the deleted stock can be taken out of the inventory summary.
+     * Format with the key column; the parameter is its value. Must run in a transaction:
+     * H2 does not undo a delete inside a query that fails.
+     */
+    static final String DELETE_RETURNING = """
+            SELECT d.quantity, d.location, p.category, p.price
+            FROM OLD TABLE (DELETE FROM inventory_items WHERE %s = ?) d
+            JOIN products p ON p.id = d.product_id
+            """;
+
+    private static final Map<String, String> SORT_KEYS = Map.of(
+            "sku", "p.sku",
+            "name", "p.name",
+            "quantity", "COALESCE(ii.quantity, 0)",
+            "location", "COALESCE(ii.location, '')"
+    );
+
     /**
      * Finds an inventory item by its inventory ID.
      *
@@ -24,6 +164,7 @@ public class InventoryItemDAOImpl implements InventoryItemDAO {
 
     @Override
     public InventoryItem findById(int inventoryId) {
+        long start = FIND_BY_ID.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
@@ -37,14 +178,19 @@ public class InventoryItemDAOImpl implements InventoryItemDAO {
                 String location = rs.getString("location");
 
                 Product dummyProduct = new Product(productId, "", "", "", 0.0, "");
-                return new InventoryItem(dummyProduct, quantity, location);
+                InventoryItem item = new InventoryItem(dummyProduct, quantity, location);
+                item.setInventoryId(inventoryId);
+                item.setVersion(rs.getLong("version"));
+                return item;
             }
             return null;
         } catch (SQLException e) {
+            FIND_BY_ID.error();
             System.err.println("Error finding inventory item: " + e.getMessage());
             return null;
         } finally {
             DbUtil.closeQuietly(conn);
+            FIND_BY_ID.stop(start);
         }
     }
 
@@ -56,18 +202,29 @@ public class InventoryItemDAOImpl implements InventoryItemDAO {
      */
 
     public boolean deleteByProductId(int productId) {
+        long start = DELETE_BY_PRODUCT_ID.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
-            PreparedStatement stmt = conn.prepareStatement("DELETE FROM inventory_items WHERE product_id = ?");
-            stmt.setInt(1, productId);
-            int rows = stmt.executeUpdate();
-            return rows > 0;
+            conn.setAutoCommit(false);
+            InventorySummaryDAO.beginChange();
+            try {
+                PreparedStatement stmt = conn.prepareStatement(String.format(DELETE_RETURNING, "product_id"));
+                stmt.setInt(1, productId);
+                List<InventoryAggregates.StockChange> removed = readRemoved(stmt.executeQuery());
+                InventorySummaryDAO.commit(conn, removed);
+                return !removed.isEmpty();
+            } finally {
+                InventorySummaryDAO.endChange();
+            }
         } catch (SQLException e) {
+            DELETE_BY_PRODUCT_ID.error();
+            DbUtil.rollbackQuietly(conn);
             System.err.println("Error deleting inventory item: " + e.getMessage());
             return false;
         } finally {
             DbUtil.closeQuietly(conn);
+            DELETE_BY_PRODUCT_ID.stop(start);
         }
     }
 
@@ -80,6 +237,7 @@ public class InventoryItemDAOImpl implements InventoryItemDAO {
 
     @Override
     public InventoryItem findByProductId(int productId) {
+        long start = FIND_BY_PRODUCT_ID.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
@@ -92,14 +250,19 @@ public class InventoryItemDAOImpl implements InventoryItemDAO {
                 String location = rs.getString("location");
 
                 Product dummyProduct = new Product(productId, "", "", "", 0.0, "");
-                return new InventoryItem(dummyProduct, quantity, location);
+                InventoryItem item = new InventoryItem(dummyProduct, quantity, location);
+                item.setInventoryId(rs.getInt("inventory_id"));
+                item.setVersion(rs.getLong("version"));
+                return item;
             }
             return null;
         } catch (SQLException e) {
+            FIND_BY_PRODUCT_ID.error();
             System.err.println("Error finding inventory item by product: " + e.getMessage());
             return null;
         } finally {
             DbUtil.closeQuietly(conn);
+            FIND_BY_PRODUCT_ID.stop(start);
         }
     }
 
@@ -112,92 +275,555 @@ public class InventoryItemDAOImpl implements InventoryItemDAO {
     @Override
     public List<InventoryItem> findAll() {
         List<InventoryItem> items = new ArrayList<>();
+        long start = FIND_ALL.start();
         Connection conn = null;
 
         try {
             conn = DbUtil.getConnection();
-            String sql = """
-                SELECT ii.inventory_id, ii.quantity, ii.location,
-                       p.id AS product_id, p.name, p.sku, p.category, p.price, p.description
-                FROM inventory_items ii
-                JOIN products p ON ii.product_id = p.id
-                """;
-
-            PreparedStatement stmt = conn.prepareStatement(sql);
+            PreparedStatement stmt = conn.prepareStatement(ITEM_COLUMNS + " FROM " + ITEM_FROM);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                // Create Product
-                Product product = new Product(
-                        rs.getInt("product_id"),
-                        rs.getString("name"),
-                        rs.getString("sku"),
-                        rs.getString("category"),
-                        rs.getDouble("price"),
-                        rs.getString("description")
-                );
-
-                // Create InventoryItem
-                InventoryItem item = new InventoryItem(
-                        product,
-                        rs.getInt("quantity"),
-                        rs.getString("location")
-                );
-
-                items.add(item);
+                items.add(readItem(rs));
             }
 
         } catch (SQLException e) {
+            FIND_ALL.error();
             System.err.println("Error finding all inventory items: " + e.getMessage());
         } finally {
             DbUtil.closeQuietly(conn);
+            FIND_ALL.stop(start);
+        }
+        return items;
+    }
+
+    /**
+     * Streams all inventory items, joined with their products, to the given action.
+     *
+     * @param action called once per inventory item, in inventory ID order
+     * @return true if every row was read, false if the query failed part way
+     */
+
+    @Override
+    public boolean forEachItem(Consumer<InventoryItem> action) {
+        return forEachItem(0, action);
+    }
+
+    /**
+     * Streams the inventory items after the given inventory ID, joined with their products,
+     * to the given action through a forward-only cursor. The query runs with H2's lazy
+     * execution enabled, so rows are produced as they are read rather than materialised up front.
+     *
+     * @param afterId only items with a larger inventory ID are read; 0 reads all
+     * @param action  called once per inventory item, in inventory ID order
+     * @return true if every row was read, false if the query failed part way
+     */
+
+    @Override
+    public boolean forEachItem(int afterId, Consumer<InventoryItem> action) {
+        long start = FOR_EACH_ITEM.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            setLazyExecution(conn, true);
+            PreparedStatement stmt = conn.prepareStatement(
+                    ITEM_COLUMNS + " FROM " + ITEM_FROM + " WHERE ii.inventory_id > ? ORDER BY ii.inventory_id"
+            );
+            stmt.setInt(1, afterId);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                action.accept(readItem(rs));
+            }
+            rs.close();
+            return true;
+        } catch (SQLException e) {
+            FOR_EACH_ITEM.error();
+            System.err.println("Error streaming inventory items: " + e.getMessage());
+            return false;
+        } finally {
+            setLazyExecution(conn, false);
+            DbUtil.closeQuietly(conn);
+            FOR_EACH_ITEM.stop(start);
+        }
+    }
+
+    /**
+     * Loads per-product stock totals into a stock table, streaming the grouped rows
+     * so only the table itself is held in memory.
+     *
+     * @param table the table to fill
+     * @return true if every row was read, false if the query failed part way
+     */
+
+    @Override
+    public boolean loadStock(StockTable table) {
+        long start = LOAD_STOCK.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            setLazyExecution(conn, true);
+            PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT product_id, SUM(quantity) AS quantity FROM inventory_items GROUP BY product_id"
+            );
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                table.put(rs.getInt("product_id"), Math.max(0, rs.getInt("quantity")));
+            }
+            rs.close();
+            return true;
+        } catch (SQLException e) {
+            LOAD_STOCK.error();
+            System.err.println("Error loading stock table: " + e.getMessage());
+            return false;
+        } finally {
+            setLazyExecution(conn, false);
+            DbUtil.closeQuietly(conn);
+            LOAD_STOCK.stop(start);
+        }
+    }
+
+    /**
+     * Retrieves one page of inventory items, continuing after the given inventory ID.
+     *
+     * @param afterId  the inventory ID of the last item on the previous page, or 0 for the first page
+     * @param pageSize the maximum number of items to return
+     * @param sortKey  the sort key, or null to sort by inventory ID
+     * @return the page of inventory items
+     */
+
+    @Override
+    public Page<InventoryItem> findPage(int afterId, int pageSize, String sortKey) {
+        int size = Page.clampSize(pageSize);
+        String sort = Keyset.sortExpression(SORT_KEYS, sortKey, "ii.inventory_id");
+        List<InventoryItem> items = new ArrayList<>();
+        long start = FIND_PAGE.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(
+                    Keyset.pageSql(ITEM_COLUMNS, ITEM_FROM, "ii.inventory_id", sort, afterId > 0)
+            );
+            Keyset.bind(stmt, afterId, sort.equals("ii.inventory_id"), size + 1);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                items.add(readItem(rs));
+            }
+        } catch (SQLException e) {
+            FIND_PAGE.error();
+            System.err.println("Error finding inventory page: " + e.getMessage());
+        } finally {
+            DbUtil.closeQuietly(conn);
+            FIND_PAGE.stop(start);
+        }
+        return Keyset.page(items, size, InventoryItem::getInventoryId);
+    }
+
+    /**
+     * Retrieves the inventory items of the given products.
+     *
+     * @param productIds the product IDs to look up
+     * @return the matching inventory items, joined with their products
+     */
+
+    @Override
+    public List<InventoryItem> findByProductIds(List<Integer> productIds) {
+        List<InventoryItem> items = new ArrayList<>();
+        if (productIds.isEmpty()) {
+            return items;
+        }
+
+        long start = FIND_BY_PRODUCT_IDS.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(
+                    ITEM_COLUMNS + " FROM " + ITEM_FROM + " WHERE ii.product_id = ANY(?)"
+            );
+            stmt.setObject(1, productIds.toArray(new Integer[0]));
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                items.add(readItem(rs));
+            }
+        } catch (SQLException e) {
+            FIND_BY_PRODUCT_IDS.error();
+            System.err.println("Error finding inventory items by products: " + e.getMessage());
+        } finally {
+            DbUtil.closeQuietly(conn);
+            FIND_BY_PRODUCT_IDS.stop(start);
         }
         return items;
     }
 
     /**
      * Saves an inventory item to the database.
-     * Updates the record if it exists, or inserts a new record if it does not.
+     * Runs as a MERGE keyed on product and location, updating the quantity (and version)
+     * of an existing row or inserting a new one, whatever its version. The previous quantity is read in the
+     * same transaction so the inventory summary can be updated by the difference.
      *
      * @param inventoryItem the inventory item to save
-     * @return true if the operation was successful, false otherwise
+     * @return the inventory ID of the inserted or updated row, or -1 if the save failed
      */
 
     @Override
-    public boolean save(InventoryItem inventoryItem) {
+    public int save(InventoryItem inventoryItem) {
+        long start = SAVE.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
+
+            InventorySummaryDAO.beginChange();
+            try {
+                // The old quantity is read under a row lock so the summary sees the exact change
+                PreparedStatement current = conn.prepareStatement(
+                        "SELECT quantity FROM inventory_items WHERE product_id = ? AND location = ? FOR UPDATE");
+                current.setInt(1, inventoryItem.getProduct().getId());
+                current.setString(2, inventoryItem.getLocation());
+                ResultSet old = current.executeQuery();
+                int oldQuantity = old.next() ? old.getInt(1) : 0;
 
-            // Check if inventory item exists
-            PreparedStatement checkStmt = conn.prepareStatement("SELECT COUNT(*) FROM inventory_items WHERE product_id = ?");
-            checkStmt.setInt(1, inventoryItem.getProduct().getId());
-            ResultSet rs = checkStmt.executeQuery();
-            rs.next();
-            int count = rs.getInt(1);
-
-            PreparedStatement stmt;
-            if (count > 0) {
-                // Update existing inventory item
-                stmt = conn.prepareStatement("UPDATE inventory_items SET quantity=?, location=? WHERE product_id=?");
-                stmt.setInt(1, inventoryItem.getCurrentStock());
-                stmt.setString(2, inventoryItem.getLocation());
-                stmt.setInt(3, inventoryItem.getProduct().getId());
-            } else {
-                // Insert new inventory item
-                stmt = conn.prepareStatement("INSERT INTO inventory_items (product_id, quantity, location) VALUES (?, ?, ?)");
+                PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT f.inventory_id, f.quantity, p.category, p.price FROM FINAL TABLE ("
+                                + String.format(MERGE_ITEM, "CAST(? AS INT)")
+                                + ") f JOIN products p ON p.id = f.product_id");
                 stmt.setInt(1, inventoryItem.getProduct().getId());
                 stmt.setInt(2, inventoryItem.getCurrentStock());
                 stmt.setString(3, inventoryItem.getLocation());
-            }
 
-            int result = stmt.executeUpdate();
-            return result > 0;
+                ResultSet rs = stmt.executeQuery();
+                if (!rs.next()) {
+                    conn.rollback();
+                    return -1;
+                }
+                int inventoryId = rs.getInt(1);
+                String category = rs.getString(3);
+                double price = rs.getDouble(4);
+                InventorySummaryDAO.commit(conn, List.of(new InventoryAggregates.StockChange(category, price,
+                        inventoryItem.getLocation(), oldQuantity, inventoryItem.getCurrentStock())));
+                return inventoryId;
+            } finally {
+                InventorySummaryDAO.endChange();
+            }
         } catch (SQLException e) {
+            SAVE.error();
+            DbUtil.rollbackQuietly(conn);
             System.err.println("Error saving inventory item: " + e.getMessage());
+            return -1;
+        } finally {
+            DbUtil.closeQuietly(conn);
+            SAVE.stop(start);
+        }
+    }
+
+    /**
+     * Saves many inventory items together with their products in one transaction.
+     * Rows are written in batches: first the products are merged by SKU, then each
+     * item's quantity is merged by product and location, with the product ID looked up
+     * by SKU inside the statement. If anything fails, nothing is saved.
+     *
+     * @param items the inventory items to save; their products are identified by SKU
+     * @return true if all rows were saved, false otherwise
+     */
+
+    @Override
+    public boolean saveAll(List<InventoryItem> items) {
+        if (items.isEmpty()) {
+            return true;
+        }
+
+        long start = SAVE_ALL.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
+
+            PreparedStatement productStmt = conn.prepareStatement(ProductDAOImpl.MERGE_BY_SKU);
+            PreparedStatement itemStmt = conn.prepareStatement(
+                    String.format(MERGE_ITEM, "(SELECT id FROM products WHERE sku = ?)"));
+
+            for (int from = 0; from < items.size(); from += ProductDAOImpl.BATCH_SIZE) {
+                List<InventoryItem> chunk = items.subList(from, Math.min(from + ProductDAOImpl.BATCH_SIZE, items.size()));
+
+                for (InventoryItem item : chunk) {
+                    ProductDAOImpl.bindMerge(productStmt, item.getProduct());
+                    productStmt.addBatch();
+                }
+                productStmt.executeBatch();
+
+                for (InventoryItem item : chunk) {
+                    itemStmt.setString(1, item.getProduct().getSku());
+                    itemStmt.setInt(2, item.getCurrentStock());
+                    itemStmt.setString(3, item.getLocation());
+                    itemStmt.addBatch();
+                }
+                itemStmt.executeBatch();
+            }
+
+            conn.commit();
+            // Bulk saves are folded into the summary by a rebuild rather than row by row
+            InventorySummaryDAO.requestRebuild();
+            return true;
+        } catch (SQLException e) {
+            SAVE_ALL.error();
+            DbUtil.rollbackQuietly(conn);
+            System.err.println("Error saving inventory items: " + e.getMessage());
             return false;
         } finally {
             DbUtil.closeQuietly(conn);
+            SAVE_ALL.stop(start);
+        }
+    }
+
+    /**
+     * Sets the quantity of an inventory row, identified by its inventory ID, if the row still
+     * has the item's version, and increments the version. On success the item is given the new
+     * version, so it can be updated again. The location is not changed.
+     *
+     * @param inventoryItem the item as read, with its new quantity
+     * @return {@code UPDATED}, {@code CONFLICT} if the row changed since it was read,
+     * {@code NOT_FOUND}, {@code REJECTED} for a negative quantity, or {@code FAILED}
+     */
+
+    @Override
+    public UpdateResult update(InventoryItem inventoryItem) {
+        if (inventoryItem.getCurrentStock() < 0) {
+            return UpdateResult.REJECTED;
+        }
+        long start = UPDATE.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
+            InventorySummaryDAO.beginChange();
+            try {
+                List<InventoryAggregates.StockChange> changes = new ArrayList<>();
+                UpdateResult result = setStock(conn, inventoryItem, changes);
+                if (result != UpdateResult.UPDATED) {
+                    conn.rollback();
+                    return result;
+                }
+                InventorySummaryDAO.commit(conn, changes);
+            } finally {
+                InventorySummaryDAO.endChange();
+            }
+            inventoryItem.setVersion(inventoryItem.getVersion() + 1);
+            return UpdateResult.UPDATED;
+        } catch (SQLException e) {
+            UPDATE.error();
+            DbUtil.rollbackQuietly(conn);
+            System.err.println("Error updating inventory item: " + e.getMessage());
+            return UpdateResult.FAILED;
+        } finally {
+            DbUtil.closeQuietly(conn);
+            UPDATE.stop(start);
+        }
+    }
+
+    /**
+     * Updates a product and the quantity of one of its inventory rows in one transaction,
+     * each only if its version is unchanged. If either row changed since it was read,
+     * neither is updated. On success both are given their new versions.
+     *
+     * @param product       the product as read, with its new values
+     * @param inventoryItem one of the product's inventory rows as read, with its new quantity
+     * @return {@code UPDATED}, {@code CONFLICT} if either row changed since it was read,
+     * {@code NOT_FOUND}, {@code REJECTED} for a negative quantity, or {@code FAILED}
+     */
+
+    @Override
+    public UpdateResult update(Product product, InventoryItem inventoryItem) {
+        if (inventoryItem.getCurrentStock() < 0) {
+            return UpdateResult.REJECTED;
+        }
+        UpdateResult result = new ProductDAOImpl().update(product,
+                (conn, changes) -> setStock(conn, inventoryItem, changes));
+        if (result == UpdateResult.UPDATED) {
+            inventoryItem.setVersion(inventoryItem.getVersion() + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the quantity of an inventory row in the caller's transaction if the row still has
+     * the item's version, incrementing the version. Used by {@link #update(InventoryItem)} and
+     * {@link #update(Product, InventoryItem)}, which hold the inventory summary's change lock.
+     *
+     * @param conn          the connection holding the transaction, which is not committed
+     * @param inventoryItem the item as read, with its new quantity
+     * @param changes       receives the change for the inventory summary
+     * @return {@code UPDATED}, or {@code CONFLICT} or {@code NOT_FOUND} if the row was not changed
+     * @throws SQLException if the update fails
+     */
+
+    UpdateResult setStock(Connection conn, InventoryItem inventoryItem,
+                          List<InventoryAggregates.StockChange> changes) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(COMPARE_AND_SET);
+        stmt.setInt(1, inventoryItem.getCurrentStock());
+        stmt.setInt(2, inventoryItem.getInventoryId());
+        stmt.setLong(3, inventoryItem.getVersion());
+
+        ResultSet rs = stmt.executeQuery();
+        if (!rs.next()) {
+            return Versions.missed(conn, "inventory_items", "inventory_id", inventoryItem.getInventoryId());
+        }
+        changes.add(new InventoryAggregates.StockChange(rs.getString(3), rs.getDouble(4), rs.getString(2),
+                rs.getInt(1), inventoryItem.getCurrentStock()));
+        return UpdateResult.UPDATED;
+    }
+
+    /**
+     * Changes the stock of one inventory row by reading it, computing the new quantity and
+     * writing it back with {@link #update(InventoryItem)}, retrying on conflicts as configured
+     * by the {@code inventory.retry.*} system properties.
+     *
+     * @param inventoryId the ID of the inventory row
+     * @param delta       the amount to change the stock by (positive or negative)
+     * @return the result of the last attempt; {@code REJECTED} if the stock would go below zero
+     */
+
+    @Override
+    public UpdateResult updateStock(int inventoryId, int delta) {
+        return updateStock(inventoryId, delta, RETRY_POLICY);
+    }
+
+    /**
+     * Changes the stock of one inventory row with compare-and-swap updates, retrying on
+     * conflicts according to the given policy. Each attempt re-reads the row.
+     *
+     * @param inventoryId the ID of the inventory row
+     * @param delta       the amount to change the stock by (positive or negative)
+     * @param retryPolicy how often to retry after a conflict
+     * @return the result of the last attempt; {@code REJECTED} if the stock would go below zero
+     */
+
+    @Override
+    public UpdateResult updateStock(int inventoryId, int delta, RetryPolicy retryPolicy) {
+        return retryPolicy.run(() -> {
+            InventoryItem item = findById(inventoryId);
+            if (item == null) {
+                return UpdateResult.NOT_FOUND;
+            }
+            item.setCurrentStock(item.getCurrentStock() + delta);
+            return update(item);
+        });
+    }
+
+    /**
+     * Applies a stock change to a product in a single atomic statement.
+     * The quantity of the product's oldest inventory row is changed in the database with
+     * {@code quantity = quantity + delta}, and a row is created at the default location if
+     * the product has none yet. Changes that would take that row below zero are rejected.
+     *
+     * @param productId the ID of the product
+     * @param delta     the amount to change the stock by (positive or negative)
+     * @return the new quantity, or -1 if the change was rejected or failed
+     */
+
+    @Override
+    public int adjustStock(int productId, int delta) {
+        long start = ADJUST_STOCK.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement("""
+                SELECT f.quantity, f.location, p.category, p.price
+                FROM FINAL TABLE (""" + ADJUST_STOCK_MERGE + """
+                ) f JOIN products p ON p.id = f.product_id
+                """);
+            stmt.setInt(1, productId);
+            stmt.setInt(2, delta);
+
+            InventorySummaryDAO.beginChange();
+            try {
+                ResultSet rs = stmt.executeQuery();
+                if (!rs.next()) {
+                    return -1;
+                }
+                int quantity = rs.getInt(1);
+                InventorySummaryDAO.aggregates().stockChanged(rs.getString(3), rs.getDouble(4), rs.getString(2),
+                        quantity - delta, quantity);
+                return quantity;
+            } finally {
+                InventorySummaryDAO.endChange();
+            }
+        } catch (SQLException e) {
+            ADJUST_STOCK.error();
+            System.err.println("Error adjusting stock: " + e.getMessage());
+            return -1;
+        } finally {
+            DbUtil.closeQuietly(conn);
+            ADJUST_STOCK.stop(start);
+        }
+    }
+
+    /**
+     * Applies a stock change to a product. Stock changes are not recorded here,
+     * so the reason and order are ignored.
+     *
+     * @param productId the ID of the product
+     * @param delta     the amount to change the stock by (positive or negative)
+     * @param reason    why the stock changes
+     * @param orderId   the related order ID, or 0 if none
+     * @return the new quantity, or -1 if the change was rejected or failed
+     */
+
+    @Override
+    public int adjustStock(int productId, int delta, StockMovement.Reason reason, int orderId) {
+        return adjustStock(productId, delta);
+    }
+
+    /**
+     * Takes the locks that {@link #receiveOrder(Connection, int)} needs for an order. Called
+     * before the order's transaction starts, so the locks are never waited for while the
+     * order row is locked. Direct writes need none.
+     *
+     * @param orderId the ID of the order about to be completed
+     * @return the held locks; close them once the order's transaction has ended
+     * @throws SQLException if the order's lines cannot be read
+     */
+
+    OrderLocks lockOrder(int orderId) throws SQLException {
+        return OrderLocks.NONE;
+    }
+
+    /**
+     * Adds the ordered quantities of an order to stock with a single statement and commits
+     * the caller's transaction, which has already marked the order as completed.
+     * Used by {@link OrderDAOImpl#complete(int, InventoryItemDAOImpl)} with the locks
+     * from {@link #lockOrder(int)} held.
+     *
+     * @param conn    the connection holding the order's transaction
+     * @param orderId the ID of the order
+     * @return the IDs of the products whose stock changed
+     * @throws SQLException if the stock cannot be updated or the commit fails
+     */
+
+    List<Integer> receiveOrder(Connection conn, int orderId) throws SQLException {
+        InventorySummaryDAO.beginChange();
+        try {
+            PreparedStatement stmt = conn.prepareStatement(RECEIVE_ORDER);
+            stmt.setInt(1, orderId);
+            stmt.setInt(2, orderId);
+
+            List<Integer> productIds = new ArrayList<>();
+            List<InventoryAggregates.StockChange> changes = new ArrayList<>();
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                int quantity = rs.getInt(2);
+                productIds.add(rs.getInt(1));
+                changes.add(new InventoryAggregates.StockChange(rs.getString(4), rs.getDouble(5), rs.getString(3),
+                        quantity - rs.getInt(6), quantity));
+            }
+            InventorySummaryDAO.commit(conn, changes);
+            return productIds;
+        } finally {
+            InventorySummaryDAO.endChange();
         }
     }
 
@@ -210,18 +836,93 @@ public class InventoryItemDAOImpl implements InventoryItemDAO {
 
     @Override
     public boolean delete(int inventoryId) {
+        long start = DELETE.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
-            PreparedStatement stmt = conn.prepareStatement("DELETE FROM inventory_items WHERE inventory_id = ?");
-            stmt.setInt(1, inventoryId);
-            int result = stmt.executeUpdate();
-            return result > 0;
+            conn.setAutoCommit(false);
+            InventorySummaryDAO.beginChange();
+            try {
+                PreparedStatement stmt = conn.prepareStatement(String.format(DELETE_RETURNING, "inventory_id"));
+                stmt.setInt(1, inventoryId);
+                List<InventoryAggregates.StockChange> removed = readRemoved(stmt.executeQuery());
+                InventorySummaryDAO.commit(conn, removed);
+                return !removed.isEmpty();
+            } finally {
+                InventorySummaryDAO.endChange();
+            }
         } catch (SQLException e) {
+            DELETE.error();
+            DbUtil.rollbackQuietly(conn);
             System.err.println("Error deleting inventory item: " + e.getMessage());
             return false;
         } finally {
             DbUtil.closeQuietly(conn);
+            DELETE.stop(start);
+        }
+    }
+
+    /**
+     * Reads the rows returned by a {@link #DELETE_RETURNING} query as stock removed from the
+     * inventory summary.
+     */
+    static List<InventoryAggregates.StockChange> readRemoved(ResultSet rs) throws SQLException {
+        List<InventoryAggregates.StockChange> removed = new ArrayList<>();
+        while (rs.next()) {
+            removed.add(new InventoryAggregates.StockChange(rs.getString(3), rs.getDouble(4), rs.getString(2),
+                    rs.getInt(1), 0));
+        }
+        return removed;
+    }
+
+    /**
+     * Switches H2's lazy query execution on or off for a (pooled) connection.
+     * It must be switched off again before the connection goes back to the pool.
+     */
+    static void setLazyExecution(Connection conn, boolean lazy) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            Statement stmt = conn.createStatement();
+            stmt.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+            stmt.close();
+        } catch (SQLException e) {
+            System.err.println("Error setting lazy query execution: " + e.getMessage());
         }
     }
+
+    /**
+     * Builds an inventory item and its product from a row selected with {@link #ITEM_COLUMNS}.
+     */
+    private static InventoryItem readItem(ResultSet rs) throws SQLException {
+        Product product = new Product(
+                rs.getInt("product_id"),
+                rs.getString("name"),
+                rs.getString("sku"),
+                rs.getString("category"),
+                rs.getDouble("price"),
+                rs.getString("description")
+        );
+
+        InventoryItem item = new InventoryItem(
+                product,
+                rs.getInt("quantity"),
+                rs.getString("location")
+        );
+        item.setInventoryId(rs.getInt("inventory_id"));
+        item.setVersion(rs.getLong("version"));
+        return item;
+    }
+
+    /**
+     * Locks held while an order is received. Closing releases them.
+     */
+    interface OrderLocks extends AutoCloseable {
+        OrderLocks NONE = () -> {
+        };
+
+        @Override
+        void close();
+    }
 }
@@ -0,0 +1,355 @@
+package com.example.inventory_manager.dao.impl;
+
+import com.example.inventory_manager.cache.InventoryAggregates;
+import com.example.inventory_manager.db.DbUtil;
+import com.example.inventory_manager.metrics.MethodTimer;
+import com.example.inventory_manager.metrics.MetricsRegistry;
+
+import java.sql.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Owns the shared {@link InventoryAggregates} and keeps its {@code inventory_summary} copy.
+ * The DAOs update the aggregates on every committed product save, stock change and delete;
+ * this class loads the persisted copy at start-up so totals are available immediately,
+ * saves it back every {@code inventory.summary.persistIntervalMillis} (default 30000) when
+ * something changed, and rebuilds everything with a full scan at start-up, every
+ * {@code inventory.summary.rebuildIntervalMillis} (default 3600000) and after bulk writes,
+ * which would otherwise need a row-by-row update.
+ *
+ * <p>A rebuild reads one transaction snapshot and adds the changes committed after it, so
+ * writers must commit and update the aggregates as one step, between {@link #beginChange()}
+ * and {@link #endChange()} or through {@link #commit(Connection, List)}. Stock writers begin
+ * the change before their first statement on {@code inventory_items}, because a product whose
+ * category or price changes moves its stock between totals: that move runs between
+ * {@link #beginRegroup()} and {@link #endRegroup()}, so no stock change that read the old
+ * category or price is still waiting to be committed when it reads the quantities.
+ */
+public final class InventorySummaryDAO {
+
+    private static final MethodTimer REBUILD = MetricsRegistry.daoTimer(InventorySummaryDAO.class, "rebuild");
+    private static final MethodTimer PERSIST = MetricsRegistry.daoTimer(InventorySummaryDAO.class, "persist");
+
+    /**
+     * Delay before a requested rebuild, so that a burst of bulk writes causes a single scan.
+     */
+    private static final long REBUILD_DELAY_MILLIS = 1000;
+
+    private static final String PRODUCTS_BY_CATEGORY =
+            "SELECT category, COUNT(*) FROM products GROUP BY category";
+
+    /**
+     * Stock totals grouped by the given column. Value uses the price rounded to cents,
+     * as {@link InventoryAggregates#cents(double)} does.
+     */
+    private static final String STOCK_BY = """
+            SELECT %s, COUNT(CASE WHEN ii.quantity > 0 THEN 1 END), COALESCE(SUM(ii.quantity), 0),
+                   COALESCE(SUM(CAST(ROUND(COALESCE(p.price, 0) * 100) AS BIGINT) * ii.quantity), 0)
+            FROM inventory_items ii JOIN products p ON p.id = ii.product_id
+            GROUP BY %s
+            """;
+
+    private static final String INSERT_SUMMARY = """
+            INSERT INTO inventory_summary (dimension, name, products, stocked_items, units, value_cents)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final InventoryAggregates AGGREGATES = new InventoryAggregates();
+    private static final AtomicBoolean REBUILD_QUEUED = new AtomicBoolean();
+
+    /**
+     * Held shared by writers until the aggregates are updated, from commit or, for stock
+     * writers, from their first statement, and exclusively by a rebuild while it takes its
+     * snapshot and while it swaps in the result and by a product change that regroups stock.
+     */
+    private static final ReentrantReadWriteLock CHANGE_LOCK = new ReentrantReadWriteLock();
+    private static final Object REBUILD_LOCK = new Object();
+
+    private static ScheduledExecutorService scheduler;
+    private static volatile long persistedChangeCount = -1;
+
+    private InventorySummaryDAO() {
+    }
+
+    /**
+     * Returns the shared aggregates.
+     *
+     * @return the shared aggregates
+     */
+    public static InventoryAggregates aggregates() {
+        return AGGREGATES;
+    }
+
+    /**
+     * Marks the start of a commit whose changes will be applied to the aggregates.
+     * Must be followed by {@link #endChange()} in a finally block.
+     */
+    public static void beginChange() {
+        CHANGE_LOCK.readLock().lock();
+    }
+
+    /**
+     * Marks the end of a change started with {@link #beginChange()}.
+     */
+    public static void endChange() {
+        CHANGE_LOCK.readLock().unlock();
+    }
+
+    /**
+     * Marks the start of a product change that moves the product's stock to other totals.
+     * Waits until no stock change is in progress and keeps new ones from starting, so the
+     * quantities read before the commit are the ones booked under the old category and price.
+     * Must not be called while holding {@link #beginChange()}, and must be followed by
+     * {@link #endRegroup()} in a finally block.
+     */
+    public static void beginRegroup() {
+        CHANGE_LOCK.writeLock().lock();
+    }
+
+    /**
+     * Marks the end of a change started with {@link #beginRegroup()}.
+     */
+    public static void endRegroup() {
+        CHANGE_LOCK.writeLock().unlock();
+    }
+
+    /**
+     * Commits a transaction and applies the stock changes it made to the aggregates.
+     *
+     * @param conn    the connection holding the transaction
+     * @param changes the stock changes made by the transaction
+     * @throws SQLException if the commit fails; the aggregates are then left unchanged
+     */
+    public static void commit(Connection conn, List<InventoryAggregates.StockChange> changes) throws SQLException {
+        beginChange();
+        try {
+            conn.commit();
+            AGGREGATES.apply(changes);
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Loads the persisted totals and starts the background rebuild and persist tasks.
+     * Safe to call more than once.
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        load();
+
+        long persistInterval = Long.getLong("inventory.summary.persistIntervalMillis", 30000L);
+        long rebuildInterval = Long.getLong("inventory.summary.rebuildIntervalMillis", 3600000L);
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "inventory-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(InventorySummaryDAO::rebuild, 0, rebuildInterval, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> {
+            if (AGGREGATES.getChangeCount() != persistedChangeCount) {
+                persist();
+            }
+        }, persistInterval, persistInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background tasks and persists the current totals. Safe to call more than once.
+     */
+    public static synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        persist();
+    }
+
+    /**
+     * Schedules a rebuild shortly, for changes that were not applied incrementally.
+     * Requests made while one is pending are merged. Does nothing until {@link #start()} is called.
+     */
+    public static synchronized void requestRebuild() {
+        if (scheduler != null && REBUILD_QUEUED.compareAndSet(false, true)) {
+            scheduler.schedule(InventorySummaryDAO::rebuild, REBUILD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Recomputes all totals from the products and inventory_items tables and replaces the
+     * shared aggregates with the result. The tables are read from a single snapshot, and
+     * changes committed while they are read are added afterwards, so none are lost or
+     * counted twice.
+     *
+     * @return true if the rebuild succeeded, false otherwise
+     */
+    public static boolean rebuild() {
+        synchronized (REBUILD_LOCK) {
+            REBUILD_QUEUED.set(false);
+            long start = REBUILD.start();
+            try {
+                return rebuildFromSnapshot();
+            } catch (SQLException e) {
+                REBUILD.error();
+                System.err.println("Error rebuilding inventory summary: " + e.getMessage());
+                return false;
+            } finally {
+                REBUILD.stop(start);
+            }
+        }
+    }
+
+    private static boolean rebuildFromSnapshot() throws SQLException {
+        InventoryAggregates fresh = new InventoryAggregates();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL SNAPSHOT");
+                conn.setAutoCommit(false);
+
+                // The first statement fixes the snapshot; later commits are recorded instead
+                InventoryAggregates since;
+                CHANGE_LOCK.writeLock().lock();
+                try {
+                    stmt.executeQuery("SELECT 1").close();
+                    since = AGGREGATES.startRecording();
+                } finally {
+                    CHANGE_LOCK.writeLock().unlock();
+                }
+
+                try (ResultSet rs = stmt.executeQuery(PRODUCTS_BY_CATEGORY)) {
+                    while (rs.next()) {
+                        fresh.add(InventoryAggregates.Dimension.CATEGORY, rs.getString(1), rs.getLong(2), 0, 0, 0);
+                        fresh.add(InventoryAggregates.Dimension.TOTAL, "", rs.getLong(2), 0, 0, 0);
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery(String.format(STOCK_BY, "p.category", "p.category"))) {
+                    while (rs.next()) {
+                        fresh.add(InventoryAggregates.Dimension.CATEGORY, rs.getString(1),
+                                0, rs.getLong(2), rs.getLong(3), rs.getLong(4));
+                        fresh.add(InventoryAggregates.Dimension.TOTAL, "",
+                                0, rs.getLong(2), rs.getLong(3), rs.getLong(4));
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery(String.format(STOCK_BY, "ii.location", "ii.location"))) {
+                    while (rs.next()) {
+                        fresh.add(InventoryAggregates.Dimension.LOCATION, rs.getString(1),
+                                0, rs.getLong(2), rs.getLong(3), rs.getLong(4));
+                    }
+                }
+
+                CHANGE_LOCK.writeLock().lock();
+                try {
+                    fresh.addAll(since);
+                    AGGREGATES.replaceWith(fresh);
+                } finally {
+                    CHANGE_LOCK.writeLock().unlock();
+                }
+            }
+            return true;
+        } finally {
+            AGGREGATES.stopRecording();
+            if (conn != null) {
+                DbUtil.rollbackQuietly(conn);
+                resetIsolation(conn);
+            }
+            DbUtil.closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Puts a pooled connection back to the default isolation level after a rebuild.
+     */
+    private static void resetIsolation(Connection conn) {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL READ COMMITTED");
+        } catch (SQLException e) {
+            System.err.println("Error resetting transaction isolation: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the contents of the inventory_summary table with the current totals.
+     *
+     * @return true if the totals were saved, false otherwise
+     */
+    public static boolean persist() {
+        long start = PERSIST.start();
+        long changeCount = AGGREGATES.getChangeCount();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
+            try (Statement delete = conn.createStatement();
+                 PreparedStatement insert = conn.prepareStatement(INSERT_SUMMARY)) {
+                delete.executeUpdate("DELETE FROM inventory_summary");
+                addRow(insert, InventoryAggregates.Dimension.TOTAL, "", AGGREGATES.getTotal());
+                for (Map.Entry<String, InventoryAggregates.Totals> e : AGGREGATES.getCategories().entrySet()) {
+                    addRow(insert, InventoryAggregates.Dimension.CATEGORY, e.getKey(), e.getValue());
+                }
+                for (Map.Entry<String, InventoryAggregates.Totals> e : AGGREGATES.getLocations().entrySet()) {
+                    addRow(insert, InventoryAggregates.Dimension.LOCATION, e.getKey(), e.getValue());
+                }
+                insert.executeBatch();
+            }
+            conn.commit();
+            persistedChangeCount = changeCount;
+            return true;
+        } catch (SQLException e) {
+            PERSIST.error();
+            DbUtil.rollbackQuietly(conn);
+            System.err.println("Error saving inventory summary: " + e.getMessage());
+            return false;
+        } finally {
+            DbUtil.closeQuietly(conn);
+            PERSIST.stop(start);
+        }
+    }
+
+    private static void addRow(PreparedStatement insert, InventoryAggregates.Dimension dimension, String name,
+                               InventoryAggregates.Totals totals) throws SQLException {
+        insert.setString(1, dimension.name());
+        insert.setString(2, name);
+        insert.setLong(3, totals.getProducts());
+        insert.setLong(4, totals.getStockedItems());
+        insert.setLong(5, totals.getUnits());
+        insert.setLong(6, totals.getValueCents());
+        insert.addBatch();
+    }
+
+    private static void load() {
+        InventoryAggregates persisted = new InventoryAggregates();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(
+                         "SELECT dimension, name, products, stocked_items, units, value_cents FROM inventory_summary")) {
+                while (rs.next()) {
+                    persisted.add(InventoryAggregates.Dimension.valueOf(rs.getString(1)), rs.getString(2),
+                            rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6));
+                }
+            }
+            AGGREGATES.replaceWith(persisted);
+            persistedChangeCount = AGGREGATES.getChangeCount();
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("Error loading inventory summary: " + e.getMessage());
+        } finally {
+            DbUtil.closeQuietly(conn);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.inventory_manager.dao.impl;
+
+import com.example.inventory_manager.dao.Page;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds seek-based (keyset) page queries for the DAO implementations.
+ * Rows are ordered by a sort expression with the row ID as a tie-breaker, and the
+ * page after a cursor is found by comparing against the cursor row's own sort value,
+ * so the database can seek instead of skipping rows as OFFSET would. If the cursor row
+ * has been deleted since the previous page, there is no sort value to compare against,
+ * and the page continues after the cursor ID instead; it may then skip or repeat rows,
+ * but the listing keeps going rather than ending early.
+ */
+final class Keyset {
+
+    private Keyset() {
+    }
+
+    /**
+     * Resolves a caller-supplied sort key against a whitelist of sort expressions.
+     *
+     * @param sortKeys allowed sort keys mapped to SQL expressions
+     * @param sortKey  the requested key, may be null
+     * @param idColumn the ID column used when the key is missing or unknown
+     * @return the SQL expression to sort by
+     */
+    static String sortExpression(Map<String, String> sortKeys, String sortKey, String idColumn) {
+        String expression = sortKey == null ? null : sortKeys.get(sortKey);
+        return expression == null ? idColumn : expression;
+    }
+
+    /**
+     * Builds a page query. Parameters, in order: the cursor ID four times when sorting
+     * by something other than the ID (the anchor lookup, the tie-break, the check that
+     * the anchor still exists and the fallback seek by ID) or once when sorting by ID,
+     * and finally the row limit. The cursor clause is left out when {@code afterCursor}
+     * is false, leaving only the limit parameter.
+     *
+     * @param select      the SELECT list, including the SELECT keyword
+     * @param from        the FROM clause body (tables and joins)
+     * @param idColumn    the unique ID column
+     * @param sort        the sort expression from {@link #sortExpression}
+     * @param afterCursor whether a cursor is being continued from
+     * @return the SQL text
+     */
+    static String pageSql(String select, String from, String idColumn, String sort, boolean afterCursor) {
+        StringBuilder sql = new StringBuilder(select).append(" FROM ").append(from);
+        if (afterCursor) {
+            if (sort.equals(idColumn)) {
+                sql.append(" WHERE ").append(idColumn).append(" > ?");
+            } else {
+                // A missing anchor makes the row comparison NULL, so only the fallback can match
+                sql.append(" WHERE ((").append(sort).append(", ").append(idColumn).append(") > ((SELECT ")
+                        .append(sort).append(" FROM ").append(from).append(" WHERE ")
+                        .append(idColumn).append(" = ?), ?) OR (NOT EXISTS (SELECT 1 FROM ").append(from)
+                        .append(" WHERE ").append(idColumn).append(" = ?) AND ")
+                        .append(idColumn).append(" > ?))");
+            }
+        }
+        sql.append(" ORDER BY ");
+        if (!sort.equals(idColumn)) {
+            sql.append(sort).append(", ");
+        }
+        sql.append(idColumn).append(" LIMIT ?");
+        return sql.toString();
+    }
+
+    /**
+     * Binds the parameters of a query built by {@link #pageSql}.
+     *
+     * @param stmt     the prepared page query
+     * @param afterId  the cursor ID, or 0 for the first page
+     * @param byId     whether the query sorts by the ID column only
+     * @param limit    the number of rows to fetch
+     * @throws SQLException if binding fails
+     */
+    static void bind(PreparedStatement stmt, int afterId, boolean byId, int limit) throws SQLException {
+        int index = 1;
+        if (afterId > 0) {
+            int times = byId ? 1 : 4;
+            for (int i = 0; i < times; i++) {
+                stmt.setInt(index++, afterId);
+            }
+        }
+        stmt.setInt(index, limit);
+    }
+
+    /**
+     * Turns rows fetched with a limit of {@code size + 1} into a page, using the extra
+     * row only to tell whether another page follows.
+     *
+     * @param rows the fetched rows
+     * @param size the page size
+     * @param id   extracts the cursor ID from a row
+     * @param <T>  the row type
+     * @return the page
+     */
+    static <T> Page<T> page(List<T> rows, int size, ToIntFunction<T> id) {
+        if (rows.size() <= size) {
+            return new Page<>(rows, null);
+        }
+        rows.remove(size);
+        return new Page<>(rows, id.applyAsInt(rows.get(size - 1)));
+    }
+}
@@ -0,0 +1,1158 @@
+package com.example.inventory_manager.dao.impl;
+
+import com.example.inventory_manager.cache.InventoryAggregates;
+import com.example.inventory_manager.concurrent.LockStats;
+import com.example.inventory_manager.concurrent.StripedLockManager;
+import com.example.inventory_manager.dao.Page;
+import com.example.inventory_manager.dao.UpdateResult;
+import com.example.inventory_manager.db.DbUtil;
+import com.example.inventory_manager.metrics.MethodTimer;
+import com.example.inventory_manager.metrics.MetricsRegistry;
+import com.example.inventory_manager.model.InventoryItem;
+import com.example.inventory_manager.model.Product;
+import com.example.inventory_manager.model.StockMovement;
+import com.example.inventory_manager.model.StockTable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Ledger-backed variant of {@link InventoryItemDAOImpl}: every stock change is appended to
+ * {@code stock_movements} instead of updating {@code inventory_items} in place.
+ *
+ * <p>Adjustments, saves and imports only insert movements, so they never wait on each
+ * other for the same row. Each adjustment is checked against the product's current stock,
+ * kept in memory after the first read, and rejected if the stock would go below zero;
+ * adjustments of the same product are serialized so two of them cannot both pass the check.
+ * A background job folds the movements into {@code inventory_items} every
+ * {@code foldIntervalMillis}, and at most every {@code snapshotIntervalMillis} records the
+ * folded quantities of the changed rows in {@code stock_snapshots}. The current stock of a
+ * row is its folded quantity plus the movements after the fold watermark. Stock at an
+ * earlier time is the latest snapshot before it plus the movements recorded after that
+ * snapshot, up to that time.</p>
+ *
+ * <p>Single-item and page reads add the unfolded movements to the stored quantities.
+ * Streaming reads and deletes fold first. The fold watermark relies on every append
+ * going through this instance, so stock must only be changed through one instance.
+ * Changes made while the ledger was off are picked up by a snapshot taken on start.</p>
+ */
+public class LedgerInventoryItemDAO extends InventoryItemDAOImpl implements AutoCloseable {
+
+    private static final MethodTimer ADJUST_STOCK = MetricsRegistry.daoTimer(LedgerInventoryItemDAO.class, "adjustStock");
+    private static final MethodTimer SAVE = MetricsRegistry.daoTimer(LedgerInventoryItemDAO.class, "save");
+    private static final MethodTimer SAVE_ALL = MetricsRegistry.daoTimer(LedgerInventoryItemDAO.class, "saveAll");
+    private static final MethodTimer UPDATE = MetricsRegistry.daoTimer(LedgerInventoryItemDAO.class, "update");
+    private static final MethodTimer DELETE = MetricsRegistry.daoTimer(LedgerInventoryItemDAO.class, "delete");
+    private static final MethodTimer FOLD = MetricsRegistry.daoTimer(LedgerInventoryItemDAO.class, "fold");
+    private static final MethodTimer STOCK_AS_OF = MetricsRegistry.daoTimer(LedgerInventoryItemDAO.class, "stockAsOf");
+    private static final MethodTimer FIND_MOVEMENTS = MetricsRegistry.daoTimer(LedgerInventoryItemDAO.class, "findMovements");
+
+    private static final String DEFAULT_LOCATION = "Default Location";
+
+    private static final String FOLDED_MOVEMENT_ID = "(SELECT folded_movement_id FROM stock_ledger WHERE id = 1)";
+
+    /**
+     * Current stock of the product and location in a derived table {@code k}:
+     * the folded quantity plus the movements after the fold watermark.
+     */
+    private static final String CURRENT_QUANTITY = """
+            COALESCE((SELECT SUM(ii.quantity) FROM inventory_items ii
+                      WHERE ii.product_id = k.product_id AND ii.location IS NOT DISTINCT FROM k.location), 0)
+            + COALESCE((SELECT SUM(m.delta) FROM stock_movements m
+                        WHERE m.product_id = k.product_id AND m.location IS NOT DISTINCT FROM k.location
+                        AND m.movement_id >\s""" + FOLDED_MOVEMENT_ID + "), 0)";
+
+    /**
+     * Location and current stock of a product. The location defaults to the product's first
+     * inventory row, or the default location if it has none.
+     * Parameters: product ID, location (or null), product ID.
+     */
+    private static final String STOCK_AT = "SELECT k.location, " + CURRENT_QUANTITY + """
+             AS quantity
+            FROM (SELECT CAST(? AS INT) AS product_id,
+                         COALESCE(CAST(? AS VARCHAR(255)),
+                                  (SELECT location FROM inventory_items WHERE product_id = ? ORDER BY inventory_id LIMIT 1),
+                                  '""" + DEFAULT_LOCATION + "') AS location) k";
+
+    private static final String INSERT_MOVEMENT =
+            "INSERT INTO stock_movements (product_id, location, delta, reason, order_id) VALUES (?, ?, ?, ?, ?)";
+
+    /**
+     * Records the movement that brings a product's stock at a location to the imported level.
+     * Parameters: new quantity, SKU, location.
+     */
+    private static final String IMPORT_MOVEMENT = """
+            INSERT INTO stock_movements (product_id, location, delta, reason)
+            SELECT d.product_id, d.location, d.delta, 'IMPORT' FROM (
+                SELECT k.product_id, k.location, CAST(? AS INT) - (""" + CURRENT_QUANTITY + """
+            ) AS delta
+                FROM (SELECT (SELECT id FROM products WHERE sku = ?) AS product_id,
+                             CAST(? AS VARCHAR(255)) AS location) k
+            ) d
+            WHERE d.delta <> 0
+            """;
+
+    /**
+     * Records an {@code ORDER} movement for each product of an order, at the product's first
+     * location, unless it would take the stock below zero. Returns the product IDs.
+     * Parameters: order ID, order ID.
+     */
+    private static final String RECEIVE_ORDER = """
+            SELECT product_id FROM FINAL TABLE (
+                INSERT INTO stock_movements (product_id, location, delta, reason, order_id)
+                SELECT k.product_id, k.location, k.delta, 'ORDER', ?
+                FROM (SELECT o.product_id, o.delta,
+                             COALESCE((SELECT location FROM inventory_items
+                                       WHERE product_id = o.product_id ORDER BY inventory_id LIMIT 1),
+                                      '""" + DEFAULT_LOCATION + "') AS location\n"
+            + "      FROM (" + ORDER_QUANTITIES + ") o) k\n"
+            + "WHERE k.delta <> 0 AND " + CURRENT_QUANTITY + " + k.delta >= 0)";
+
+    /**
+     * Adds the movements in a watermark range to their inventory rows, creating missing rows.
+     * Parameters: from (exclusive), to (inclusive).
+     */
+    private static final String FOLD_MERGE = """
+            MERGE INTO inventory_items t
+            USING (SELECT product_id, location, SUM(delta) AS delta FROM stock_movements
+                   WHERE movement_id > ? AND movement_id <= ?
+                   GROUP BY product_id, location) s
+            ON t.product_id = s.product_id AND t.location IS NOT DISTINCT FROM s.location
+            WHEN MATCHED THEN
+                UPDATE SET quantity = COALESCE(t.quantity, 0) + s.delta, version = t.version + 1
+            WHEN NOT MATCHED THEN
+                INSERT (product_id, quantity, location) VALUES (s.product_id, s.delta, s.location)
+            """;
+
+    /**
+     * Folded quantity, net change, location and product category and price of the rows
+     * a fold changed, for the inventory summary.
+     * Parameters: from (exclusive), to (inclusive).
+     */
+    private static final String FOLDED_ROWS = """
+            SELECT COALESCE(ii.quantity, 0), s.delta, ii.location, p.category, p.price
+            FROM (SELECT product_id, location, SUM(delta) AS delta FROM stock_movements
+                  WHERE movement_id > ? AND movement_id <= ?
+                  GROUP BY product_id, location) s
+            JOIN inventory_items ii ON ii.product_id = s.product_id AND ii.location IS NOT DISTINCT FROM s.location
+            JOIN products p ON p.id = s.product_id
+            """;
+
+    /**
+     * Snapshots the inventory rows that have movements in a watermark range.
+     * Parameters: watermark recorded with the snapshot, from (exclusive), to (inclusive).
+     */
+    private static final String SNAPSHOT_CHANGED = """
+            INSERT INTO stock_snapshots (product_id, location, quantity, last_movement_id, taken_at)
+            SELECT ii.product_id, ii.location, COALESCE(ii.quantity, 0), ?, CURRENT_TIMESTAMP
+            FROM (SELECT DISTINCT product_id, location FROM stock_movements
+                  WHERE movement_id > ? AND movement_id <= ?) c
+            JOIN inventory_items ii ON ii.product_id = c.product_id AND ii.location IS NOT DISTINCT FROM c.location
+            """;
+
+    /**
+     * Snapshots the inventory rows whose quantity differs from their latest snapshot,
+     * for example after changes made while the ledger was off.
+     * Parameters: watermark recorded with the snapshot.
+     */
+    private static final String SNAPSHOT_DRIFTED = """
+            INSERT INTO stock_snapshots (product_id, location, quantity, last_movement_id, taken_at)
+            SELECT ii.product_id, ii.location, COALESCE(ii.quantity, 0), ?, CURRENT_TIMESTAMP
+            FROM inventory_items ii
+            WHERE COALESCE(ii.quantity, 0) IS DISTINCT FROM (
+                SELECT s.quantity FROM stock_snapshots s
+                WHERE s.product_id = ii.product_id AND s.location IS NOT DISTINCT FROM ii.location
+                ORDER BY s.snapshot_id DESC LIMIT 1
+            )
+            """;
+
+    /**
+     * Stock of a product per location at a point in time: the latest snapshot at or before
+     * that time plus the later movements up to it, and for locations without a snapshot
+     * yet, the movements up to it.
+     * Parameters: time, product ID, time, product ID, time, time.
+     */
+    private static final String STOCK_AS_OF_SQL = """
+            SELECT s.location, s.quantity + COALESCE((
+                       SELECT SUM(m.delta) FROM stock_movements m
+                       WHERE m.product_id = s.product_id AND m.location IS NOT DISTINCT FROM s.location
+                       AND m.movement_id > s.last_movement_id AND m.created_at <= ?), 0) AS quantity
+            FROM stock_snapshots s
+            WHERE s.product_id = ? AND s.snapshot_id = (
+                SELECT MAX(x.snapshot_id) FROM stock_snapshots x
+                WHERE x.product_id = s.product_id AND x.location IS NOT DISTINCT FROM s.location AND x.taken_at <= ?)
+            UNION ALL
+            SELECT m.location, SUM(m.delta) AS quantity
+            FROM stock_movements m
+            WHERE m.product_id = ? AND m.created_at <= ? AND NOT EXISTS (
+                SELECT 1 FROM stock_snapshots x
+                WHERE x.product_id = m.product_id AND x.location IS NOT DISTINCT FROM m.location AND x.taken_at <= ?)
+            GROUP BY m.location
+            """;
+
+    /**
+     * Appends hold the read lock until they commit. The fold takes the write lock to read
+     * the highest movement ID, so every movement up to it is committed, and again to commit,
+     * so overlaid reads never count a movement twice or not at all.
+     * Imports and deletes hold the write lock throughout.
+     * Lock order: the fold lock, then this lock, then a stripe, then database row locks.
+     * The fold takes the inventory summary's change lock after reading the highest movement ID
+     * and holds it until it commits; deletes take it with this lock held, which is safe
+     * because they hold the fold lock too.
+     * Order completion takes this lock and its stripes in {@link #lockOrder(int)}, before
+     * its transaction locks the order row.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object foldLock = new Object();
+
+    /**
+     * Appends to products that share a stripe are serialized. Separate from the servlets'
+     * stock locks, which are taken before this DAO is called.
+     */
+    private final StripedLockManager stripes = StripedLockManager.fromSystemProperties();
+
+    /**
+     * Current location and stock of recently adjusted products, so an adjustment is a single
+     * insert. Entries are read and replaced with the product's stripe held, and cleared by
+     * anything that sets stock levels directly.
+     */
+    private final Map<Integer, StockLevel> levels = new ConcurrentHashMap<>();
+    private final long snapshotIntervalMillis;
+    private final ScheduledExecutorService folder;
+    private long lastSnapshotMillis;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new LedgerInventoryItemDAO. Folds any movements left by a previous run
+     * and snapshots rows changed while the ledger was off before returning.
+     *
+     * @param foldIntervalMillis     time between folds of the ledger into inventory_items
+     * @param snapshotIntervalMillis shortest time between snapshots of the folded quantities
+     */
+    public LedgerInventoryItemDAO(long foldIntervalMillis, long snapshotIntervalMillis) {
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        synchronized (foldLock) {
+            fold(true);
+        }
+
+        this.folder = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "stock-ledger-fold");
+            thread.setDaemon(true);
+            return thread;
+        });
+        folder.scheduleWithFixedDelay(this::fold, foldIntervalMillis, foldIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates an instance configured from the {@code inventory.stock.foldIntervalMillis}
+     * (default 1000) and {@code inventory.stock.snapshotIntervalMillis} (default 60000)
+     * system properties.
+     *
+     * @return a new ledger DAO
+     */
+    public static LedgerInventoryItemDAO fromSystemProperties() {
+        return new LedgerInventoryItemDAO(
+                Long.getLong("inventory.stock.foldIntervalMillis", 1000L),
+                Long.getLong("inventory.stock.snapshotIntervalMillis", 60000L)
+        );
+    }
+
+    /**
+     * Records a manual stock change for a product.
+     *
+     * @param productId the ID of the product
+     * @param delta     the amount to change the stock by (positive or negative)
+     * @return the new quantity, or -1 if the change was rejected or failed
+     */
+
+    @Override
+    public int adjustStock(int productId, int delta) {
+        return adjustStock(productId, delta, StockMovement.Reason.ADJUSTMENT, 0);
+    }
+
+    /**
+     * Appends a stock change for a product's first location to the ledger.
+     * Changes that would take the stock below zero are rejected.
+     *
+     * @param productId the ID of the product
+     * @param delta     the amount to change the stock by (positive or negative)
+     * @param reason    why the stock changes
+     * @param orderId   the related order ID, or 0 if none
+     * @return the new quantity, or -1 if the change was rejected or failed
+     */
+
+    @Override
+    public int adjustStock(int productId, int delta, StockMovement.Reason reason, int orderId) {
+        long start = ADJUST_STOCK.start();
+        lock.readLock().lock();
+        try {
+            // The connection is borrowed with the stripe held, so appends queued on a stripe do not hold one
+            return stripes.withLock(productId, () -> {
+                Connection conn = null;
+                try {
+                    conn = DbUtil.getConnection();
+                    StockLevel level = levels.get(productId);
+                    if (level == null) {
+                        level = stockAt(conn, productId, null);
+                    }
+                    int quantity = record(conn, productId, level, delta, false, reason, orderId);
+                    if (quantity >= 0) {
+                        levels.put(productId, new StockLevel(level.location, quantity));
+                    }
+                    return quantity;
+                } finally {
+                    DbUtil.closeQuietly(conn);
+                }
+            });
+        } catch (SQLException e) {
+            ADJUST_STOCK.error();
+            System.err.println("Error recording stock movement: " + e.getMessage());
+            return -1;
+        } finally {
+            lock.readLock().unlock();
+            ADJUST_STOCK.stop(start);
+        }
+    }
+
+    /**
+     * Sets the stock of an inventory item by appending the difference to the ledger,
+     * and creates its inventory row if it has none.
+     *
+     * @param inventoryItem the inventory item to save
+     * @return the inventory ID of the row, or -1 if the save failed
+     */
+
+    @Override
+    public int save(InventoryItem inventoryItem) {
+        int productId = inventoryItem.getProduct().getId();
+        long start = SAVE.start();
+        lock.readLock().lock();
+        try {
+            return stripes.withLock(productId, () -> {
+                Connection conn = null;
+                try {
+                    conn = DbUtil.getConnection();
+                    StockLevel level = stockAt(conn, productId, inventoryItem.getLocation());
+                    if (record(conn, productId, level, inventoryItem.getCurrentStock(), true,
+                            StockMovement.Reason.COUNT, 0) < 0) {
+                        return -1;
+                    }
+                    levels.remove(productId);
+                    return ensureRow(conn, productId, level.location);
+                } finally {
+                    DbUtil.closeQuietly(conn);
+                }
+            });
+        } catch (SQLException e) {
+            SAVE.error();
+            System.err.println("Error saving inventory item: " + e.getMessage());
+            return -1;
+        } finally {
+            lock.readLock().unlock();
+            SAVE.stop(start);
+        }
+    }
+
+    /**
+     * Saves many inventory items together with their products in one transaction.
+     * Products are merged by SKU, then each item's new level is recorded as an
+     * {@code IMPORT} movement of the difference. Adjustments wait until it is done.
+     * If anything fails, nothing is saved.
+     *
+     * @param items the inventory items to save; their products are identified by SKU
+     * @return true if all rows were saved, false otherwise
+     */
+
+    @Override
+    public boolean saveAll(List<InventoryItem> items) {
+        if (items.isEmpty()) {
+            return true;
+        }
+
+        long start = SAVE_ALL.start();
+        Connection conn = null;
+        lock.writeLock().lock();
+        try {
+            conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
+
+            PreparedStatement productStmt = conn.prepareStatement(ProductDAOImpl.MERGE_BY_SKU);
+            PreparedStatement movementStmt = conn.prepareStatement(IMPORT_MOVEMENT);
+
+            for (int from = 0; from < items.size(); from += ProductDAOImpl.BATCH_SIZE) {
+                List<InventoryItem> chunk = items.subList(from, Math.min(from + ProductDAOImpl.BATCH_SIZE, items.size()));
+
+                for (InventoryItem item : chunk) {
+                    ProductDAOImpl.bindMerge(productStmt, item.getProduct());
+                    productStmt.addBatch();
+                }
+                productStmt.executeBatch();
+
+                for (InventoryItem item : chunk) {
+                    movementStmt.setInt(1, item.getCurrentStock());
+                    movementStmt.setString(2, item.getProduct().getSku());
+                    movementStmt.setString(3, item.getLocation());
+                    movementStmt.addBatch();
+                }
+                movementStmt.executeBatch();
+            }
+
+            conn.commit();
+            levels.clear();
+            // New products are counted by a rebuild; their stock arrives with the next fold
+            InventorySummaryDAO.requestRebuild();
+            return true;
+        } catch (SQLException e) {
+            SAVE_ALL.error();
+            DbUtil.rollbackQuietly(conn);
+            System.err.println("Error saving inventory items: " + e.getMessage());
+            return false;
+        } finally {
+            DbUtil.closeQuietly(conn);
+            lock.writeLock().unlock();
+            SAVE_ALL.stop(start);
+        }
+    }
+
+    /**
+     * Sets the stock of an inventory row if its version is unchanged, by appending the
+     * difference as a {@code COUNT} movement. The ledger is folded before, so the version
+     * covers every accepted movement, and after, so the row is current; each fold that
+     * changes the row increments the version again, and the item receives the final one.
+     * An item read while its row had unfolded movements therefore gets a conflict and must
+     * be read again. Appends wait until it is done.
+     */
+
+    @Override
+    public UpdateResult update(InventoryItem inventoryItem) {
+        if (inventoryItem.getCurrentStock() < 0) {
+            return UpdateResult.REJECTED;
+        }
+        long start = UPDATE.start();
+        Connection conn = null;
+        synchronized (foldLock) {
+            lock.writeLock().lock();
+            try {
+                if (!fold(false)) {
+                    return UpdateResult.FAILED;
+                }
+                conn = DbUtil.getConnection();
+                conn.setAutoCommit(false);
+
+                UpdateResult result = setStock(conn, inventoryItem, new ArrayList<>());
+                if (result != UpdateResult.UPDATED) {
+                    conn.rollback();
+                    return result;
+                }
+                conn.commit();
+                settle(inventoryItem, inventoryItem.getVersion() + 1);
+                return UpdateResult.UPDATED;
+            } catch (SQLException e) {
+                UPDATE.error();
+                DbUtil.rollbackQuietly(conn);
+                System.err.println("Error updating inventory item: " + e.getMessage());
+                return UpdateResult.FAILED;
+            } finally {
+                DbUtil.closeQuietly(conn);
+                lock.writeLock().unlock();
+                UPDATE.stop(start);
+            }
+        }
+    }
+
+    /**
+     * Updates a product and one of its inventory rows together, setting the row's stock as
+     * {@link #update(InventoryItem)} does in the product update's transaction. Appends wait
+     * until it is done.
+     */
+
+    @Override
+    public UpdateResult update(Product product, InventoryItem inventoryItem) {
+        synchronized (foldLock) {
+            lock.writeLock().lock();
+            try {
+                if (!fold(false)) {
+                    return UpdateResult.FAILED;
+                }
+                UpdateResult result = super.update(product, inventoryItem);
+                if (result == UpdateResult.UPDATED) {
+                    settle(inventoryItem, inventoryItem.getVersion());
+                }
+                return result;
+            } catch (SQLException e) {
+                // Both rows were committed; only the item's version could not be refreshed
+                System.err.println("Error reading inventory item version: " + e.getMessage());
+                return UpdateResult.UPDATED;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Sets the stock of an inventory row in the caller's transaction if its version is
+     * unchanged, by appending the difference as a {@code COUNT} movement. The ledger must
+     * have been folded, with appends held off, so the row is current. The movement reaches
+     * the inventory summary when it is folded.
+     */
+
+    @Override
+    UpdateResult setStock(Connection conn, InventoryItem inventoryItem,
+                          List<InventoryAggregates.StockChange> changes) throws SQLException {
+        PreparedStatement cas = conn.prepareStatement("""
+            SELECT product_id, quantity, location FROM OLD TABLE (
+                UPDATE inventory_items SET version = version + 1 WHERE inventory_id = ? AND version = ?
+            )
+            """);
+        cas.setInt(1, inventoryItem.getInventoryId());
+        cas.setLong(2, inventoryItem.getVersion());
+        ResultSet rs = cas.executeQuery();
+        if (!rs.next()) {
+            return Versions.missed(conn, "inventory_items", "inventory_id", inventoryItem.getInventoryId());
+        }
+        int productId = rs.getInt(1);
+        StockLevel level = new StockLevel(rs.getString(3), rs.getInt(2));
+        record(conn, productId, level, inventoryItem.getCurrentStock(), true, StockMovement.Reason.COUNT, 0);
+        levels.remove(productId);
+        return UpdateResult.UPDATED;
+    }
+
+    /**
+     * Folds the movement appended by a stock update and gives the item the row's version
+     * afterwards, since each fold that changes the row increments it again. If the fold
+     * fails, the item keeps the version of the update itself.
+     */
+    private void settle(InventoryItem inventoryItem, long updatedVersion) throws SQLException {
+        if (!fold(false)) {
+            inventoryItem.setVersion(updatedVersion);
+            return;
+        }
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement version = conn.prepareStatement(
+                    "SELECT version FROM inventory_items WHERE inventory_id = ?");
+            version.setInt(1, inventoryItem.getInventoryId());
+            ResultSet current = version.executeQuery();
+            inventoryItem.setVersion(current.next() ? current.getLong(1) : updatedVersion);
+        } finally {
+            DbUtil.closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Folds the ledger, then deletes the inventory items of a product.
+     * A zero snapshot is recorded for each deleted row.
+     */
+
+    @Override
+    public boolean deleteByProductId(int productId) {
+        return retire("product_id", productId);
+    }
+
+    /**
+     * Folds the ledger, then deletes an inventory item.
+     * A zero snapshot is recorded for the deleted row.
+     */
+
+    @Override
+    public boolean delete(int inventoryId) {
+        return retire("inventory_id", inventoryId);
+    }
+
+    /**
+     * Finds an inventory item by its ID, including unfolded movements.
+     */
+
+    @Override
+    public InventoryItem findById(int inventoryId) {
+        lock.readLock().lock();
+        try {
+            InventoryItem item = super.findById(inventoryId);
+            if (item != null) {
+                overlay(List.of(item));
+            }
+            return item;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds an inventory item by product ID, including unfolded movements.
+     */
+
+    @Override
+    public InventoryItem findByProductId(int productId) {
+        lock.readLock().lock();
+        try {
+            InventoryItem item = super.findByProductId(productId);
+            if (item != null) {
+                overlay(List.of(item));
+            }
+            return item;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves one page of inventory items, including unfolded movements.
+     */
+
+    @Override
+    public Page<InventoryItem> findPage(int afterId, int pageSize, String sortKey) {
+        lock.readLock().lock();
+        try {
+            Page<InventoryItem> page = super.findPage(afterId, pageSize, sortKey);
+            overlay(page.getItems());
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the inventory items of the given products, including unfolded movements.
+     */
+
+    @Override
+    public List<InventoryItem> findByProductIds(List<Integer> productIds) {
+        lock.readLock().lock();
+        try {
+            List<InventoryItem> items = super.findByProductIds(productIds);
+            overlay(items);
+            return items;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Folds the ledger, then retrieves all inventory items.
+     */
+
+    @Override
+    public List<InventoryItem> findAll() {
+        fold();
+        return super.findAll();
+    }
+
+    /**
+     * Folds the ledger, then streams the inventory items.
+     */
+
+    @Override
+    public boolean forEachItem(int afterId, Consumer<InventoryItem> action) {
+        fold();
+        return super.forEachItem(afterId, action);
+    }
+
+    /**
+     * Folds the ledger, then loads per-product stock totals.
+     */
+
+    @Override
+    public boolean loadStock(StockTable table) {
+        fold();
+        return super.loadStock(table);
+    }
+
+    /**
+     * Returns the stock of a product per location at a point in time, from the latest
+     * snapshot before it plus the movements recorded after that snapshot.
+     *
+     * @param productId the ID of the product
+     * @param asOf      the point in time
+     * @return the quantity per location, or null if the query failed
+     */
+    public Map<String, Integer> stockAsOf(int productId, Instant asOf) {
+        Timestamp at = Timestamp.from(asOf);
+        Map<String, Integer> stock = new LinkedHashMap<>();
+        long start = STOCK_AS_OF.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(STOCK_AS_OF_SQL);
+            stmt.setTimestamp(1, at);
+            stmt.setInt(2, productId);
+            stmt.setTimestamp(3, at);
+            stmt.setInt(4, productId);
+            stmt.setTimestamp(5, at);
+            stmt.setTimestamp(6, at);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                stock.put(rs.getString("location"), rs.getInt("quantity"));
+            }
+            return stock;
+        } catch (SQLException e) {
+            STOCK_AS_OF.error();
+            System.err.println("Error reading stock history: " + e.getMessage());
+            return null;
+        } finally {
+            DbUtil.closeQuietly(conn);
+            STOCK_AS_OF.stop(start);
+        }
+    }
+
+    /**
+     * Retrieves the latest movements of a product, newest first.
+     *
+     * @param productId the ID of the product
+     * @param limit     the maximum number of movements to return
+     * @return the movements
+     */
+    public List<StockMovement> findMovements(int productId, int limit) {
+        List<StockMovement> movements = new ArrayList<>();
+        long start = FIND_MOVEMENTS.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT * FROM stock_movements WHERE product_id = ? ORDER BY movement_id DESC LIMIT ?"
+            );
+            stmt.setInt(1, productId);
+            stmt.setInt(2, limit);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                movements.add(new StockMovement(
+                        rs.getLong("movement_id"),
+                        rs.getInt("product_id"),
+                        rs.getString("location"),
+                        rs.getInt("delta"),
+                        StockMovement.Reason.valueOf(rs.getString("reason")),
+                        rs.getInt("order_id"),
+                        rs.getTimestamp("created_at")
+                ));
+            }
+        } catch (SQLException e) {
+            FIND_MOVEMENTS.error();
+            System.err.println("Error finding stock movements: " + e.getMessage());
+        } finally {
+            DbUtil.closeQuietly(conn);
+            FIND_MOVEMENTS.stop(start);
+        }
+        return movements;
+    }
+
+    /**
+     * Returns the number of movements not yet folded into inventory_items.
+     *
+     * @return the unfolded movement count, or -1 if the query failed
+     */
+    public long getUnfoldedCount() {
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT COUNT(*) FROM stock_movements WHERE movement_id > " + FOLDED_MOVEMENT_ID
+            );
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error counting unfolded stock movements: " + e.getMessage());
+            return -1;
+        } finally {
+            DbUtil.closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Takes the read lock and the stripes of all the order's products, in stripe order.
+     * They are held until the order's transaction has ended, so appends to those products
+     * wait and no cached stock level misses the new movements; appends to other products go on.
+     * The order's lines are read with a connection of their own, returned before locking;
+     * lines are never changed once an order is saved.
+     */
+
+    @Override
+    OrderLocks lockOrder(int orderId) throws SQLException {
+        List<Integer> ordered = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement lines = conn.prepareStatement(ORDER_QUANTITIES);
+            lines.setInt(1, orderId);
+            ResultSet rs = lines.executeQuery();
+            while (rs.next()) {
+                ordered.add(rs.getInt(1));
+            }
+        } finally {
+            DbUtil.closeQuietly(conn);
+        }
+
+        lock.readLock().lock();
+        try {
+            StripedLockManager.Held held = stripes.lockAll(ordered);
+            return () -> {
+                held.close();
+                lock.readLock().unlock();
+            };
+        } catch (RuntimeException | Error e) {
+            lock.readLock().unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Records the lines of an order as {@code ORDER} movements in the caller's transaction
+     * and commits it, with the locks from {@link #lockOrder(int)} held. The movements reach
+     * inventory_items with the next fold.
+     */
+
+    @Override
+    List<Integer> receiveOrder(Connection conn, int orderId) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(RECEIVE_ORDER);
+        stmt.setInt(1, orderId);
+        stmt.setInt(2, orderId);
+
+        List<Integer> productIds = new ArrayList<>();
+        ResultSet rs = stmt.executeQuery();
+        while (rs.next()) {
+            productIds.add(rs.getInt(1));
+        }
+        conn.commit();
+        productIds.forEach(levels::remove);
+        return productIds;
+    }
+
+    /**
+     * Returns the counters of the per-product stripes.
+     *
+     * @return the stripe lock statistics
+     */
+    public LockStats getLockStats() {
+        return stripes.getStats();
+    }
+
+    /**
+     * Folds all committed movements into inventory_items in one transaction, and snapshots
+     * the changed rows if the snapshot interval has passed.
+     *
+     * @return true if the ledger was folded, false if the transaction failed
+     */
+    public boolean fold() {
+        synchronized (foldLock) {
+            return fold(false);
+        }
+    }
+
+    /**
+     * Stops the background fold and folds what is left. Movements recorded afterwards
+     * stay in the ledger until the next start.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        folder.shutdown();
+        try {
+            folder.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fold();
+    }
+
+    /**
+     * Folds the ledger. Called with the fold lock held.
+     *
+     * @param checkpoint whether to snapshot every row that differs from its latest snapshot,
+     *                   not just the rows with new movements
+     */
+    private boolean fold(boolean checkpoint) {
+        Connection conn = null;
+        long start = 0;
+        boolean changing = false;
+        try {
+            conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
+
+            PreparedStatement ledgerStmt = conn.prepareStatement(
+                    "SELECT folded_movement_id, snapshot_movement_id FROM stock_ledger WHERE id = 1"
+            );
+            ResultSet ledger = ledgerStmt.executeQuery();
+            if (!ledger.next()) {
+                throw new SQLException("stock_ledger has no state row");
+            }
+            long folded = ledger.getLong(1);
+            long snapshotted = ledger.getLong(2);
+
+            long to;
+            lock.writeLock().lock();
+            try {
+                ResultSet max = conn.prepareStatement("SELECT COALESCE(MAX(movement_id), 0) FROM stock_movements").executeQuery();
+                to = max.next() ? max.getLong(1) : 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long now = System.currentTimeMillis();
+            boolean snapshot = checkpoint || (to > snapshotted && now - lastSnapshotMillis >= snapshotIntervalMillis);
+            if (to == folded && !snapshot) {
+                conn.rollback();
+                return true;
+            }
+            start = FOLD.start();
+
+            // Held from the merge, which reads the products' category and price, until the commit
+            InventorySummaryDAO.beginChange();
+            changing = true;
+            List<InventoryAggregates.StockChange> changes = new ArrayList<>();
+            if (to > folded) {
+                PreparedStatement merge = conn.prepareStatement(FOLD_MERGE);
+                merge.setLong(1, folded);
+                merge.setLong(2, to);
+                merge.executeUpdate();
+
+                PreparedStatement rows = conn.prepareStatement(FOLDED_ROWS);
+                rows.setLong(1, folded);
+                rows.setLong(2, to);
+                ResultSet rs = rows.executeQuery();
+                while (rs.next()) {
+                    int quantity = rs.getInt(1);
+                    changes.add(new InventoryAggregates.StockChange(rs.getString(4), rs.getDouble(5), rs.getString(3),
+                            quantity - rs.getInt(2), quantity));
+                }
+            }
+
+            if (snapshot) {
+                PreparedStatement changed = conn.prepareStatement(SNAPSHOT_CHANGED);
+                changed.setLong(1, to);
+                changed.setLong(2, snapshotted);
+                changed.setLong(3, to);
+                changed.executeUpdate();
+                if (checkpoint) {
+                    PreparedStatement drifted = conn.prepareStatement(SNAPSHOT_DRIFTED);
+                    drifted.setLong(1, to);
+                    drifted.executeUpdate();
+                }
+            }
+
+            PreparedStatement update = conn.prepareStatement(snapshot
+                    ? "UPDATE stock_ledger SET folded_movement_id = ?, folded_at = CURRENT_TIMESTAMP, "
+                            + "snapshot_movement_id = ?, snapshot_at = CURRENT_TIMESTAMP WHERE id = 1"
+                    : "UPDATE stock_ledger SET folded_movement_id = ?, folded_at = CURRENT_TIMESTAMP WHERE id = 1");
+            update.setLong(1, to);
+            if (snapshot) {
+                update.setLong(2, to);
+            }
+            update.executeUpdate();
+
+            lock.writeLock().lock();
+            try {
+                InventorySummaryDAO.commit(conn, changes);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (snapshot) {
+                lastSnapshotMillis = now;
+            }
+            return true;
+        } catch (SQLException e) {
+            FOLD.error();
+            DbUtil.rollbackQuietly(conn);
+            System.err.println("Error folding stock ledger: " + e.getMessage());
+            return false;
+        } finally {
+            if (changing) {
+                InventorySummaryDAO.endChange();
+            }
+            DbUtil.closeQuietly(conn);
+            if (start != 0) {
+                FOLD.stop(start);
+            }
+        }
+    }
+
+    /**
+     * Folds the ledger and deletes the matching inventory rows, recording a zero snapshot
+     * for each so stock history reads zero from then on. Appends wait until it is done.
+     */
+    private boolean retire(String keyColumn, int id) {
+        long start = DELETE.start();
+        Connection conn = null;
+        synchronized (foldLock) {
+            lock.writeLock().lock();
+            try {
+                if (!fold(false)) {
+                    return false;
+                }
+                conn = DbUtil.getConnection();
+                conn.setAutoCommit(false);
+
+                List<InventoryAggregates.StockChange> removed;
+                InventorySummaryDAO.beginChange();
+                try {
+                    PreparedStatement snapshot = conn.prepareStatement(
+                            "INSERT INTO stock_snapshots (product_id, location, quantity, last_movement_id, taken_at) "
+                                    + "SELECT product_id, location, 0, " + FOLDED_MOVEMENT_ID + ", CURRENT_TIMESTAMP "
+                                    + "FROM inventory_items WHERE " + keyColumn + " = ?"
+                    );
+                    snapshot.setInt(1, id);
+                    snapshot.executeUpdate();
+
+                    PreparedStatement delete = conn.prepareStatement(String.format(DELETE_RETURNING, keyColumn));
+                    delete.setInt(1, id);
+                    removed = readRemoved(delete.executeQuery());
+
+                    InventorySummaryDAO.commit(conn, removed);
+                } finally {
+                    InventorySummaryDAO.endChange();
+                }
+                levels.clear();
+                return !removed.isEmpty();
+            } catch (SQLException e) {
+                DELETE.error();
+                DbUtil.rollbackQuietly(conn);
+                System.err.println("Error deleting inventory item: " + e.getMessage());
+                return false;
+            } finally {
+                DbUtil.closeQuietly(conn);
+                lock.writeLock().unlock();
+                DELETE.stop(start);
+            }
+        }
+    }
+
+    /**
+     * Appends a movement after checking it against the current stock.
+     *
+     * @param level  the product's location and current stock there
+     * @param change the delta, or the new quantity if {@code absolute}
+     * @return the new quantity, or -1 if it would be below zero
+     */
+    private static int record(Connection conn, int productId, StockLevel level, int change, boolean absolute,
+                              StockMovement.Reason reason, int orderId) throws SQLException {
+        int delta = absolute ? change - level.quantity : change;
+        if (level.quantity + delta < 0) {
+            return -1;
+        }
+        if (delta != 0) {
+            PreparedStatement stmt = conn.prepareStatement(INSERT_MOVEMENT);
+            stmt.setInt(1, productId);
+            stmt.setString(2, level.location);
+            stmt.setInt(3, delta);
+            stmt.setString(4, reason.name());
+            if (orderId > 0) {
+                stmt.setInt(5, orderId);
+            } else {
+                stmt.setNull(5, Types.INTEGER);
+            }
+            stmt.executeUpdate();
+        }
+        return level.quantity + delta;
+    }
+
+    /**
+     * Reads the current stock of a product at a location, or at its first location if null.
+     */
+    private static StockLevel stockAt(Connection conn, int productId, String location) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(STOCK_AT);
+        stmt.setInt(1, productId);
+        stmt.setString(2, location);
+        stmt.setInt(3, productId);
+        ResultSet rs = stmt.executeQuery();
+        rs.next();
+        return new StockLevel(rs.getString(1), rs.getInt(2));
+    }
+
+    /**
+     * Returns the inventory ID of a product's row at a location, inserting an empty row
+     * if there is none. The row's stock comes from the ledger.
+     */
+    private static int ensureRow(Connection conn, int productId, String location) throws SQLException {
+        PreparedStatement find = conn.prepareStatement(
+                "SELECT inventory_id FROM inventory_items WHERE product_id = ? AND location IS NOT DISTINCT FROM ?"
+        );
+        find.setInt(1, productId);
+        find.setString(2, location);
+        ResultSet rs = find.executeQuery();
+        if (rs.next()) {
+            return rs.getInt(1);
+        }
+
+        PreparedStatement insert = conn.prepareStatement("""
+            SELECT inventory_id FROM FINAL TABLE (
+                INSERT INTO inventory_items (product_id, quantity, location) VALUES (?, 0, ?)
+            )
+            """);
+        insert.setInt(1, productId);
+        insert.setString(2, location);
+        rs = insert.executeQuery();
+        return rs.next() ? rs.getInt(1) : -1;
+    }
+
+    /**
+     * Adds the unfolded movements of each item's product and location to its quantity.
+     * Called with the read lock held, so no fold commits between the two reads.
+     */
+    private void overlay(List<InventoryItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Integer> productIds = new ArrayList<>();
+        for (InventoryItem item : items) {
+            productIds.add(item.getProduct().getId());
+        }
+
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT product_id, location, SUM(delta) AS delta FROM stock_movements "
+                            + "WHERE product_id = ANY(?) AND movement_id > " + FOLDED_MOVEMENT_ID
+                            + " GROUP BY product_id, location"
+            );
+            stmt.setObject(1, productIds.toArray(new Integer[0]));
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                int productId = rs.getInt("product_id");
+                String location = rs.getString("location");
+                for (InventoryItem item : items) {
+                    if (item.getProduct().getId() == productId && Objects.equals(item.getLocation(), location)) {
+                        item.setCurrentStock(item.getCurrentStock() + rs.getInt("delta"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading unfolded stock movements: " + e.getMessage());
+        } finally {
+            DbUtil.closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Location and current stock of a product.
+     */
+    private static final class StockLevel {
+        final String location;
+        final int quantity;
+
+        StockLevel(String location, int quantity) {
+            this.location = location;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.inventory_manager.dao.impl;
 
+import com.example.inventory_manager.dao.Page;
+import com.example.inventory_manager.dao.UpdateResult;
 import com.example.inventory_manager.db.DbUtil;
+import com.example.inventory_manager.metrics.MethodTimer;
+import com.example.inventory_manager.metrics.MetricsRegistry;
 import com.example.inventory_manager.model.Order;
 import com.example.inventory_manager.model.Supplier;
 import com.example.inventory_manager.model.InventoryItem;
@@ -8,7 +12,11 @@ import com.example.inventory_manager.model.Product;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Implementation for handling Order-related database operations.
@@ -16,102 +24,208 @@ import java.util.List;
 
 public class OrderDAOImpl {
 
-    private SupplierDAOImpl supplierDAO = new SupplierDAOImpl();
+    private static final MethodTimer SAVE = MetricsRegistry.daoTimer(OrderDAOImpl.class, "save");
+    private static final MethodTimer SAVE_ALL = MetricsRegistry.daoTimer(OrderDAOImpl.class, "saveAll");
+    private static final MethodTimer FIND_ALL = MetricsRegistry.daoTimer(OrderDAOImpl.class, "findAll");
+    private static final MethodTimer FIND_BY_ID = MetricsRegistry.daoTimer(OrderDAOImpl.class, "findById");
+    private static final MethodTimer FOR_EACH_ORDER = MetricsRegistry.daoTimer(OrderDAOImpl.class, "forEachOrder");
+    private static final MethodTimer FIND_PAGE = MetricsRegistry.daoTimer(OrderDAOImpl.class, "findPage");
+    private static final MethodTimer UPDATE = MetricsRegistry.daoTimer(OrderDAOImpl.class, "update");
+    private static final MethodTimer COMPLETE = MetricsRegistry.daoTimer(OrderDAOImpl.class, "complete");
+
     private ProductDAOImpl productDAO = new ProductDAOImpl();
 
 
+    /**
+     * Number of rows sent per executeBatch call when saving many orders.
+     */
+    private static final int BATCH_SIZE = 500;
+
     /**
      * Saves a new order and its ordered items into the database.
+     * The order row and all of its lines are written in a single transaction.
      *
      * @param order the Order to save
      * @return true if the order was successfully saved, false otherwise
      */
 
     public boolean save(Order order) {
+        long start = SAVE.start();
+        try {
+            boolean saved = saveAll(Collections.singletonList(order));
+            if (!saved) {
+                SAVE.error();
+            }
+            return saved;
+        } finally {
+            SAVE.stop(start);
+        }
+    }
+
+    /**
+     * Saves several new orders and their ordered items in one transaction.
+     * Order rows and order lines are each sent through a single reused statement
+     * using JDBC batching; if anything fails, none of the orders are saved.
+     *
+     * @param orders the Orders to save
+     * @return true if all orders were successfully saved, false otherwise
+     */
+
+    public boolean saveAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return true;
+        }
+
+        long start = SAVE_ALL.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
 
-            // Insert into orders table
             PreparedStatement orderStmt = conn.prepareStatement(
                     "INSERT INTO orders (supplier_id, order_date, status) VALUES (?, CURRENT_DATE, ?)",
                     Statement.RETURN_GENERATED_KEYS
             );
-            orderStmt.setInt(1, order.getSupplier().getSupplierId());
-            orderStmt.setString(2, order.getStatus());
+            PreparedStatement itemStmt = conn.prepareStatement(
+                    "INSERT INTO order_items (order_id, product_id, quantity) VALUES (?, ?, ?)"
+            );
 
-            int affectedRows = orderStmt.executeUpdate();
+            for (int from = 0; from < orders.size(); from += BATCH_SIZE) {
+                List<Order> chunk = orders.subList(from, Math.min(from + BATCH_SIZE, orders.size()));
 
-            if (affectedRows == 0) {
-                throw new SQLException("Creating order failed, no rows affected.");
-            }
-
-            ResultSet generatedKeys = orderStmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                int orderId = generatedKeys.getInt(1);
-
-                // Save each order item
-                for (InventoryItem item : order.getOrderedItems()) {
-                    PreparedStatement itemStmt = conn.prepareStatement(
-                            "INSERT INTO order_items (order_id, product_id, quantity) VALUES (?, ?, ?)"
-                    );
-                    itemStmt.setInt(1, orderId);
-                    itemStmt.setInt(2, item.getProduct().getId());
-                    itemStmt.setInt(3, item.getCurrentStock());
-                    itemStmt.executeUpdate();
+                // Insert the order rows and collect their generated IDs in order
+                for (Order order : chunk) {
+                    orderStmt.setInt(1, order.getSupplier().getSupplierId());
+                    orderStmt.setString(2, order.getStatus());
+                    orderStmt.addBatch();
+                }
+                orderStmt.executeBatch();
+
+                ResultSet generatedKeys = orderStmt.getGeneratedKeys();
+                int pendingItems = 0;
+                for (Order order : chunk) {
+                    if (!generatedKeys.next()) {
+                        throw new SQLException("Creating order failed, no ID obtained.");
+                    }
+                    int orderId = generatedKeys.getInt(1);
+
+                    for (InventoryItem item : order.getOrderedItems()) {
+                        itemStmt.setInt(1, orderId);
+                        itemStmt.setInt(2, item.getProduct().getId());
+                        itemStmt.setInt(3, item.getCurrentStock());
+                        itemStmt.addBatch();
+
+                        if (++pendingItems == BATCH_SIZE) {
+                            itemStmt.executeBatch();
+                            pendingItems = 0;
+                        }
+                    }
+                }
+                if (pendingItems > 0) {
+                    itemStmt.executeBatch();
                 }
             }
+
+            conn.commit();
             return true;
 
         } catch (SQLException e) {
+            SAVE_ALL.error();
+            DbUtil.rollbackQuietly(conn);
             System.err.println("Error saving order: " + e.getMessage());
             return false;
         } finally {
             DbUtil.closeQuietly(conn);
+            SAVE_ALL.stop(start);
         }
     }
 
+    /**
+     * Selects orders together with their supplier and ordered lines.
+     * Each order appears once per line (or once with NULL line columns if it has none);
+     * queries must order by order ID so that all rows of an order are adjacent.
+     */
+    private static final String ORDER_COLUMNS = """
+            SELECT o.order_id, o.order_date, o.status, o.version,
+                   s.supplier_id, s.name AS supplier_name, s.contact_email, s.phone,
+                   oi.quantity, p.id AS product_id, p.name AS product_name,
+                   p.sku, p.category, p.price, p.description
+            """;
+
+    private static final String ORDER_JOINS = """
+             LEFT JOIN suppliers s ON o.supplier_id = s.supplier_id
+             LEFT JOIN order_items oi ON oi.order_id = o.order_id
+             LEFT JOIN products p ON oi.product_id = p.id
+            """;
+
+    private static final Map<String, String> SORT_KEYS = Map.of(
+            "date", "COALESCE(o.order_date, DATE '1970-01-01')",
+            "status", "COALESCE(o.status, '')"
+    );
+
     /**
      * Retrieves all orders from the database, including their ordered items.
+     * The whole order graph is loaded with a single joined query.
      *
      * @return a list of all Orders
      */
 
     public List<Order> findAll() {
         List<Order> orders = new ArrayList<>();
+        long start = FIND_ALL.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT * FROM orders");
-
-            while (rs.next()) {
-                int orderId = rs.getInt("order_id");
-                int supplierId = rs.getInt("supplier_id");
-                Date orderDate = rs.getDate("order_date");
-                String status = rs.getString("status");
-
-                Supplier supplier = supplierDAO.findById(supplierId);
+            PreparedStatement stmt = conn.prepareStatement(
+                    ORDER_COLUMNS + " FROM orders o" + ORDER_JOINS + " ORDER BY o.order_id, oi.id"
+            );
+            orders = readOrders(stmt.executeQuery());
 
-                Order order = new Order(orderId, supplier);
-                order.setStatus(status);
-                order.setOrderDate(orderDate);
+        } catch (SQLException e) {
+            FIND_ALL.error();
+            System.err.println("Error finding all orders: " + e.getMessage());
+        } finally {
+            DbUtil.closeQuietly(conn);
+            FIND_ALL.stop(start);
+        }
+        return orders;
+    }
 
-                // Load ordered items
-                List<InventoryItem> items = loadOrderItems(orderId);
-                for (InventoryItem item : items) {
-                    order.addItem(item);
-                }
+    /**
+     * Streams the orders after the given ID, with their suppliers and lines, through a
+     * forward-only cursor with H2's lazy execution enabled. Each order is handed to the
+     * action as soon as its last line has been read, so only one order is held at a time.
+     *
+     * @param afterId only orders with a larger ID are read; 0 reads all
+     * @param action  called once per order, in ID order
+     * @return true if every row was read, false if the query failed part way
+     */
 
-                orders.add(order);
-            }
+    public boolean forEachOrder(int afterId, Consumer<Order> action) {
+        long start = FOR_EACH_ORDER.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            InventoryItemDAOImpl.setLazyExecution(conn, true);
+            PreparedStatement stmt = conn.prepareStatement(
+                    ORDER_COLUMNS + " FROM orders o" + ORDER_JOINS + " WHERE o.order_id > ? ORDER BY o.order_id, oi.id"
+            );
+            stmt.setInt(1, afterId);
+            stmt.setFetchSize(InventoryItemDAOImpl.STREAM_FETCH_SIZE);
 
+            ResultSet rs = stmt.executeQuery();
+            readOrders(rs, action);
+            rs.close();
+            return true;
         } catch (SQLException e) {
-            System.err.println("Error finding all orders: " + e.getMessage());
+            FOR_EACH_ORDER.error();
+            System.err.println("Error streaming orders: " + e.getMessage());
+            return false;
         } finally {
+            InventoryItemDAOImpl.setLazyExecution(conn, false);
             DbUtil.closeQuietly(conn);
+            FOR_EACH_ORDER.stop(start);
         }
-        return orders;
     }
 
     /**
@@ -122,104 +236,222 @@ public class OrderDAOImpl {
      */
 
     public Order findById(int orderId) {
+        long start = FIND_BY_ID.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
-            PreparedStatement stmt = conn.prepareStatement("SELECT * FROM orders WHERE order_id = ?");
+            PreparedStatement stmt = conn.prepareStatement(
+                    ORDER_COLUMNS + " FROM orders o" + ORDER_JOINS + " WHERE o.order_id = ? ORDER BY oi.id"
+            );
             stmt.setInt(1, orderId);
 
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                int supplierId = rs.getInt("supplier_id");
-                Date orderDate = rs.getDate("order_date");
-                String status = rs.getString("status");
-
-                Supplier supplier = supplierDAO.findById(supplierId);
-
-                Order order = new Order(orderId, supplier);
-                order.setStatus(status);
-                order.setOrderDate(orderDate);
-
-                List<InventoryItem> items = loadOrderItems(orderId);
-                for (InventoryItem item : items) {
-                    order.addItem(item);
-                }
-
-                return order;
+            List<Order> orders = readOrders(stmt.executeQuery());
+            if (!orders.isEmpty()) {
+                return orders.get(0);
             }
         } catch (SQLException e) {
+            FIND_BY_ID.error();
             System.err.println("Error finding order by ID: " + e.getMessage());
         } finally {
             DbUtil.closeQuietly(conn);
+            FIND_BY_ID.stop(start);
         }
         return null;
     }
 
     /**
-     * Updates the status of an existing order.
+     * Retrieves one page of orders with their suppliers and lines.
+     * The page of order rows is selected first and then joined to its lines,
+     * so the limit counts orders rather than order lines.
+     *
+     * @param afterId  the ID of the last order on the previous page, or 0 for the first page
+     * @param pageSize the maximum number of orders to return
+     * @param sortKey  the sort key, or null to sort by ID
+     * @return the page of orders
+     */
+
+    public Page<Order> findPage(int afterId, int pageSize, String sortKey) {
+        int size = Page.clampSize(pageSize);
+        String sort = Keyset.sortExpression(SORT_KEYS, sortKey, "o.order_id");
+        boolean byId = sort.equals("o.order_id");
+        List<Order> orders = new ArrayList<>();
+        long start = FIND_PAGE.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            String pageOfOrders = Keyset.pageSql("SELECT o.*", "orders o", "o.order_id", sort, afterId > 0);
+            PreparedStatement stmt = conn.prepareStatement(
+                    ORDER_COLUMNS + " FROM (" + pageOfOrders + ") o" + ORDER_JOINS
+                            + " ORDER BY " + (byId ? "" : sort + ", ") + "o.order_id, oi.id"
+            );
+            Keyset.bind(stmt, afterId, byId, size + 1);
+            orders = readOrders(stmt.executeQuery());
+
+        } catch (SQLException e) {
+            FIND_PAGE.error();
+            System.err.println("Error finding order page: " + e.getMessage());
+        } finally {
+            DbUtil.closeQuietly(conn);
+            FIND_PAGE.stop(start);
+        }
+        return Keyset.page(orders, size, Order::getOrderId);
+    }
+
+    /**
+     * Updates the status of an existing order if the row still has the order's version,
+     * and increments the version. On success the order is given the new version.
      *
-     * @param order the Order object with updated information
-     * @return true if the update was successful, false otherwise
+     * @param order the Order as read, with its new status
+     * @return {@code UPDATED}, {@code CONFLICT} if the order changed since it was read,
+     * {@code NOT_FOUND}, or {@code FAILED}
      */
 
-    public boolean update(Order order) {
+    public UpdateResult update(Order order) {
+        long start = UPDATE.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
             PreparedStatement stmt = conn.prepareStatement(
-                    "UPDATE orders SET status = ? WHERE order_id = ?"
+                    "UPDATE orders SET status = ?, version = version + 1 WHERE order_id = ? AND version = ?"
             );
             stmt.setString(1, order.getStatus());
             stmt.setInt(2, order.getOrderId());
+            stmt.setLong(3, order.getVersion());
 
-            int rowsUpdated = stmt.executeUpdate();
-            return rowsUpdated > 0;
+            if (stmt.executeUpdate() == 0) {
+                return Versions.missed(conn, "orders", "order_id", order.getOrderId());
+            }
+            order.setVersion(order.getVersion() + 1);
+            return UpdateResult.UPDATED;
 
         } catch (SQLException e) {
+            UPDATE.error();
             System.err.println("Error updating order: " + e.getMessage());
-            return false;
+            return UpdateResult.FAILED;
         } finally {
             DbUtil.closeQuietly(conn);
+            UPDATE.stop(start);
         }
     }
 
     /**
-     * Loads the ordered items associated with a specific order ID.
+     * Completes a pending order and adds its ordered quantities to stock in one transaction.
+     * The status only changes while the order is still pending, so completing it twice, for
+     * example on a double submit, receives the stock once. The stock of all lines is added
+     * with a single statement by the inventory DAO, which records it according to its stock mode.
+     * The inventory DAO's locks for the order are taken before the transaction starts.
      *
-     * @param orderId the ID of the order
-     * @return a list of InventoryItems for the order
+     * @param orderId   the ID of the order
+     * @param inventory the inventory DAO that receives the stock
+     * @return true if the order was completed, false if it was not pending or the update failed
      */
 
-    private List<InventoryItem> loadOrderItems(int orderId) {
-        List<InventoryItem> items = new ArrayList<>();
+    public boolean complete(int orderId, InventoryItemDAOImpl inventory) {
+        long start = COMPLETE.start();
+        InventoryItemDAOImpl.OrderLocks locks = null;
         Connection conn = null;
         try {
+            locks = inventory.lockOrder(orderId);
             conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
+
             PreparedStatement stmt = conn.prepareStatement(
-                    "SELECT oi.quantity, p.* FROM order_items oi JOIN products p ON oi.product_id = p.id WHERE oi.order_id = ?"
+                    "UPDATE orders SET status = 'Completed', version = version + 1 WHERE order_id = ? AND status = 'Pending'"
             );
             stmt.setInt(1, orderId);
-
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                int productId = rs.getInt("id");
-                String name = rs.getString("name");
-                String sku = rs.getString("sku");
-                String category = rs.getString("category");
-                double price = rs.getDouble("price");
-                String description = rs.getString("description");
-                int quantity = rs.getInt("quantity");
-
-                Product product = new Product(productId, name, sku, category, price, description);
-                InventoryItem item = new InventoryItem(product, quantity, "Ordering");
-
-                items.add(item);
+            if (stmt.executeUpdate() == 0) {
+                conn.rollback();
+                return false;
             }
+
+            inventory.receiveOrder(conn, orderId);
+            return true;
         } catch (SQLException e) {
-            System.err.println("Error loading ordered items: " + e.getMessage());
+            COMPLETE.error();
+            DbUtil.rollbackQuietly(conn);
+            System.err.println("Error completing order: " + e.getMessage());
+            return false;
         } finally {
             DbUtil.closeQuietly(conn);
+            if (locks != null) {
+                locks.close();
+            }
+            COMPLETE.stop(start);
+        }
+    }
+
+    /**
+     * Assembles orders from rows selected with {@link #ORDER_COLUMNS}.
+     * Rows must be grouped by order; suppliers shared by several orders are built once.
+     *
+     * @param rs the joined result set
+     * @return the orders in result set order
+     * @throws SQLException if reading the result set fails
+     */
+
+    private List<Order> readOrders(ResultSet rs) throws SQLException {
+        List<Order> orders = new ArrayList<>();
+        readOrders(rs, orders::add);
+        return orders;
+    }
+
+    /**
+     * Assembles orders from rows selected with {@link #ORDER_COLUMNS}, handing each one
+     * to the action once all of its rows have been read.
+     *
+     * @param rs     the joined result set, grouped by order
+     * @param action called once per order, in result set order
+     * @throws SQLException if reading the result set fails
+     */
+
+    private void readOrders(ResultSet rs, Consumer<Order> action) throws SQLException {
+        Map<Integer, Supplier> suppliers = new HashMap<>();
+        Order current = null;
+
+        while (rs.next()) {
+            int orderId = rs.getInt("order_id");
+
+            if (current == null || current.getOrderId() != orderId) {
+                Supplier supplier = null;
+                int supplierId = rs.getInt("supplier_id");
+                if (!rs.wasNull()) {
+                    supplier = suppliers.get(supplierId);
+                    if (supplier == null) {
+                        supplier = new Supplier(
+                                supplierId,
+                                rs.getString("supplier_name"),
+                                rs.getString("contact_email"),
+                                rs.getString("phone")
+                        );
+                        suppliers.put(supplierId, supplier);
+                    }
+                }
+
+                if (current != null) {
+                    action.accept(current);
+                }
+                current = new Order(orderId, supplier);
+                current.setStatus(rs.getString("status"));
+                current.setOrderDate(rs.getDate("order_date"));
+                current.setVersion(rs.getLong("version"));
+            }
+
+            // Orders without lines come back with NULL product columns
+            int productId = rs.getInt("product_id");
+            if (!rs.wasNull()) {
+                Product product = new Product(
+                        productId,
+                        rs.getString("product_name"),
+                        rs.getString("sku"),
+                        rs.getString("category"),
+                        rs.getDouble("price"),
+                        rs.getString("description")
+                );
+                current.addItem(new InventoryItem(product, rs.getInt("quantity"), "Ordering"));
+            }
+        }
+        if (current != null) {
+            action.accept(current);
         }
-        return items;
     }
 }
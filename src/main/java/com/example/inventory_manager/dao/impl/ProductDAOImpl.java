@@ -1,12 +1,20 @@
 package com.example.inventory_manager.dao.impl;
 
+import com.example.inventory_manager.cache.InventoryAggregates;
+import com.example.inventory_manager.dao.Page;
 import com.example.inventory_manager.dao.ProductDAO;
+import com.example.inventory_manager.dao.UpdateResult;
 import com.example.inventory_manager.db.DbUtil;
+import com.example.inventory_manager.metrics.MethodTimer;
+import com.example.inventory_manager.metrics.MetricsRegistry;
 import com.example.inventory_manager.model.Product;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Implementation for handling Product-related database operations.
@@ -14,6 +22,67 @@ import java.util.List;
 
 public class ProductDAOImpl implements ProductDAO {
 
+    private static final MethodTimer FIND_BY_SKU = MetricsRegistry.daoTimer(ProductDAOImpl.class, "findBySku");
+    private static final MethodTimer FIND_BY_ID = MetricsRegistry.daoTimer(ProductDAOImpl.class, "findById");
+    private static final MethodTimer DELETE_BY_ID = MetricsRegistry.daoTimer(ProductDAOImpl.class, "deleteById");
+    private static final MethodTimer FIND_ALL = MetricsRegistry.daoTimer(ProductDAOImpl.class, "findAll");
+    private static final MethodTimer FOR_EACH_PRODUCT = MetricsRegistry.daoTimer(ProductDAOImpl.class, "forEachProduct");
+    private static final MethodTimer FIND_PAGE = MetricsRegistry.daoTimer(ProductDAOImpl.class, "findPage");
+    private static final MethodTimer SAVE = MetricsRegistry.daoTimer(ProductDAOImpl.class, "save");
+    private static final MethodTimer SAVE_ALL = MetricsRegistry.daoTimer(ProductDAOImpl.class, "saveAll");
+    private static final MethodTimer UPDATE = MetricsRegistry.daoTimer(ProductDAOImpl.class, "update");
+    private static final MethodTimer DELETE = MetricsRegistry.daoTimer(ProductDAOImpl.class, "delete");
+
+    /**
+     * Number of rows sent per executeBatch call when saving many products.
+     */
+    static final int BATCH_SIZE = 500;
+
+    /**
+     * Inserts a product or updates the product with the same SKU, incrementing its version.
+     * Parameters are bound by {@link #bindMerge(PreparedStatement, Product)}.
+     */
+    static final String MERGE_BY_SKU = """
+            MERGE INTO products t
+            USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(100)), CAST(? AS VARCHAR(100)),
+                           CAST(? AS DOUBLE), CAST(? AS VARCHAR(500)))) s(name, sku, category, price, description)
+            ON t.sku = s.sku
+            WHEN MATCHED THEN
+                UPDATE SET name = s.name, category = s.category, price = s.price,
+                           description = s.description, version = t.version + 1
+            WHEN NOT MATCHED THEN
+                INSERT (name, sku, category, price, description)
+                VALUES (s.name, s.sku, s.category, s.price, s.description)
+            """;
+
+    /**
+     * Updates a product by ID if its version is unchanged, incrementing the version, and
+     * returns its previous category and price for the inventory summary.
+     * Parameters: name, SKU, category, price, description, ID, expected version.
+     */
+    private static final String COMPARE_AND_SET = """
+            SELECT o.category, o.price FROM OLD TABLE (
+                UPDATE products SET name = ?, sku = ?, category = ?, price = ?, description = ?,
+                                    version = version + 1
+                WHERE id = ? AND version = ?
+            ) o
+            """;
+
+    /**
+     * Deletes products and returns their categories for the inventory summary.
+     * Format with the key column; the parameter is its value. Must run in a transaction:
+     * H2 does not undo a delete inside a query that fails, for example on a foreign key.
+     */
+    private static final String DELETE_RETURNING =
+            "SELECT category FROM OLD TABLE (DELETE FROM products WHERE %s = ?)";
+
+    private static final Map<String, String> SORT_KEYS = Map.of(
+            "name", "COALESCE(name, '')",
+            "sku", "sku",
+            "category", "COALESCE(category, '')",
+            "price", "COALESCE(price, 0)"
+    );
+
     /**
      * Finds a product in the database by its SKU.
      *
@@ -23,6 +92,7 @@ public class ProductDAOImpl implements ProductDAO {
 
     @Override
     public Product findBySku(String sku) {
+        long start = FIND_BY_SKU.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
@@ -31,18 +101,47 @@ public class ProductDAOImpl implements ProductDAO {
 
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                String name = rs.getString("name");
-                String category = rs.getString("category");
-                double price = rs.getDouble("price");
-                String description = rs.getString("description");
-                return new Product(rs.getInt("id"), name, sku, category, price, description);
+                return readProduct(rs);
             }
             return null;
         } catch (SQLException e) {
+            FIND_BY_SKU.error();
             System.err.println("Error finding product: " + e.getMessage());
             return null;
         } finally {
             DbUtil.closeQuietly(conn);
+            FIND_BY_SKU.stop(start);
+        }
+    }
+
+    /**
+     * Finds a product in the database by its ID.
+     *
+     * @param id the product ID
+     * @return the matching Product or null if not found
+     */
+
+    @Override
+    public Product findById(int id) {
+        long start = FIND_BY_ID.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement("SELECT * FROM products WHERE id = ?");
+            stmt.setInt(1, id);
+
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return readProduct(rs);
+            }
+            return null;
+        } catch (SQLException e) {
+            FIND_BY_ID.error();
+            System.err.println("Error finding product by ID: " + e.getMessage());
+            return null;
+        } finally {
+            DbUtil.closeQuietly(conn);
+            FIND_BY_ID.stop(start);
         }
     }
 
@@ -54,18 +153,30 @@ public class ProductDAOImpl implements ProductDAO {
      */
 
     public boolean deleteById(int id) {
+        long start = DELETE_BY_ID.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
-            PreparedStatement stmt = conn.prepareStatement("DELETE FROM products WHERE id = ?");
+            conn.setAutoCommit(false);
+            PreparedStatement stmt = conn.prepareStatement(String.format(DELETE_RETURNING, "id"));
             stmt.setInt(1, id);
-            int rows = stmt.executeUpdate();
-            return rows > 0;
+            List<String> categories = readCategories(stmt.executeQuery());
+            InventorySummaryDAO.beginChange();
+            try {
+                conn.commit();
+                categories.forEach(InventorySummaryDAO.aggregates()::productRemoved);
+            } finally {
+                InventorySummaryDAO.endChange();
+            }
+            return !categories.isEmpty();
         } catch (SQLException e) {
+            DELETE_BY_ID.error();
+            DbUtil.rollbackQuietly(conn);
             System.err.println("Error deleting product: " + e.getMessage());
             return false;
         } finally {
             DbUtil.closeQuietly(conn);
+            DELETE_BY_ID.stop(start);
         }
     }
 
@@ -78,6 +189,7 @@ public class ProductDAOImpl implements ProductDAO {
     @Override
     public List<Product> findAll() {
         List<Product> products = new ArrayList<>();
+        long start = FIND_ALL.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
@@ -85,72 +197,341 @@ public class ProductDAOImpl implements ProductDAO {
             ResultSet rs = stmt.executeQuery("SELECT * FROM products");
 
             while (rs.next()) {
-                products.add(new Product(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("sku"),
-                        rs.getString("category"),
-                        rs.getDouble("price"),
-                        rs.getString("description")
-                ));
+                products.add(readProduct(rs));
             }
         } catch (SQLException e) {
+            FIND_ALL.error();
             System.err.println("Error finding all products: " + e.getMessage());
         } finally {
             DbUtil.closeQuietly(conn);
+            FIND_ALL.stop(start);
         }
         return products;
     }
 
+    /**
+     * Streams the products after the given ID to the given action through a forward-only
+     * cursor, with H2's lazy execution enabled so rows are produced as they are read.
+     *
+     * @param afterId only products with a larger ID are read; 0 reads all
+     * @param action  called once per product, in ID order
+     * @return true if every row was read, false if the query failed part way
+     */
+
+    @Override
+    public boolean forEachProduct(int afterId, Consumer<Product> action) {
+        long start = FOR_EACH_PRODUCT.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            InventoryItemDAOImpl.setLazyExecution(conn, true);
+            PreparedStatement stmt = conn.prepareStatement("SELECT * FROM products WHERE id > ? ORDER BY id");
+            stmt.setInt(1, afterId);
+            stmt.setFetchSize(InventoryItemDAOImpl.STREAM_FETCH_SIZE);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                action.accept(readProduct(rs));
+            }
+            rs.close();
+            return true;
+        } catch (SQLException e) {
+            FOR_EACH_PRODUCT.error();
+            System.err.println("Error streaming products: " + e.getMessage());
+            return false;
+        } finally {
+            InventoryItemDAOImpl.setLazyExecution(conn, false);
+            DbUtil.closeQuietly(conn);
+            FOR_EACH_PRODUCT.stop(start);
+        }
+    }
+
+    /**
+     * Retrieves one page of products, continuing after the given product ID.
+     *
+     * @param afterId  the ID of the last product on the previous page, or 0 for the first page
+     * @param pageSize the maximum number of products to return
+     * @param sortKey  the sort key, or null to sort by ID
+     * @return the page of products
+     */
+
+    @Override
+    public Page<Product> findPage(int afterId, int pageSize, String sortKey) {
+        int size = Page.clampSize(pageSize);
+        String sort = Keyset.sortExpression(SORT_KEYS, sortKey, "id");
+        List<Product> products = new ArrayList<>();
+        long start = FIND_PAGE.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(
+                    Keyset.pageSql("SELECT *", "products", "id", sort, afterId > 0)
+            );
+            Keyset.bind(stmt, afterId, sort.equals("id"), size + 1);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                products.add(readProduct(rs));
+            }
+        } catch (SQLException e) {
+            FIND_PAGE.error();
+            System.err.println("Error finding product page: " + e.getMessage());
+        } finally {
+            DbUtil.closeQuietly(conn);
+            FIND_PAGE.stop(start);
+        }
+        return Keyset.page(products, size, Product::getId);
+    }
+
+    private static Product readProduct(ResultSet rs) throws SQLException {
+        Product product = new Product(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getString("sku"),
+                rs.getString("category"),
+                rs.getDouble("price"),
+                rs.getString("description")
+        );
+        product.setVersion(rs.getLong("version"));
+        return product;
+    }
+
     /**
      * Saves a new product or updates an existing product in the database.
+     * Runs as a MERGE keyed on the SKU, overwriting an existing product whatever its version
+     * (the version is incremented), in a transaction that first reads the previous
+     * category and price so the inventory summary can move the product's stock if they change.
      *
      * @param product the Product to save or update
-     * @return true if the save or update was successful, false otherwise
+     * @return the ID of the inserted or updated product, or -1 if the save failed
      */
 
     @Override
-    public boolean save(Product product) {
+    public int save(Product product) {
+        long start = SAVE.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
 
-            // Check if product exists
-            PreparedStatement checkStmt = conn.prepareStatement("SELECT COUNT(*) FROM products WHERE sku = ?");
-            checkStmt.setString(1, product.getSku());
-            ResultSet rs = checkStmt.executeQuery();
-            rs.next();
-            int count = rs.getInt(1);
-
-            PreparedStatement stmt;
-            if (count > 0) {
-                // Update
-                stmt = conn.prepareStatement("UPDATE products SET name=?, category=?, price=?, description=? WHERE sku=?");
-                stmt.setString(1, product.getName());
-                stmt.setString(2, product.getCategory());
-                stmt.setDouble(3, product.getPrice());
-                stmt.setString(4, product.getDescription());
-                stmt.setString(5, product.getSku());
-            } else {
-                // Insert
-                stmt = conn.prepareStatement("INSERT INTO products (name, sku, category, price, description) VALUES (?, ?, ?, ?, ?)");
-                stmt.setString(1, product.getName());
-                stmt.setString(2, product.getSku());
-                stmt.setString(3, product.getCategory());
-                stmt.setDouble(4, product.getPrice());
-                stmt.setString(5, product.getDescription());
+            PreparedStatement current = conn.prepareStatement(
+                    "SELECT category, price FROM products WHERE sku = ? FOR UPDATE");
+            current.setString(1, product.getSku());
+            ResultSet old = current.executeQuery();
+            boolean exists = old.next();
+            String oldCategory = exists ? old.getString(1) : null;
+            double oldPrice = exists ? old.getDouble(2) : 0;
+
+            PreparedStatement stmt = conn.prepareStatement("SELECT id FROM FINAL TABLE (" + MERGE_BY_SKU + ")");
+            bindMerge(stmt, product);
+
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                conn.rollback();
+                return -1;
             }
+            int id = rs.getInt(1);
 
-            int result = stmt.executeUpdate();
-            return result > 0;
+            if (exists) {
+                commitChanged(conn, id, oldCategory, oldPrice, product, null);
+            } else {
+                InventorySummaryDAO.beginChange();
+                try {
+                    conn.commit();
+                    InventorySummaryDAO.aggregates().productAdded(product.getCategory());
+                } finally {
+                    InventorySummaryDAO.endChange();
+                }
+            }
+            return id;
         } catch (SQLException e) {
+            SAVE.error();
+            DbUtil.rollbackQuietly(conn);
             System.err.println("Error saving product: " + e.getMessage());
+            return -1;
+        } finally {
+            DbUtil.closeQuietly(conn);
+            SAVE.stop(start);
+        }
+    }
+
+    /**
+     * Updates a product, identified by its ID, if the row still has the product's version,
+     * and increments the version. On success the product is given the new version.
+     * The SKU may change as long as it stays unique.
+     *
+     * @param product the product as read, with its new values
+     * @return {@code UPDATED}, {@code CONFLICT} if the row changed since it was read,
+     * {@code NOT_FOUND}, or {@code FAILED}, for example on a duplicate SKU
+     */
+
+    @Override
+    public UpdateResult update(Product product) {
+        return update(product, null);
+    }
+
+    /**
+     * Updates a product as {@link #update(Product)} does and runs a stock edit in the same
+     * transaction, so both are applied or neither is. Used to edit a product together with
+     * one of its inventory rows.
+     *
+     * @param product the product as read, with its new values
+     * @param edit    the stock edit to run before the commit, or null for none
+     * @return the product's outcome if it was not updated, otherwise the edit's
+     */
+    UpdateResult update(Product product, StockEdit edit) {
+        long start = UPDATE.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
+            PreparedStatement stmt = conn.prepareStatement(COMPARE_AND_SET);
+            bindMerge(stmt, product);
+            stmt.setInt(6, product.getId());
+            stmt.setLong(7, product.getVersion());
+
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                UpdateResult result = Versions.missed(conn, "products", "id", product.getId());
+                conn.rollback();
+                return result;
+            }
+            UpdateResult result = commitChanged(conn, product.getId(), rs.getString(1), rs.getDouble(2), product, edit);
+            if (result == UpdateResult.UPDATED) {
+                product.setVersion(product.getVersion() + 1);
+            }
+            return result;
+        } catch (SQLException e) {
+            UPDATE.error();
+            DbUtil.rollbackQuietly(conn);
+            System.err.println("Error updating product: " + e.getMessage());
+            return UpdateResult.FAILED;
+        } finally {
+            DbUtil.closeQuietly(conn);
+            UPDATE.stop(start);
+        }
+    }
+
+    /**
+     * Commits a change to an existing product, after running the stock edit if there is one.
+     * A new category or price moves the product's stock to another total in the inventory
+     * summary, so its inventory rows are read first, with other stock changes held off until
+     * the commit: a change that read the old category or price is either committed and
+     * counted in the quantities read, or has not started. The edit runs after that read, so
+     * its own change is booked under the new category and price.
+     */
+    private static UpdateResult commitChanged(Connection conn, int id, String oldCategory, double oldPrice,
+                                              Product product, StockEdit edit) throws SQLException {
+        InventoryAggregates aggregates = InventorySummaryDAO.aggregates();
+        boolean regrouped = !Objects.equals(oldCategory, product.getCategory())
+                || InventoryAggregates.cents(oldPrice) != InventoryAggregates.cents(product.getPrice());
+        if (regrouped) {
+            InventorySummaryDAO.beginRegroup();
+        } else {
+            InventorySummaryDAO.beginChange();
+        }
+        try {
+            List<InventoryAggregates.StockChange> changes = new ArrayList<>();
+            if (regrouped) {
+                PreparedStatement items = conn.prepareStatement(
+                        "SELECT quantity, location FROM inventory_items WHERE product_id = ?");
+                items.setInt(1, id);
+                ResultSet rows = items.executeQuery();
+                while (rows.next()) {
+                    changes.add(new InventoryAggregates.StockChange(oldCategory, oldPrice, rows.getString(2),
+                            rows.getInt(1), 0));
+                    changes.add(new InventoryAggregates.StockChange(product.getCategory(), product.getPrice(),
+                            rows.getString(2), 0, rows.getInt(1)));
+                }
+            }
+            if (edit != null) {
+                UpdateResult result = edit.apply(conn, changes);
+                if (result != UpdateResult.UPDATED) {
+                    conn.rollback();
+                    return result;
+                }
+            }
+            conn.commit();
+            if (regrouped) {
+                aggregates.productRemoved(oldCategory);
+                aggregates.productAdded(product.getCategory());
+            }
+            aggregates.apply(changes);
+            return UpdateResult.UPDATED;
+        } finally {
+            if (regrouped) {
+                InventorySummaryDAO.endRegroup();
+            } else {
+                InventorySummaryDAO.endChange();
+            }
+        }
+    }
+
+    /**
+     * Saves many products in one transaction.
+     * Products are merged by SKU through a single reused statement using JDBC batching;
+     * if anything fails, none of the products are saved.
+     *
+     * @param products the products to save
+     * @return true if all products were saved, false otherwise
+     */
+
+    @Override
+    public boolean saveAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return true;
+        }
+
+        long start = SAVE_ALL.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            conn.setAutoCommit(false);
+
+            PreparedStatement stmt = conn.prepareStatement(MERGE_BY_SKU);
+            int pending = 0;
+            for (Product product : products) {
+                bindMerge(stmt, product);
+                stmt.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    stmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                stmt.executeBatch();
+            }
+
+            conn.commit();
+            // Bulk saves are folded into the summary by a rebuild rather than row by row
+            InventorySummaryDAO.requestRebuild();
+            return true;
+        } catch (SQLException e) {
+            SAVE_ALL.error();
+            DbUtil.rollbackQuietly(conn);
+            System.err.println("Error saving products: " + e.getMessage());
             return false;
         } finally {
             DbUtil.closeQuietly(conn);
+            SAVE_ALL.stop(start);
         }
     }
 
+    /**
+     * Binds a product to the parameters of {@link #MERGE_BY_SKU}.
+     *
+     * @param stmt    a statement prepared from {@link #MERGE_BY_SKU}
+     * @param product the product to bind
+     * @throws SQLException if binding fails
+     */
+    static void bindMerge(PreparedStatement stmt, Product product) throws SQLException {
+        stmt.setString(1, product.getName());
+        stmt.setString(2, product.getSku());
+        stmt.setString(3, product.getCategory());
+        stmt.setDouble(4, product.getPrice());
+        stmt.setString(5, product.getDescription());
+    }
+
     /**
      * Deletes a product from the database using its SKU.
      *
@@ -160,18 +541,58 @@ public class ProductDAOImpl implements ProductDAO {
 
     @Override
     public boolean delete(String sku) {
+        long start = DELETE.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
-            PreparedStatement stmt = conn.prepareStatement("DELETE FROM products WHERE sku = ?");
+            conn.setAutoCommit(false);
+            PreparedStatement stmt = conn.prepareStatement(String.format(DELETE_RETURNING, "sku"));
             stmt.setString(1, sku);
-            int result = stmt.executeUpdate();
-            return result > 0;
+            List<String> categories = readCategories(stmt.executeQuery());
+            InventorySummaryDAO.beginChange();
+            try {
+                conn.commit();
+                categories.forEach(InventorySummaryDAO.aggregates()::productRemoved);
+            } finally {
+                InventorySummaryDAO.endChange();
+            }
+            return !categories.isEmpty();
         } catch (SQLException e) {
+            DELETE.error();
+            DbUtil.rollbackQuietly(conn);
             System.err.println("Error deleting product: " + e.getMessage());
             return false;
         } finally {
             DbUtil.closeQuietly(conn);
+            DELETE.stop(start);
         }
     }
+
+    /**
+     * Reads the categories returned by a {@link #DELETE_RETURNING} query.
+     */
+    private static List<String> readCategories(ResultSet rs) throws SQLException {
+        List<String> categories = new ArrayList<>();
+        while (rs.next()) {
+            categories.add(rs.getString(1));
+        }
+        return categories;
+    }
+
+    /**
+     * A stock change made in the transaction of a product update, after the product row is
+     * updated and before the commit.
+     */
+    @FunctionalInterface
+    interface StockEdit {
+        /**
+         * Runs the edit.
+         *
+         * @param conn    the connection holding the product update's transaction
+         * @param changes receives the changes to apply to the inventory summary after the commit
+         * @return {@code UPDATED} to commit, anything else to roll the product update back as well
+         * @throws SQLException if the edit fails; the product update is then rolled back
+         */
+        UpdateResult apply(Connection conn, List<InventoryAggregates.StockChange> changes) throws SQLException;
+    }
 }
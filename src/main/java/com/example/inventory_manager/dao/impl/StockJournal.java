@@ -0,0 +1,215 @@
+package com.example.inventory_manager.dao.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of buffered stock adjustments, used by
+ * {@link WriteBehindInventoryItemDAO} in {@code SYNC_JOURNAL} mode.
+ * Each accepted adjustment is written as a {@code productId delta} line and forced to
+ * disk before it is acknowledged. The journal is split into numbered segments: a flush
+ * seals the current segment, commits the number of the newest sealed segment together
+ * with the deltas, and then deletes the sealed segments. Segments left over after a crash
+ * that are newer than the committed number hold deltas that did not reach the database
+ * and are replayed on the next start; older ones were committed and are only deleted.
+ */
+final class StockJournal {
+
+    private static final String PREFIX = "stock-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private long sequence;
+    private FileChannel channel;
+    private Path current;
+
+    /**
+     * Opens a journal in the given directory, starting a new segment after any existing ones
+     * and after the committed segment, so a new segment is never mistaken for a committed one.
+     *
+     * @param directory        the journal directory, created if missing
+     * @param committedSegment the newest segment whose deltas are known to be committed
+     * @throws IOException if the directory or segment cannot be created
+     */
+    StockJournal(Path directory, long committedSegment) throws IOException {
+        this.directory = directory;
+        this.sequence = committedSegment;
+        Files.createDirectories(directory);
+        for (Path segment : segments(directory)) {
+            sequence = Math.max(sequence, sequenceOf(segment));
+        }
+        openSegment();
+    }
+
+    /**
+     * Appends one adjustment and forces it to disk.
+     *
+     * @param productId the product ID
+     * @param delta     the stock change
+     * @throws IOException if the write or force fails
+     */
+    synchronized void append(int productId, int delta) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((productId + " " + delta + "\n").getBytes(StandardCharsets.US_ASCII));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Seals the current segment and starts a new one. Adjustments appended afterwards
+     * go to the new segment. If the new segment cannot be created, the current one stays
+     * open and nothing is sealed.
+     *
+     * @return the sealed segment, to be deleted once its deltas are committed
+     * @throws IOException if the new segment cannot be created or the sealed one cannot be closed;
+     *                     in the latter case the rotation has still happened
+     */
+    synchronized Path rotate() throws IOException {
+        Path next = segmentPath(sequence + 1);
+        FileChannel opened = open(next);
+        Path sealed = current;
+        FileChannel old = channel;
+        sequence++;
+        current = next;
+        channel = opened;
+        // Every line in the sealed segment was forced when it was appended
+        old.close();
+        return sealed;
+    }
+
+    /**
+     * Returns the number of the newest sealed segment. Every segment up to it is sealed,
+     * so once the deltas buffered so far are committed, all of them are.
+     *
+     * @return the sequence number of the segment before the current one
+     */
+    synchronized long lastSealed() {
+        return sequence - 1;
+    }
+
+    /**
+     * Closes the current segment.
+     *
+     * @param delete whether to delete the segment as well, once everything in it is committed
+     */
+    synchronized void close(boolean delete) {
+        try {
+            channel.close();
+            if (delete) {
+                Files.deleteIfExists(current);
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing stock journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the segments preceding the current one, oldest first.
+     *
+     * @return the sealed segments present in the directory
+     * @throws IOException if the directory cannot be listed
+     */
+    synchronized List<Path> sealedSegments() throws IOException {
+        List<Path> sealed = segments(directory);
+        sealed.remove(current);
+        return sealed;
+    }
+
+    /**
+     * Deletes segments whose deltas have been committed.
+     *
+     * @param segments the segments to delete
+     */
+    static void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                System.err.println("Error deleting stock journal segment " + segment + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sums the deltas recorded in the given segments per product. A torn last line,
+     * left by a crash during a write that was never acknowledged, is ignored.
+     *
+     * @param segments the segments to read
+     * @return the total delta per product ID
+     * @throws IOException if a segment cannot be read
+     */
+    static Map<Integer, Integer> read(List<Path> segments) throws IOException {
+        Map<Integer, Integer> deltas = new HashMap<>();
+        for (Path segment : segments) {
+            String text = new String(Files.readAllBytes(segment), StandardCharsets.US_ASCII);
+            int start = 0;
+            int end;
+            // Only newline-terminated lines were acknowledged; anything after the last newline is torn
+            while ((end = text.indexOf('\n', start)) >= 0) {
+                String line = text.substring(start, end);
+                start = end + 1;
+                int space = line.indexOf(' ');
+                try {
+                    deltas.merge(Integer.parseInt(line.substring(0, space)),
+                            Integer.parseInt(line.substring(space + 1)), Integer::sum);
+                } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                    System.err.println("Skipping damaged stock journal line in " + segment + ": " + line);
+                }
+            }
+        }
+        return deltas;
+    }
+
+    private void openSegment() throws IOException {
+        Path next = segmentPath(sequence + 1);
+        channel = open(next);
+        sequence++;
+        current = next;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(PREFIX + number + SUFFIX);
+    }
+
+    private static FileChannel open(Path segment) throws IOException {
+        return FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                segments.add(file);
+            }
+        }
+        segments.sort(Comparator.comparingLong(StockJournal::sequenceOf));
+        return segments;
+    }
+
+    /**
+     * Returns the sequence number in a segment's file name.
+     *
+     * @param segment a segment file
+     * @return its sequence number, or 0 if the name has none
+     */
+    static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
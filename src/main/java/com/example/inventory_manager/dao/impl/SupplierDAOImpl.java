@@ -1,12 +1,16 @@
 package com.example.inventory_manager.dao.impl;
 
+import com.example.inventory_manager.dao.Page;
 import com.example.inventory_manager.dao.SupplierDAO;
 import com.example.inventory_manager.db.DbUtil;
+import com.example.inventory_manager.metrics.MethodTimer;
+import com.example.inventory_manager.metrics.MetricsRegistry;
 import com.example.inventory_manager.model.Supplier;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation for handling Supplier-related database operations.
@@ -14,6 +18,17 @@ import java.util.List;
 
 public class SupplierDAOImpl implements SupplierDAO {
 
+    private static final MethodTimer FIND_BY_ID = MetricsRegistry.daoTimer(SupplierDAOImpl.class, "findById");
+    private static final MethodTimer DELETE_BY_ID = MetricsRegistry.daoTimer(SupplierDAOImpl.class, "deleteById");
+    private static final MethodTimer FIND_ALL = MetricsRegistry.daoTimer(SupplierDAOImpl.class, "findAll");
+    private static final MethodTimer FIND_PAGE = MetricsRegistry.daoTimer(SupplierDAOImpl.class, "findPage");
+    private static final MethodTimer SAVE = MetricsRegistry.daoTimer(SupplierDAOImpl.class, "save");
+    private static final MethodTimer DELETE = MetricsRegistry.daoTimer(SupplierDAOImpl.class, "delete");
+
+    private static final Map<String, String> SORT_KEYS = Map.of(
+            "name", "COALESCE(name, '')"
+    );
+
     /**
      * Finds a supplier in the database by its ID.
      *
@@ -23,6 +38,7 @@ public class SupplierDAOImpl implements SupplierDAO {
 
     @Override
     public Supplier findById(int supplierId) {
+        long start = FIND_BY_ID.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
@@ -38,10 +54,12 @@ public class SupplierDAOImpl implements SupplierDAO {
             }
             return null;
         } catch (SQLException e) {
+            FIND_BY_ID.error();
             System.err.println("Error finding supplier: " + e.getMessage());
             return null;
         } finally {
             DbUtil.closeQuietly(conn);
+            FIND_BY_ID.stop(start);
         }
     }
 
@@ -53,6 +71,7 @@ public class SupplierDAOImpl implements SupplierDAO {
      */
 
     public boolean deleteById(int supplierId) {
+        long start = DELETE_BY_ID.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
@@ -61,10 +80,12 @@ public class SupplierDAOImpl implements SupplierDAO {
             int rows = stmt.executeUpdate();
             return rows > 0;
         } catch (SQLException e) {
+            DELETE_BY_ID.error();
             System.err.println("Error deleting supplier: " + e.getMessage());
             return false;
         } finally {
             DbUtil.closeQuietly(conn);
+            DELETE_BY_ID.stop(start);
         }
     }
 
@@ -77,6 +98,7 @@ public class SupplierDAOImpl implements SupplierDAO {
     @Override
     public List<Supplier> findAll() {
         List<Supplier> suppliers = new ArrayList<>();
+        long start = FIND_ALL.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
@@ -92,56 +114,106 @@ public class SupplierDAOImpl implements SupplierDAO {
                 ));
             }
         } catch (SQLException e) {
+            FIND_ALL.error();
             System.err.println("Error finding all suppliers: " + e.getMessage());
         } finally {
             DbUtil.closeQuietly(conn);
+            FIND_ALL.stop(start);
         }
         return suppliers;
     }
 
+    /**
+     * Retrieves one page of suppliers, continuing after the given supplier ID.
+     *
+     * @param afterId  the ID of the last supplier on the previous page, or 0 for the first page
+     * @param pageSize the maximum number of suppliers to return
+     * @param sortKey  the sort key, or null to sort by ID
+     * @return the page of suppliers
+     */
+
+    @Override
+    public Page<Supplier> findPage(int afterId, int pageSize, String sortKey) {
+        int size = Page.clampSize(pageSize);
+        String sort = Keyset.sortExpression(SORT_KEYS, sortKey, "supplier_id");
+        List<Supplier> suppliers = new ArrayList<>();
+        long start = FIND_PAGE.start();
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(
+                    Keyset.pageSql("SELECT *", "suppliers", "supplier_id", sort, afterId > 0)
+            );
+            Keyset.bind(stmt, afterId, sort.equals("supplier_id"), size + 1);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                suppliers.add(new Supplier(
+                        rs.getInt("supplier_id"),
+                        rs.getString("name"),
+                        rs.getString("contact_email"),
+                        rs.getString("phone")
+                ));
+            }
+        } catch (SQLException e) {
+            FIND_PAGE.error();
+            System.err.println("Error finding supplier page: " + e.getMessage());
+        } finally {
+            DbUtil.closeQuietly(conn);
+            FIND_PAGE.stop(start);
+        }
+        return Keyset.page(suppliers, size, Supplier::getSupplierId);
+    }
+
     /**
      * Saves a new supplier or updates an existing supplier in the database.
+     * A supplier with an ID is merged on that ID; a supplier without one (ID 0)
+     * is inserted and receives a generated ID. Either way it is a single statement.
      *
      * @param supplier the Supplier to save or update
-     * @return true if the save or update was successful, false otherwise
+     * @return the ID of the inserted or updated supplier, or -1 if the save failed
      */
 
     @Override
-    public boolean save(Supplier supplier) {
+    public int save(Supplier supplier) {
+        long start = SAVE.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
 
-            // Check if supplier exists
-            PreparedStatement checkStmt = conn.prepareStatement("SELECT COUNT(*) FROM suppliers WHERE supplier_id = ?");
-            checkStmt.setInt(1, supplier.getSupplierId());
-            ResultSet rs = checkStmt.executeQuery();
-            rs.next();
-            int count = rs.getInt(1);
-
             PreparedStatement stmt;
-            if (count > 0) {
-                // Update
-                stmt = conn.prepareStatement("UPDATE suppliers SET name=?, contact_email=?, phone=? WHERE supplier_id=?");
-                stmt.setString(1, supplier.getName());
-                stmt.setString(2, supplier.getContactEmail());
-                stmt.setString(3, supplier.getPhone());
-                stmt.setInt(4, supplier.getSupplierId());
+            if (supplier.getSupplierId() > 0) {
+                stmt = conn.prepareStatement("""
+                    SELECT supplier_id FROM FINAL TABLE (
+                        MERGE INTO suppliers (supplier_id, name, contact_email, phone)
+                        KEY (supplier_id)
+                        VALUES (?, ?, ?, ?)
+                    )
+                    """);
+                stmt.setInt(1, supplier.getSupplierId());
+                stmt.setString(2, supplier.getName());
+                stmt.setString(3, supplier.getContactEmail());
+                stmt.setString(4, supplier.getPhone());
             } else {
-                // Insert
-                stmt = conn.prepareStatement("INSERT INTO suppliers (name, contact_email, phone) VALUES (?, ?, ?)");
+                stmt = conn.prepareStatement("""
+                    SELECT supplier_id FROM FINAL TABLE (
+                        INSERT INTO suppliers (name, contact_email, phone) VALUES (?, ?, ?)
+                    )
+                    """);
                 stmt.setString(1, supplier.getName());
                 stmt.setString(2, supplier.getContactEmail());
                 stmt.setString(3, supplier.getPhone());
             }
 
-            int result = stmt.executeUpdate();
-            return result > 0;
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : -1;
         } catch (SQLException e) {
+            SAVE.error();
             System.err.println("Error saving supplier: " + e.getMessage());
-            return false;
+            return -1;
         } finally {
             DbUtil.closeQuietly(conn);
+            SAVE.stop(start);
         }
     }
 
@@ -154,6 +226,7 @@ public class SupplierDAOImpl implements SupplierDAO {
 
     @Override
     public boolean delete(int supplierId) {
+        long start = DELETE.start();
         Connection conn = null;
         try {
             conn = DbUtil.getConnection();
@@ -162,10 +235,12 @@ public class SupplierDAOImpl implements SupplierDAO {
             int result = stmt.executeUpdate();
             return result > 0;
         } catch (SQLException e) {
+            DELETE.error();
             System.err.println("Error deleting supplier: " + e.getMessage());
             return false;
         } finally {
             DbUtil.closeQuietly(conn);
+            DELETE.stop(start);
         }
     }
 }
@@ -0,0 +1,35 @@
+package com.example.inventory_manager.dao.impl;
+
+import com.example.inventory_manager.dao.UpdateResult;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Helpers for the compare-and-swap updates of the DAO implementations.
+ * Such an update changes a row only {@code WHERE version = ?}, incrementing the version,
+ * so an update based on a stale read changes nothing instead of overwriting a newer write.
+ */
+final class Versions {
+
+    private Versions() {
+    }
+
+    /**
+     * Tells why a compare-and-swap update changed no row: the row is gone, or its version
+     * has moved on since the caller read it.
+     *
+     * @param conn      the connection to check on
+     * @param table     the table name
+     * @param keyColumn the primary key column
+     * @param id        the key of the row
+     * @return {@link UpdateResult#NOT_FOUND} or {@link UpdateResult#CONFLICT}
+     * @throws SQLException if the check fails
+     */
+    static UpdateResult missed(Connection conn, String table, String keyColumn, int id) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM " + table + " WHERE " + keyColumn + " = ?");
+        stmt.setInt(1, id);
+        return stmt.executeQuery().next() ? UpdateResult.CONFLICT : UpdateResult.NOT_FOUND;
+    }
+}
@@ -0,0 +1,732 @@
+package com.example.inventory_manager.dao.impl;
+
+import com.example.inventory_manager.cache.InventoryAggregates;
+import com.example.inventory_manager.dao.Page;
+import com.example.inventory_manager.dao.UpdateResult;
+import com.example.inventory_manager.db.DbUtil;
+import com.example.inventory_manager.metrics.MethodTimer;
+import com.example.inventory_manager.metrics.MetricsRegistry;
+import com.example.inventory_manager.model.InventoryItem;
+import com.example.inventory_manager.model.Product;
+import com.example.inventory_manager.model.StockTable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind variant of {@link InventoryItemDAOImpl} for bursts of stock adjustments.
+ *
+ * <p>{@link #adjustStock(int, int)} checks the change against the product's last committed
+ * quantity plus its pending deltas and, if accepted, adds it to an in-memory buffer
+ * instead of writing to the database. Deltas for the same product are coalesced, and the
+ * buffer is written to {@code inventory_items} in one batched transaction when it holds
+ * {@code maxPending} adjustments or every {@code flushIntervalMillis}, whichever comes first.</p>
+ *
+ * <p>Durability depends on the {@link Durability} mode. With {@code SYNC_JOURNAL} every
+ * accepted adjustment is forced to a local {@link StockJournal} before it is acknowledged
+ * and replayed on the next start if the process dies before the flush commits. The flush
+ * records the newest journal segment it covers in the same transaction, so segments that
+ * were committed but not yet deleted when the process died are not replayed. With {@code ACCEPT_LOSS} there is no journal, and adjustments still in the buffer are
+ * lost if the process dies.</p>
+ *
+ * <p>Reads of single items and pages add the pending deltas to the stored quantities,
+ * so callers see their own adjustments. Streaming reads and all other writes flush the
+ * buffer first. The buffer is local to this process, so stock must only be adjusted
+ * through one instance.</p>
+ */
+public class WriteBehindInventoryItemDAO extends InventoryItemDAOImpl implements AutoCloseable {
+
+    /**
+     * What happens to accepted adjustments that have not been flushed when the process dies.
+     */
+    public enum Durability {
+        /** Each adjustment is forced to a local journal before it is acknowledged. */
+        SYNC_JOURNAL,
+        /** Adjustments live only in memory until flushed and are lost on a crash. */
+        ACCEPT_LOSS
+    }
+
+    private static final MethodTimer ADJUST_STOCK = MetricsRegistry.daoTimer(WriteBehindInventoryItemDAO.class, "adjustStock");
+    private static final MethodTimer FLUSH = MetricsRegistry.daoTimer(WriteBehindInventoryItemDAO.class, "flush");
+
+    private static final String COMMITTED_SEGMENT = "SELECT sealed_segment FROM stock_journal WHERE id = 1";
+
+    private static final String COMMIT_SEGMENT =
+            "UPDATE stock_journal SET sealed_segment = ?, flushed_at = CURRENT_TIMESTAMP WHERE id = 1";
+
+    private final Map<Integer, PendingStock> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Adjustments and overlaid reads hold the read lock; the flush takes the write lock
+     * to swap out the buffer and again to commit, so readers never see a delta twice or not at all.
+     * Lock order: the inventory summary's change lock, which the flush holds from its first
+     * statement until it commits, then this lock, then an entry's monitor.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object flushLock = new Object();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final int maxPending;
+    private final StockJournal journal;
+    private final ScheduledExecutorService flusher;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new WriteBehindInventoryItemDAO and replays any journal left by a previous run.
+     *
+     * @param durability          whether adjustments are journaled before being acknowledged
+     * @param journalDirectory    directory for the journal; unused with {@code ACCEPT_LOSS}
+     * @param flushIntervalMillis longest time an adjustment stays buffered
+     * @param maxPending          number of buffered adjustments that triggers an early flush
+     * @throws IOException if the journal cannot be opened or replayed, or its committed segment cannot be read
+     */
+    public WriteBehindInventoryItemDAO(Durability durability, Path journalDirectory,
+                                       long flushIntervalMillis, int maxPending) throws IOException {
+        this.maxPending = maxPending;
+        if (durability == Durability.SYNC_JOURNAL) {
+            long committed = committedSegment();
+            this.journal = new StockJournal(journalDirectory, committed);
+            recover(committed);
+        } else {
+            this.journal = null;
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "stock-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates an instance configured from the {@code inventory.stock.durability}
+     * ({@code sync-journal} by default, or {@code accept-loss}), {@code inventory.stock.journalDir},
+     * {@code inventory.stock.flushIntervalMillis} (default 100) and
+     * {@code inventory.stock.flushMaxPending} (default 1000) system properties.
+     *
+     * @return a new write-behind DAO
+     * @throws IOException if the journal cannot be opened or replayed
+     */
+    public static WriteBehindInventoryItemDAO fromSystemProperties() throws IOException {
+        String durability = System.getProperty("inventory.stock.durability", "sync-journal");
+        return new WriteBehindInventoryItemDAO(
+                Durability.valueOf(durability.trim().toUpperCase(Locale.ROOT).replace('-', '_')),
+                Paths.get(System.getProperty("inventory.stock.journalDir",
+                        System.getProperty("user.home") + "/inventorymanager-stock-journal")),
+                Long.getLong("inventory.stock.flushIntervalMillis", 100L),
+                Integer.getInteger("inventory.stock.flushMaxPending", 1000)
+        );
+    }
+
+    /**
+     * Buffers a stock change for a product.
+     * The change is checked against the last committed quantity plus pending deltas and
+     * rejected if the stock would go below zero. After {@link #close()} changes are
+     * written directly.
+     *
+     * @param productId the ID of the product
+     * @param delta     the amount to change the stock by (positive or negative)
+     * @return the new quantity including pending deltas, or -1 if the change was rejected or failed
+     */
+
+    @Override
+    public int adjustStock(int productId, int delta) {
+        if (closed) {
+            return super.adjustStock(productId, delta);
+        }
+
+        long start = ADJUST_STOCK.start();
+        try {
+            int quantity;
+            lock.readLock().lock();
+            try {
+                PendingStock entry = pending.computeIfAbsent(productId, id -> new PendingStock());
+                synchronized (entry) {
+                    if (!entry.loaded && !load(productId, entry)) {
+                        ADJUST_STOCK.error();
+                        return -1;
+                    }
+                    quantity = entry.base + entry.pending() + delta;
+                    if (quantity < 0) {
+                        return -1;
+                    }
+                    if (journal != null) {
+                        journal.append(productId, delta);
+                    }
+                    entry.delta += delta;
+                }
+            } catch (IOException e) {
+                ADJUST_STOCK.error();
+                System.err.println("Error journaling stock adjustment: " + e.getMessage());
+                return -1;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            if (pendingCount.incrementAndGet() >= maxPending && flushQueued.compareAndSet(false, true)) {
+                flusher.execute(this::flush);
+            }
+            return quantity;
+        } finally {
+            ADJUST_STOCK.stop(start);
+        }
+    }
+
+    /**
+     * Writes all buffered deltas to the database in one batched transaction.
+     * Deltas the database rejects because the stock would go below zero (for example
+     * after a change made outside this instance) are dropped and logged. If the journal
+     * cannot be rotated or the transaction fails, the deltas go back into the buffer for
+     * the next flush.
+     *
+     * @return true if the buffer was written, false if the rotation or transaction failed
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            flushQueued.set(false);
+            if (pendingCount.get() == 0) {
+                return true;
+            }
+            long start = FLUSH.start();
+            List<Integer> productIds = new ArrayList<>();
+            List<PendingStock> entries = new ArrayList<>();
+
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<Integer, PendingStock> e : pending.entrySet()) {
+                    PendingStock entry = e.getValue();
+                    synchronized (entry) {
+                        if (entry.delta != 0) {
+                            entry.inFlight = entry.delta;
+                            entry.delta = 0;
+                            productIds.add(e.getKey());
+                            entries.add(entry);
+                        } else {
+                            // Idle entries are dropped so the buffer only holds recently adjusted products
+                            pending.remove(e.getKey(), entry);
+                        }
+                    }
+                }
+                pendingCount.set(0);
+                if (journal != null) {
+                    journal.rotate();
+                }
+            } catch (IOException e) {
+                // The deltas are not in a sealed segment, so committing them would let the next start replay them
+                FLUSH.error();
+                System.err.println("Error rotating stock journal: " + e.getMessage());
+                requeue(entries);
+                FLUSH.stop(start);
+                return false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // Only flushes rotate the journal, so this is still the segment sealed above
+            long sealed = journal != null ? journal.lastSealed() : 0;
+
+            Connection conn = null;
+            boolean changing = false;
+            try {
+                int[] counts = new int[0];
+                List<InventoryAggregates.StockChange> changes = new ArrayList<>();
+                if (!entries.isEmpty()) {
+                    conn = DbUtil.getConnection();
+                    conn.setAutoCommit(false);
+                    InventorySummaryDAO.beginChange();
+                    changing = true;
+                    PreparedStatement stmt = conn.prepareStatement(ADJUST_STOCK_MERGE);
+                    for (int i = 0; i < entries.size(); i++) {
+                        stmt.setInt(1, productIds.get(i));
+                        stmt.setInt(2, entries.get(i).inFlight);
+                        stmt.addBatch();
+                    }
+                    counts = stmt.executeBatch();
+                    changes = readChanges(conn, productIds, entries, counts);
+                    if (journal != null) {
+                        PreparedStatement commitSegment = conn.prepareStatement(COMMIT_SEGMENT);
+                        commitSegment.setLong(1, sealed);
+                        commitSegment.executeUpdate();
+                    }
+                }
+
+                lock.writeLock().lock();
+                try {
+                    if (conn != null) {
+                        InventorySummaryDAO.commit(conn, changes);
+                    }
+                    for (int i = 0; i < entries.size(); i++) {
+                        PendingStock entry = entries.get(i);
+                        synchronized (entry) {
+                            if (counts[i] > 0 && entry.inventoryId != 0) {
+                                entry.base += entry.inFlight;
+                            } else if (counts[i] > 0) {
+                                // The flush created the product's first row; read its ID next time
+                                entry.loaded = false;
+                            } else {
+                                System.err.println("Dropped buffered stock change of " + entry.inFlight
+                                        + " for product " + productIds.get(i) + ": stock would go below zero");
+                                entry.loaded = false;
+                            }
+                            entry.inFlight = 0;
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+
+                if (journal != null) {
+                    // Every sealed segment's deltas were either in this flush or already committed
+                    StockJournal.delete(journal.sealedSegments());
+                }
+                return true;
+            } catch (SQLException | IOException e) {
+                FLUSH.error();
+                DbUtil.rollbackQuietly(conn);
+                System.err.println("Error flushing buffered stock changes: " + e.getMessage());
+                lock.writeLock().lock();
+                try {
+                    requeue(entries);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                return false;
+            } finally {
+                if (changing) {
+                    InventorySummaryDAO.endChange();
+                }
+                DbUtil.closeQuietly(conn);
+                FLUSH.stop(start);
+            }
+        }
+    }
+
+    /**
+     * Puts the in-flight deltas of a failed flush back into the buffer. Called with the write lock held.
+     */
+    private void requeue(List<PendingStock> entries) {
+        for (PendingStock entry : entries) {
+            synchronized (entry) {
+                entry.delta += entry.inFlight;
+                entry.inFlight = 0;
+            }
+        }
+        pendingCount.addAndGet(entries.size());
+    }
+
+    /**
+     * Reads the rows a flush has just changed, before it commits, as changes for the
+     * inventory summary. Each product's stock row moved by its in-flight delta.
+     */
+    private static List<InventoryAggregates.StockChange> readChanges(Connection conn, List<Integer> productIds,
+                                                                     List<PendingStock> entries, int[] counts)
+            throws SQLException {
+        Map<Integer, Integer> applied = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (counts[i] > 0) {
+                applied.put(productIds.get(i), entries.get(i).inFlight);
+            }
+        }
+        List<InventoryAggregates.StockChange> changes = new ArrayList<>();
+        if (applied.isEmpty()) {
+            return changes;
+        }
+
+        PreparedStatement stmt = conn.prepareStatement(String.format("""
+            SELECT ii.product_id, ii.quantity, ii.location, p.category, p.price
+            FROM inventory_items ii JOIN products p ON p.id = ii.product_id
+            WHERE ii.product_id = ANY(?) AND ii.inventory_id = %s
+            """, String.format(STOCK_ROW, "ii.product_id")));
+        stmt.setObject(1, applied.keySet().toArray(new Integer[0]));
+        ResultSet rs = stmt.executeQuery();
+        while (rs.next()) {
+            int quantity = rs.getInt(2);
+            changes.add(new InventoryAggregates.StockChange(rs.getString(4), rs.getDouble(5), rs.getString(3),
+                    quantity - applied.get(rs.getInt(1)), quantity));
+        }
+        return changes;
+    }
+
+    /**
+     * Adds an order's quantities directly in the caller's transaction. Buffered deltas are
+     * relative, so they stay valid; the products' cached quantities are re-read afterwards.
+     */
+
+    @Override
+    List<Integer> receiveOrder(Connection conn, int orderId) throws SQLException {
+        List<Integer> productIds = super.receiveOrder(conn, orderId);
+        productIds.forEach(this::forget);
+        return productIds;
+    }
+
+    /**
+     * Returns the number of adjustments buffered since the last flush.
+     * Products whose deltas went back into the buffer after a failed flush count once each.
+     *
+     * @return the pending adjustment count
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Stops the background flush and writes what is left in the buffer.
+     * Later adjustments are written directly.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean flushed = flush();
+        if (journal != null) {
+            lock.writeLock().lock();
+            try {
+                journal.close(flushed && pendingCount.get() == 0);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Finds an inventory item by its ID, including pending deltas.
+     */
+
+    @Override
+    public InventoryItem findById(int inventoryId) {
+        lock.readLock().lock();
+        try {
+            return overlay(super.findById(inventoryId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds an inventory item by product ID, including pending deltas.
+     */
+
+    @Override
+    public InventoryItem findByProductId(int productId) {
+        lock.readLock().lock();
+        try {
+            return overlay(super.findByProductId(productId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves one page of inventory items, including pending deltas.
+     */
+
+    @Override
+    public Page<InventoryItem> findPage(int afterId, int pageSize, String sortKey) {
+        lock.readLock().lock();
+        try {
+            Page<InventoryItem> page = super.findPage(afterId, pageSize, sortKey);
+            page.getItems().forEach(this::overlay);
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the inventory items of the given products, including pending deltas.
+     */
+
+    @Override
+    public List<InventoryItem> findByProductIds(List<Integer> productIds) {
+        lock.readLock().lock();
+        try {
+            List<InventoryItem> items = super.findByProductIds(productIds);
+            items.forEach(this::overlay);
+            return items;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes the buffer, then retrieves all inventory items.
+     */
+
+    @Override
+    public List<InventoryItem> findAll() {
+        flush();
+        return super.findAll();
+    }
+
+    /**
+     * Flushes the buffer, then streams the inventory items.
+     */
+
+    @Override
+    public boolean forEachItem(int afterId, Consumer<InventoryItem> action) {
+        flush();
+        return super.forEachItem(afterId, action);
+    }
+
+    /**
+     * Flushes the buffer, then loads per-product stock totals.
+     */
+
+    @Override
+    public boolean loadStock(StockTable table) {
+        flush();
+        return super.loadStock(table);
+    }
+
+    /**
+     * Flushes the buffer, then saves an inventory item.
+     */
+
+    @Override
+    public int save(InventoryItem inventoryItem) {
+        flush();
+        try {
+            return super.save(inventoryItem);
+        } finally {
+            forget(inventoryItem.getProduct().getId());
+        }
+    }
+
+    /**
+     * Flushes the buffer, then updates an inventory item if its version is unchanged.
+     * Buffered deltas change the version when they are flushed, so an item read while
+     * they were pending gets a conflict and is read again.
+     */
+
+    @Override
+    public UpdateResult update(InventoryItem inventoryItem) {
+        flush();
+        try {
+            return super.update(inventoryItem);
+        } finally {
+            forget(inventoryItem.getProduct().getId());
+        }
+    }
+
+    /**
+     * Flushes the buffer, then updates a product and one of its inventory rows together.
+     */
+
+    @Override
+    public UpdateResult update(Product product, InventoryItem inventoryItem) {
+        flush();
+        try {
+            return super.update(product, inventoryItem);
+        } finally {
+            forget(product.getId());
+        }
+    }
+
+    /**
+     * Flushes the buffer, then saves inventory items with their products.
+     */
+
+    @Override
+    public boolean saveAll(List<InventoryItem> items) {
+        flush();
+        try {
+            return super.saveAll(items);
+        } finally {
+            forgetAll();
+        }
+    }
+
+    /**
+     * Flushes the buffer, then deletes the inventory items of a product.
+     */
+
+    @Override
+    public boolean deleteByProductId(int productId) {
+        flush();
+        try {
+            return super.deleteByProductId(productId);
+        } finally {
+            forget(productId);
+        }
+    }
+
+    /**
+     * Flushes the buffer, then deletes an inventory item.
+     */
+
+    @Override
+    public boolean delete(int inventoryId) {
+        flush();
+        try {
+            return super.delete(inventoryId);
+        } finally {
+            forgetAll();
+        }
+    }
+
+    /**
+     * Reads the newest journal segment whose deltas a flush has committed.
+     */
+    private static long committedSegment() throws IOException {
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            ResultSet rs = conn.prepareStatement(COMMITTED_SEGMENT).executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new IOException("Error reading committed stock journal segment: " + e.getMessage(), e);
+        } finally {
+            DbUtil.closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Replays journal segments left by a previous run: their deltas go into the buffer
+     * and are flushed straight away. If that flush fails they stay buffered and journaled.
+     * Segments up to the committed one were applied by a flush that died before deleting
+     * them, so they are deleted without being replayed.
+     */
+    private void recover(long committed) throws IOException {
+        List<Path> leftOver = journal.sealedSegments();
+        List<Path> applied = new ArrayList<>();
+        for (Path segment : leftOver) {
+            if (StockJournal.sequenceOf(segment) <= committed) {
+                applied.add(segment);
+            }
+        }
+        if (!applied.isEmpty()) {
+            System.out.println("Deleting " + applied.size() + " stock journal segment(s) that were already committed.");
+            StockJournal.delete(applied);
+            leftOver.removeAll(applied);
+        }
+        if (leftOver.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> deltas = StockJournal.read(leftOver);
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            StockJournal.delete(leftOver);
+            return;
+        }
+        for (Map.Entry<Integer, Integer> e : deltas.entrySet()) {
+            pending.computeIfAbsent(e.getKey(), id -> new PendingStock()).delta += e.getValue();
+            pendingCount.incrementAndGet();
+        }
+        System.out.println("Replaying " + deltas.size() + " buffered stock change(s) from " + leftOver.size() + " journal segment(s).");
+        flush();
+    }
+
+    /**
+     * Reads the committed quantity of a product into its entry. Called with the read lock
+     * held, so no flush can commit in between and any in-flight deltas are not yet visible.
+     */
+    private boolean load(int productId, PendingStock entry) {
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT inventory_id, quantity FROM inventory_items WHERE product_id = ? ORDER BY inventory_id LIMIT 1");
+            stmt.setInt(1, productId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                entry.inventoryId = rs.getInt(1);
+                entry.base = rs.getInt(2);
+            } else {
+                // The flush creates the row, so there is nothing to overlay until then
+                entry.inventoryId = 0;
+                entry.base = 0;
+            }
+            entry.loaded = true;
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error loading stock for product " + productId + ": " + e.getMessage());
+            return false;
+        } finally {
+            DbUtil.closeQuietly(conn);
+        }
+    }
+
+    /**
+     * Adds the pending deltas of the item's product if the item is the product's stock row,
+     * the only row a flush changes. Called with the read lock held.
+     */
+    private InventoryItem overlay(InventoryItem item) {
+        if (item != null) {
+            int productId = item.getProduct().getId();
+            PendingStock entry = pending.get(productId);
+            if (entry != null) {
+                synchronized (entry) {
+                    if ((entry.loaded || load(productId, entry)) && entry.inventoryId == item.getInventoryId()) {
+                        item.setCurrentStock(item.getCurrentStock() + entry.pending());
+                    }
+                }
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Makes the next adjustment of a product re-read its committed quantity.
+     */
+    private void forget(int productId) {
+        PendingStock entry = pending.get(productId);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.loaded = false;
+            }
+        }
+    }
+
+    private void forgetAll() {
+        for (PendingStock entry : pending.values()) {
+            synchronized (entry) {
+                entry.loaded = false;
+            }
+        }
+    }
+
+    /**
+     * Buffered state of one product. Guarded by its own monitor.
+     */
+    private static final class PendingStock {
+        /** The product's first inventory row, which flushes change, or 0 if it has none; valid if {@code loaded}. */
+        int inventoryId;
+        /** Committed quantity of that row, valid if {@code loaded}. */
+        int base;
+        /** Accepted deltas not yet handed to a flush. */
+        int delta;
+        /** Deltas in the flush currently running, not yet committed. */
+        int inFlight;
+        boolean loaded;
+
+        int pending() {
+            return delta + inFlight;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.inventory_manager.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small bounded JDBC connection pool.
+ * Connections are handed out as proxies whose close() returns the physical
+ * connection to the pool instead of closing it. Idle connections are validated
+ * on borrow and evicted in the background once they exceed the idle timeout.
+ * Each physical connection keeps a {@link StatementCache}, so prepared statements
+ * survive across borrows and hot SQL is parsed and planned only once.
+ * Every statement handed out is timed by a {@link SqlTracer}.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxIdleMillis;
+    private final long maxWaitMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final SqlTracer tracer;
+
+    /** Idle connections, most recently returned first. Guarded by {@code this}. */
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Semaphore permits;
+    private final ScheduledExecutorService evictor;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    private volatile boolean shutdown;
+
+    /**
+     * Constructs a new pool and pre-fills it with {@code minSize} connections.
+     *
+     * @param url                      the JDBC URL
+     * @param user                     the database user
+     * @param password                 the database password
+     * @param minSize                  connections kept open even when idle
+     * @param maxSize                  upper bound on open connections
+     * @param maxIdleMillis            idle time after which surplus connections are closed
+     * @param maxWaitMillis            how long a caller waits for a free connection
+     * @param validationTimeoutSeconds timeout for the validity check done on borrow
+     * @param statementCacheSize       prepared statements cached per connection, 0 to disable
+     * @param tracer                   tracer timing statement executions
+     */
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long maxIdleMillis, long maxWaitMillis, int validationTimeoutSeconds,
+                          int statementCacheSize, SqlTracer tracer) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxIdleMillis = maxIdleMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.tracer = tracer;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, maxIdleMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+        fill();
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured timeout for one to become free.
+     *
+     * @return a pooled connection; closing it returns it to the pool
+     * @throws SQLException if the pool is exhausted or a new connection cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down.");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + maxWaitMillis + " ms waiting for a connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection.", e);
+        } finally {
+            waitNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = pollIdle()) != null) {
+                if (isUsable(pooled)) {
+                    break;
+                }
+                validationFailures.incrementAndGet();
+                destroy(pooled);
+            }
+            if (pooled == null) {
+                pooled = open();
+            }
+            borrowed.incrementAndGet();
+            return pooled.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool's counters.
+     *
+     * @return the current pool statistics
+     */
+    public PoolStats getStats() {
+        int idleCount;
+        synchronized (this) {
+            idleCount = idle.size();
+        }
+        int active = maxSize - permits.availablePermits();
+        return new PoolStats(active, idleCount, maxSize, permits.getQueueLength(),
+                created.get(), destroyed.get(), borrowed.get(), timeouts.get(),
+                validationFailures.get(), waitNanos.get(),
+                statementHits.get(), statementMisses.get(), statementEvictions.get());
+    }
+
+    /**
+     * Closes all idle connections and stops the evictor.
+     * Connections still in use are closed when they are returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = pollIdle()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private void fill() {
+        while (!shutdown) {
+            synchronized (this) {
+                if (idle.size() >= minSize) {
+                    return;
+                }
+            }
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                PooledConnection pooled = open();
+                synchronized (this) {
+                    idle.addLast(pooled);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error pre-filling connection pool: " + e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - maxIdleMillis;
+        Deque<PooledConnection> expired = new ArrayDeque<>();
+        synchronized (this) {
+            // Oldest connections sit at the tail; stop once we are down to minSize.
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minSize) {
+                PooledConnection pooled = it.next();
+                if (pooled.lastUsed > cutoff) {
+                    break;
+                }
+                it.remove();
+                expired.add(pooled);
+            }
+        }
+        for (PooledConnection pooled : expired) {
+            destroy(pooled);
+        }
+        fill();
+    }
+
+    private synchronized PooledConnection pollIdle() {
+        return idle.pollFirst();
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        created.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void destroy(PooledConnection pooled) {
+        destroyed.incrementAndGet();
+        try {
+            pooled.statements.clear();
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Takes a connection back from a caller, resetting any transaction state it left behind.
+     */
+    private void release(PooledConnection pooled) {
+        try {
+            boolean healthy = !pooled.physical.isClosed();
+            if (healthy && !pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            if (healthy && !shutdown) {
+                pooled.lastUsed = System.currentTimeMillis();
+                synchronized (this) {
+                    idle.addFirst(pooled);
+                }
+            } else {
+                destroy(pooled);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error returning connection to pool: " + e.getMessage());
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize,
+                    statementHits, statementMisses, statementEvictions);
+        }
+
+        /**
+         * Creates a fresh proxy for one borrower, so a stale reference kept after
+         * close() cannot touch the connection once someone else has borrowed it.
+         */
+        private Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Lease(this));
+        }
+    }
+
+    /**
+     * Invocation handler for a single borrow of a pooled connection.
+     */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pooled.physical + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            if ("prepareStatement".equals(method.getName()) && isCacheable(args)) {
+                int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                PreparedStatement stmt = pooled.statements.prepare((String) args[0], keys);
+                return TracingStatement.wrap(stmt, (String) args[0], (Connection) proxy, pooled.statements, tracer);
+            }
+            Object result;
+            try {
+                result = method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                // createStatement, prepareCall and uncached prepareStatement variants
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return TracingStatement.wrap((Statement) result, sql, (Connection) proxy, null, tracer);
+            }
+            return result;
+        }
+
+        private boolean isCacheable(Object[] args) {
+            return args.length == 1 || (args.length == 2 && args[1] instanceof Integer);
+        }
+    }
+}
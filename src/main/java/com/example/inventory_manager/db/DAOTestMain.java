@@ -22,11 +22,11 @@ public class DAOTestMain {
 
         // Save Supplier
         Supplier supplier = new Supplier(0, "Test Supplier", "test@supplier.com", "123-456-7890");
-        supplierDAO.save(supplier);
+        int supplierId = supplierDAO.save(supplier);
         System.out.println("✅ Supplier saved.");
 
-        // Load Supplier back (latest inserted supplier)
-        Supplier savedSupplier = supplierDAO.findAll().get(0);
+        // Load Supplier back by its generated ID
+        Supplier savedSupplier = supplierDAO.findById(supplierId);
         System.out.println("✅ Supplier reloaded with ID: " + savedSupplier.getSupplierId());
 
         // Save Product
@@ -1,13 +1,23 @@
 package com.example.inventory_manager.db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
+/**
+ * Central access point for database connections.
+ * Connections come from a bounded pool; the JDBC URL and pool limits can be
+ * overridden with system properties (see the {@code inventory.db.*} and
+ * {@code inventory.pool.*} keys below). Statements slower than
+ * {@code inventory.sql.slowThresholdMillis} (default 200, -1 to disable) are written
+ * to a rotating slow-query log.
+ */
 public class DbUtil {
-    private static final String JDBC_URL = "jdbc:h2:~/inventorymanager;DB_CLOSE_DELAY=-1";
-    private static final String USER = "sa";
-    private static final String PASSWORD = "";
+    private static final String JDBC_URL =
+            System.getProperty("inventory.db.url", "jdbc:h2:~/inventorymanager;DB_CLOSE_DELAY=-1");
+    private static final String USER = System.getProperty("inventory.db.user", "sa");
+    private static final String PASSWORD = System.getProperty("inventory.db.password", "");
+
+    private static final ConnectionPool POOL;
 
     static {
         try {
@@ -17,12 +27,56 @@ public class DbUtil {
             System.err.println("H2 JDBC Driver not found!");
             e.printStackTrace();
         }
+
+        POOL = new ConnectionPool(
+                JDBC_URL, USER, PASSWORD,
+                Integer.getInteger("inventory.pool.minSize", 2),
+                Integer.getInteger("inventory.pool.maxSize", 10),
+                Long.getLong("inventory.pool.maxIdleMillis", 300_000L),
+                Long.getLong("inventory.pool.maxWaitMillis", 5_000L),
+                Integer.getInteger("inventory.pool.validationTimeoutSeconds", 2),
+                Integer.getInteger("inventory.pool.statementCacheSize", 64),
+                new SqlTracer(
+                        Long.getLong("inventory.sql.slowThresholdMillis", 200L),
+                        System.getProperty("inventory.sql.slowLog", "%h/inventorymanager-slow-queries.%g.log"),
+                        Integer.getInteger("inventory.sql.slowLogLimitBytes", 10 * 1024 * 1024),
+                        Integer.getInteger("inventory.sql.slowLogCount", 5)
+                )
+        );
     }
 
+    /**
+     * Borrows a connection from the pool.
+     *
+     * @return a pooled connection; hand it back with {@link #closeQuietly(Connection)}
+     * @throws SQLException if no connection becomes available in time
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(JDBC_URL, USER, PASSWORD);
+        return POOL.borrow();
+    }
+
+    /**
+     * Returns a snapshot of the connection pool counters.
+     *
+     * @return current pool statistics
+     */
+    public static PoolStats getPoolStats() {
+        return POOL.getStats();
     }
 
+    /**
+     * Closes all idle pooled connections and stops the evictor thread.
+     * Called by the web application on undeploy and by command-line tools before they exit.
+     */
+    public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    /**
+     * Returns a connection to the pool, ignoring errors.
+     *
+     * @param connection the connection to release, may be null
+     */
     public static void closeQuietly(Connection connection) {
         if (connection != null) {
             try {
@@ -32,4 +86,19 @@ public class DbUtil {
             }
         }
     }
+
+    /**
+     * Rolls back the current transaction on a connection, ignoring errors.
+     *
+     * @param connection the connection to roll back, may be null
+     */
+    public static void rollbackQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                System.err.println("Error rolling back transaction: " + e.getMessage());
+            }
+        }
+    }
 }
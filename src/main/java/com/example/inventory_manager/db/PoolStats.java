@@ -0,0 +1,102 @@
+package com.example.inventory_manager.db;
+
+/**
+ * Immutable snapshot of connection pool counters.
+ */
+public class PoolStats {
+    private final int active;
+    private final int idle;
+    private final int maxSize;
+    private final int waiting;
+    private final long created;
+    private final long destroyed;
+    private final long borrowed;
+    private final long timeouts;
+    private final long validationFailures;
+    private final long totalWaitNanos;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    /**
+     * Constructs a new PoolStats snapshot.
+     *
+     * @param active             connections currently borrowed
+     * @param idle               connections sitting in the pool
+     * @param maxSize            configured upper bound on connections
+     * @param waiting            threads blocked waiting for a connection
+     * @param created            physical connections opened so far
+     * @param destroyed          physical connections closed so far
+     * @param borrowed           successful borrows so far
+     * @param timeouts           borrows that gave up waiting
+     * @param validationFailures idle connections discarded because they failed validation
+     * @param totalWaitNanos     total time callers spent waiting for a permit
+     * @param statementCacheHits      prepared statements served from a connection's cache
+     * @param statementCacheMisses    prepared statements that had to be parsed
+     * @param statementCacheEvictions cached statements closed to make room
+     */
+    public PoolStats(int active, int idle, int maxSize, int waiting, long created, long destroyed,
+                     long borrowed, long timeouts, long validationFailures, long totalWaitNanos,
+                     long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.active = active;
+        this.idle = idle;
+        this.maxSize = maxSize;
+        this.waiting = waiting;
+        this.created = created;
+        this.destroyed = destroyed;
+        this.borrowed = borrowed;
+        this.timeouts = timeouts;
+        this.validationFailures = validationFailures;
+        this.totalWaitNanos = totalWaitNanos;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public int getActive() { return active; }
+
+    public int getIdle() { return idle; }
+
+    public int getMaxSize() { return maxSize; }
+
+    public int getWaiting() { return waiting; }
+
+    public long getCreated() { return created; }
+
+    public long getDestroyed() { return destroyed; }
+
+    public long getBorrowed() { return borrowed; }
+
+    public long getTimeouts() { return timeouts; }
+
+    public long getValidationFailures() { return validationFailures; }
+
+    public long getTotalWaitNanos() { return totalWaitNanos; }
+
+    public long getStatementCacheHits() { return statementCacheHits; }
+
+    public long getStatementCacheMisses() { return statementCacheMisses; }
+
+    public long getStatementCacheEvictions() { return statementCacheEvictions; }
+
+    /**
+     * Returns the fraction of prepareStatement calls served from the cache.
+     *
+     * @return hit ratio between 0 and 1
+     */
+    public double getStatementCacheHitRatio() {
+        long total = statementCacheHits + statementCacheMisses;
+        return total == 0 ? 0.0 : (double) statementCacheHits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats[active=" + active + ", idle=" + idle + ", max=" + maxSize
+                + ", waiting=" + waiting + ", created=" + created + ", destroyed=" + destroyed
+                + ", borrowed=" + borrowed + ", timeouts=" + timeouts
+                + ", validationFailures=" + validationFailures
+                + ", waitMs=" + (totalWaitNanos / 1_000_000)
+                + ", stmtHits=" + statementCacheHits + ", stmtMisses=" + statementCacheMisses
+                + ", stmtEvictions=" + statementCacheEvictions + "]";
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.inventory_manager.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Applies versioned SQL migration scripts from {@code db/migration} on the classpath.
+ * Applied versions are recorded in a {@code schema_version} table together with a
+ * checksum of the script, so running the migrator again only applies new scripts and
+ * refuses to continue if an already-applied script has been edited.
+ */
+public class SchemaMigrator {
+
+    private static final String LOCATION = "db/migration/";
+
+    /**
+     * Migration scripts in the order they must be applied.
+     * File names follow {@code V<version>__<description>.sql}.
+     */
+    private static final String[] SCRIPTS = {
+            "V1__create_tables.sql",
+            "V2__secondary_indexes.sql",
+            "V3__unique_inventory_product_location.sql",
+            "V4__stock_movements.sql",
+            "V5__inventory_summary.sql",
+            "V6__version_columns.sql",
+            "V7__stock_journal.sql"
+    };
+
+    /**
+     * Brings the database schema up to date.
+     *
+     * @return the number of migrations applied by this call
+     * @throws SQLException if a script fails or an applied script's checksum has changed
+     */
+    public synchronized int migrate() throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DbUtil.getConnection();
+            createVersionTable(conn);
+            Map<Integer, Integer> applied = loadAppliedChecksums(conn);
+
+            int count = 0;
+            for (String script : SCRIPTS) {
+                int version = parseVersion(script);
+                String sql = readScript(script);
+                int checksum = checksum(sql);
+
+                Integer appliedChecksum = applied.get(version);
+                if (appliedChecksum != null) {
+                    if (appliedChecksum != checksum) {
+                        throw new SQLException("Checksum mismatch for migration " + script
+                                + ": the script was changed after it was applied.");
+                    }
+                    continue;
+                }
+
+                apply(conn, version, script, sql, checksum);
+                count++;
+            }
+            return count;
+        } finally {
+            DbUtil.closeQuietly(conn);
+        }
+    }
+
+    private void createVersionTable(Connection conn) throws SQLException {
+        Statement stmt = conn.createStatement();
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INT PRIMARY KEY,
+                description VARCHAR(255) NOT NULL,
+                script VARCHAR(255) NOT NULL,
+                checksum INT NOT NULL,
+                installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+                execution_ms INT NOT NULL
+            )
+            """);
+        stmt.close();
+    }
+
+    private Map<Integer, Integer> loadAppliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, Integer> applied = new HashMap<>();
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version");
+        while (rs.next()) {
+            applied.put(rs.getInt("version"), rs.getInt("checksum"));
+        }
+        stmt.close();
+        return applied;
+    }
+
+    /**
+     * Runs one script and records it, all in one transaction where the database allows it.
+     * (H2 commits DDL implicitly, so the scripts themselves are written to be re-runnable.)
+     */
+    private void apply(Connection conn, int version, String script, String sql, int checksum) throws SQLException {
+        long start = System.currentTimeMillis();
+        conn.setAutoCommit(false);
+        try {
+            Statement stmt = conn.createStatement();
+            for (String statement : splitStatements(sql)) {
+                stmt.execute(statement);
+            }
+            stmt.close();
+
+            PreparedStatement record = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)"
+            );
+            record.setInt(1, version);
+            record.setString(2, parseDescription(script));
+            record.setString(3, script);
+            record.setInt(4, checksum);
+            record.setInt(5, (int) (System.currentTimeMillis() - start));
+            record.executeUpdate();
+
+            conn.commit();
+            System.out.println("Applied migration " + script);
+        } catch (SQLException e) {
+            DbUtil.rollbackQuietly(conn);
+            throw new SQLException("Migration " + script + " failed: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private String readScript(String script) throws SQLException {
+        try (InputStream in = SchemaMigrator.class.getClassLoader().getResourceAsStream(LOCATION + script)) {
+            if (in == null) {
+                throw new SQLException("Migration script not found on classpath: " + LOCATION + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Could not read migration script " + script, e);
+        }
+    }
+
+    /**
+     * Splits a script into statements on semicolons that end a line,
+     * dropping full-line {@code --} comments.
+     */
+    static List<String> splitStatements(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : sql.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (trimmed.endsWith(";")) {
+                current.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(line).append('\n');
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString());
+        }
+        return statements;
+    }
+
+    private static int checksum(String sql) {
+        CRC32 crc = new CRC32();
+        // Normalise line endings so checkouts on different platforms agree
+        crc.update(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+
+    private static int parseVersion(String script) {
+        return Integer.parseInt(script.substring(1, script.indexOf("__")));
+    }
+
+    private static String parseDescription(String script) {
+        return script.substring(script.indexOf("__") + 2, script.lastIndexOf('.')).replace('_', ' ');
+    }
+}
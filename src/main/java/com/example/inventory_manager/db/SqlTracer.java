@@ -0,0 +1,212 @@
+package com.example.inventory_manager.db;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Times every SQL execution on pooled connections.
+ * Executions slower than the threshold are written, with their SQL and bound parameters,
+ * to a slow-query log that rotates through a fixed number of files. Executions are also
+ * counted per request (see {@link #beginRequest()}), which makes N+1 query patterns
+ * easy to spot: a page that runs one query per row shows up as a request with an
+ * unusually high statement count.
+ *
+ * <p>Timings cover the {@code execute*} call only. For lazily executed queries,
+ * rows fetched afterwards through the result set are not included.</p>
+ */
+public class SqlTracer {
+
+    private static final Logger SLOW_LOG = Logger.getLogger("com.example.inventory_manager.sql.slow");
+
+    /** Longest string parameter value written to the log before it is cut off. */
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private static final ThreadLocal<RequestTrace> CURRENT_REQUEST = new ThreadLocal<>();
+
+    private final long thresholdNanos;
+
+    /**
+     * Constructs a new SqlTracer.
+     *
+     * @param slowThresholdMillis executions taking at least this long are logged; negative disables the slow log
+     * @param logPattern          {@link FileHandler} file pattern for the slow-query log
+     * @param logLimitBytes       size at which the log rotates to the next file
+     * @param logCount            number of log files to rotate through
+     */
+    public SqlTracer(long slowThresholdMillis, String logPattern, int logLimitBytes, int logCount) {
+        this.thresholdNanos = slowThresholdMillis < 0 ? -1 : slowThresholdMillis * 1_000_000L;
+        if (thresholdNanos >= 0) {
+            configureLog(logPattern, logLimitBytes, logCount);
+        }
+    }
+
+    private static synchronized void configureLog(String pattern, int limit, int count) {
+        if (SLOW_LOG.getHandlers().length > 0) {
+            return;
+        }
+        try {
+            FileHandler handler = new FileHandler(pattern, limit, count, true);
+            handler.setFormatter(new SlowQueryFormatter());
+            SLOW_LOG.addHandler(handler);
+            SLOW_LOG.setUseParentHandlers(false);
+        } catch (IOException | RuntimeException e) {
+            // Fall back to the console through the parent handlers
+            System.err.println("Error opening slow query log " + pattern + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether statements should remember their bound parameters for the slow log.
+     *
+     * @return true if the slow log is enabled
+     */
+    boolean capturesParameters() {
+        return thresholdNanos >= 0;
+    }
+
+    /**
+     * Records one execution: counts it against the current request and logs it if slow.
+     *
+     * @param sql            the SQL that ran
+     * @param parameters     bound parameters by index (index 0 unused), or null if not captured
+     * @param parameterCount highest bound parameter index
+     * @param batchSize      number of batched parameter sets, or 0 for a single execution
+     * @param nanos          how long the execution took
+     */
+    void record(String sql, Object[] parameters, int parameterCount, int batchSize, long nanos) {
+        RequestTrace trace = CURRENT_REQUEST.get();
+        if (trace != null) {
+            trace.statements.incrementAndGet();
+            trace.sqlNanos.addAndGet(nanos);
+        }
+        if (thresholdNanos >= 0 && nanos >= thresholdNanos) {
+            StringBuilder entry = new StringBuilder();
+            entry.append(String.format(Locale.ROOT, "%.1f ms", nanos / 1e6));
+            if (batchSize > 0) {
+                entry.append(" [batch of ").append(batchSize).append(']');
+            }
+            entry.append(" | ").append(normalize(sql));
+            if (parameters != null && parameterCount > 0) {
+                entry.append(" | params ").append(formatParameters(parameters, parameterCount));
+            }
+            SLOW_LOG.warning(entry.toString());
+        }
+    }
+
+    /**
+     * Starts counting statements executed by the current thread for a new request.
+     */
+    public static void beginRequest() {
+        CURRENT_REQUEST.set(new RequestTrace());
+    }
+
+    /**
+     * Stops counting for the current thread.
+     *
+     * @return the statements counted since {@link #beginRequest()}, or an empty trace if none was started
+     */
+    public static RequestTrace endRequest() {
+        RequestTrace trace = CURRENT_REQUEST.get();
+        CURRENT_REQUEST.remove();
+        return trace != null ? trace : new RequestTrace();
+    }
+
+    /**
+     * Returns the number of statements the current request has executed so far.
+     *
+     * @return the statement count, or 0 outside a request
+     */
+    public static int currentStatementCount() {
+        RequestTrace trace = CURRENT_REQUEST.get();
+        return trace != null ? trace.getStatements() : 0;
+    }
+
+    /**
+     * Returns the trace of the request the current thread is handling.
+     *
+     * @return the current trace, or null outside a request
+     */
+    public static RequestTrace currentRequest() {
+        return CURRENT_REQUEST.get();
+    }
+
+    /**
+     * Counts statements executed by the current thread against another thread's request,
+     * e.g. for work a request hands off to an executor. Undo with {@link #detachRequest()}.
+     *
+     * @param trace the request trace to count against, may be null
+     */
+    public static void attachRequest(RequestTrace trace) {
+        if (trace != null) {
+            CURRENT_REQUEST.set(trace);
+        }
+    }
+
+    /**
+     * Stops counting statements executed by the current thread, without ending the request.
+     */
+    public static void detachRequest() {
+        CURRENT_REQUEST.remove();
+    }
+
+    /**
+     * Writes a request that executed an unusually large number of statements to the slow-query log.
+     *
+     * @param request      a description of the request, e.g. method and URI
+     * @param trace        the request's statement counts
+     * @param elapsedNanos total time spent handling the request
+     */
+    public static void logChattyRequest(String request, RequestTrace trace, long elapsedNanos) {
+        SLOW_LOG.warning(String.format(Locale.ROOT, "%s ran %d statements (%.1f ms in SQL, %.1f ms total)",
+                request, trace.getStatements(), trace.getSqlNanos() / 1e6, elapsedNanos / 1e6));
+    }
+
+    private static String normalize(String sql) {
+        return sql == null ? "(unknown SQL)" : sql.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String formatParameters(Object[] parameters, int count) {
+        Object[] shown = Arrays.copyOfRange(parameters, 1, count + 1);
+        for (int i = 0; i < shown.length; i++) {
+            if (shown[i] instanceof String) {
+                String value = (String) shown[i];
+                shown[i] = "'" + (value.length() > MAX_PARAMETER_LENGTH
+                        ? value.substring(0, MAX_PARAMETER_LENGTH) + "..." : value) + "'";
+            } else if (shown[i] instanceof Object[]) {
+                shown[i] = Arrays.toString((Object[]) shown[i]);
+            }
+        }
+        return Arrays.toString(shown);
+    }
+
+    /**
+     * Statement counts for one request. Safe to update from several threads.
+     */
+    public static class RequestTrace {
+        private final AtomicInteger statements = new AtomicInteger();
+        private final AtomicLong sqlNanos = new AtomicLong();
+
+        public int getStatements() { return statements.get(); }
+
+        public long getSqlNanos() { return sqlNanos.get(); }
+    }
+
+    /**
+     * One line per entry: timestamp, level and message.
+     */
+    private static final class SlowQueryFormatter extends Formatter {
+        @Override
+        public String format(LogRecord record) {
+            return Instant.ofEpochMilli(record.getMillis()) + " " + record.getLevel() + " "
+                    + formatMessage(record) + System.lineSeparator();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.inventory_manager.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text.
+ * A pooled connection is only used by one borrower at a time, so the cache itself
+ * is not thread-safe; the hit/miss/eviction counters are shared across the pool.
+ *
+ * <p>A cached statement is reused as-is, so callers must not re-prepare the same SQL
+ * on the same connection while still reading a result set from the first one.</p>
+ */
+class StatementCache {
+
+    private final Connection physical;
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    /**
+     * Constructs a new StatementCache.
+     *
+     * @param physical  the connection statements are prepared on
+     * @param capacity  maximum number of statements kept open
+     * @param hits      pool-wide hit counter
+     * @param misses    pool-wide miss counter
+     * @param evictions pool-wide eviction counter
+     */
+    StatementCache(Connection physical, int capacity, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.capacity) {
+                    StatementCache.this.evictions.incrementAndGet();
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a cached statement for the given SQL, preparing it on a miss.
+     *
+     * @param sql               the SQL text
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or {@link Statement#NO_GENERATED_KEYS}
+     * @return an open prepared statement with its parameters and batch cleared
+     * @throws SQLException if the statement cannot be prepared
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        PreparedStatement stmt = statements.get(key);
+        if (stmt != null && !stmt.isClosed()) {
+            hits.incrementAndGet();
+            stmt.clearParameters();
+            stmt.clearBatch();
+            return stmt;
+        }
+
+        misses.incrementAndGet();
+        stmt = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (capacity > 0) {
+            statements.put(key, stmt);
+        }
+        return stmt;
+    }
+
+    /**
+     * Returns whether the given statement is owned by this cache.
+     *
+     * @param stmt the statement to check
+     * @return true if closing it should be deferred to the cache
+     */
+    boolean contains(PreparedStatement stmt) {
+        return statements.containsValue(stmt);
+    }
+
+    /**
+     * Closes every cached statement.
+     */
+    void clear() {
+        for (PreparedStatement stmt : statements.values()) {
+            closeQuietly(stmt);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.inventory_manager.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Invocation handler for statements handed out by the pool.
+ * It times {@code execute*} calls through the {@link SqlTracer}, remembers bound
+ * parameters for the slow-query log, makes {@code getConnection()} return the pooled
+ * proxy and, for statements owned by a {@link StatementCache}, turns {@code close()}
+ * into a no-op so the statement stays cached.
+ */
+final class TracingStatement implements InvocationHandler {
+
+    private final Statement target;
+    private final String sql;
+    private final Connection owner;
+    private final StatementCache cache;
+    private final SqlTracer tracer;
+
+    /** Bound parameters by index, grown on demand; null unless the tracer captures them. */
+    private Object[] parameters;
+    private int highestIndex;
+    private int batchSize;
+
+    private TracingStatement(Statement target, String sql, Connection owner, StatementCache cache, SqlTracer tracer) {
+        this.target = target;
+        this.sql = sql;
+        this.owner = owner;
+        this.cache = cache;
+        this.tracer = tracer;
+    }
+
+    /**
+     * Wraps a statement.
+     *
+     * @param target the statement to wrap
+     * @param sql    the SQL it was prepared with, or null for a plain statement
+     * @param owner  the pooled connection proxy to report from getConnection()
+     * @param cache  the cache owning the statement, or null if closing it should close it
+     * @param tracer the tracer to report executions to
+     * @return a proxy implementing the same statement interface as the target
+     */
+    static Statement wrap(Statement target, String sql, Connection owner, StatementCache cache, SqlTracer tracer) {
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{type},
+                new TracingStatement(target, sql, owner, cache, tracer));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "close":
+                if (cache == null || !cache.contains((PreparedStatement) target)) {
+                    target.close();
+                }
+                return null;
+            case "getConnection":
+                return owner;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "clearParameters":
+                parameters = null;
+                highestIndex = 0;
+                break;
+            case "addBatch":
+                batchSize++;
+                break;
+            case "clearBatch":
+                batchSize = 0;
+                break;
+            default:
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    bind((Integer) args[0], args[1]);
+                } else if (name.startsWith("execute")) {
+                    return execute(method, args);
+                }
+                break;
+        }
+        return invokeTarget(method, args);
+    }
+
+    private Object execute(Method method, Object[] args) throws Throwable {
+        boolean isBatch = method.getName().startsWith("executeBatch") || method.getName().startsWith("executeLargeBatch");
+        String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+        long start = System.nanoTime();
+        try {
+            return invokeTarget(method, args);
+        } finally {
+            tracer.record(executed, parameters, highestIndex, isBatch ? batchSize : 0, System.nanoTime() - start);
+            if (isBatch) {
+                batchSize = 0;
+            }
+        }
+    }
+
+    private void bind(int index, Object value) {
+        if (!tracer.capturesParameters() || index < 1) {
+            return;
+        }
+        if (parameters == null) {
+            parameters = new Object[Math.max(index + 1, 8)];
+        } else if (index >= parameters.length) {
+            parameters = Arrays.copyOf(parameters, Math.max(index + 1, parameters.length * 2));
+        }
+        parameters[index] = value;
+        highestIndex = Math.max(highestIndex, index);
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
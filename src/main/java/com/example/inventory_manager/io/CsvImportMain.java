@@ -0,0 +1,54 @@
+package com.example.inventory_manager.io;
+
+import com.example.inventory_manager.dao.impl.CachedProductDAO;
+import com.example.inventory_manager.dao.impl.InventoryItemDAOImpl;
+import com.example.inventory_manager.db.DbUtil;
+import com.example.inventory_manager.db.SchemaInitializer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Command-line entry point for bulk CSV imports.
+ * Usage: {@code CsvImportMain <file.csv> [chunkSize]}. The database is selected with the
+ * usual {@code inventory.db.*} system properties. Exits with status 1 if any row failed.
+ */
+public class CsvImportMain {
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: CsvImportMain <file.csv> [chunkSize]");
+            System.exit(2);
+        }
+        int chunkSize = args.length > 1 ? Integer.parseInt(args[1]) : CsvImporter.DEFAULT_CHUNK_SIZE;
+
+        SchemaInitializer.initialize();
+        CsvImporter importer = new CsvImporter(new CachedProductDAO(), new InventoryItemDAOImpl(),
+                chunkSize, CsvImporter.DEFAULT_MAX_ERRORS);
+
+        ImportResult result;
+        try (Reader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            result = importer.importCsv(in);
+        } catch (IOException e) {
+            System.err.println("Error importing " + args[0] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        } finally {
+            DbUtil.shutdown();
+        }
+
+        System.out.println(result.summary());
+        for (ImportResult.RowError error : result.getErrors()) {
+            System.out.println("  " + error);
+        }
+        if (result.getRowsFailed() > result.getErrors().size()) {
+            System.out.println("  ... and " + (result.getRowsFailed() - result.getErrors().size()) + " more");
+        }
+        if (result.getRowsFailed() > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.inventory_manager.io;
+
+import com.example.inventory_manager.dao.InventoryItemDAO;
+import com.example.inventory_manager.dao.ProductDAO;
+import com.example.inventory_manager.dao.impl.CachedProductDAO;
+import com.example.inventory_manager.model.InventoryItem;
+import com.example.inventory_manager.model.Product;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk import of products and stock levels from CSV.
+ *
+ * <p>The first record is a header naming the columns, in any order and case:
+ * {@code sku}, {@code name} and {@code price} are required; {@code category},
+ * {@code description}, {@code quantity} and {@code location} are optional, and other
+ * columns are ignored. Products are inserted or updated by SKU; an existing product takes
+ * all of its fields from the row, so blank optional fields clear stored values. When the
+ * file has a {@code quantity} column, each row also sets the stock of its product at its
+ * {@code location} (default "Default Location"); a row with a blank quantity writes its
+ * product only and leaves the stock as it is.</p>
+ *
+ * <p>The file is parsed as a stream and written in chunks, each in its own transaction,
+ * so memory use does not grow with the file. Rows that fail validation are reported and
+ * skipped. If the database rejects a chunk, its rows are retried one at a time so that
+ * a single bad row only fails itself.</p>
+ */
+public class CsvImporter {
+
+    /** Default number of rows written per transaction. */
+    public static final int DEFAULT_CHUNK_SIZE = 2000;
+
+    /** Default number of row errors kept in the result. */
+    public static final int DEFAULT_MAX_ERRORS = 100;
+
+    private static final String DEFAULT_LOCATION = "Default Location";
+
+    private final ProductDAO productDAO;
+    private final InventoryItemDAO inventoryItemDAO;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    /**
+     * Constructs a new CsvImporter.
+     *
+     * @param productDAO       used for rows without a quantity
+     * @param inventoryItemDAO used for rows with a quantity
+     * @param chunkSize        number of rows written per transaction
+     * @param maxErrors        number of row errors kept in the result
+     */
+    public CsvImporter(ProductDAO productDAO, InventoryItemDAO inventoryItemDAO, int chunkSize, int maxErrors) {
+        this.productDAO = productDAO;
+        this.inventoryItemDAO = inventoryItemDAO;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Imports every row of a CSV file.
+     *
+     * @param in the CSV text; it is read to the end but not closed
+     * @return the row counts and errors
+     * @throws IOException if reading fails, the CSV is malformed, or the header lacks a required column
+     */
+    public ImportResult importCsv(Reader in) throws IOException {
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult(maxErrors);
+        CsvReader csv = new CsvReader(in);
+
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            throw new IOException("CSV file is empty");
+        }
+        Columns columns = new Columns(header);
+
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        List<String> record;
+        while ((record = csv.readRecord()) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            result.rowRead();
+
+            Row row = columns.parse(record, csv.getRecordLine(), result);
+            if (row != null) {
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    write(chunk, result);
+                    chunk.clear();
+                }
+            }
+        }
+        write(chunk, result);
+
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Writes one chunk in a single transaction, falling back to one row per transaction
+     * if the chunk is rejected.
+     */
+    private void write(List<Row> chunk, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        if (save(chunk)) {
+            result.rowsImported(chunk.size());
+        } else {
+            result.chunkRetried();
+            for (Row row : chunk) {
+                if (save(Collections.singletonList(row))) {
+                    result.rowsImported(1);
+                } else {
+                    result.rowFailed(row.line, row.item.getProduct().getSku(), "rejected by the database");
+                }
+            }
+        }
+
+        for (Row row : chunk) {
+            CachedProductDAO.getCache().invalidateSku(row.item.getProduct().getSku());
+        }
+    }
+
+    /**
+     * Saves rows with a quantity through the inventory item DAO and the others through the
+     * product DAO. A chunk that mixes both is written in two transactions; if the second one
+     * fails, the retry rewrites the first one's rows, which is harmless since saves are upserts.
+     */
+    private boolean save(List<Row> rows) {
+        List<InventoryItem> items = new ArrayList<>();
+        List<Product> products = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.withStock) {
+                items.add(row.item);
+            } else {
+                products.add(row.item.getProduct());
+            }
+        }
+        return (items.isEmpty() || inventoryItemDAO.saveAll(items))
+                && (products.isEmpty() || productDAO.saveAll(products));
+    }
+
+    /**
+     * A validated data row and the line it started on.
+     */
+    private static final class Row {
+        private final long line;
+        private final InventoryItem item;
+        /** False when the row has no quantity, so only its product is written. */
+        private final boolean withStock;
+
+        Row(long line, InventoryItem item, boolean withStock) {
+            this.line = line;
+            this.item = item;
+            this.withStock = withStock;
+        }
+    }
+
+    /**
+     * Column positions from the header, and validation of data rows against them.
+     */
+    private static final class Columns {
+        private final int sku;
+        private final int name;
+        private final int price;
+        private final int category;
+        private final int description;
+        private final int quantity;
+        private final int location;
+
+        Columns(List<String> header) throws IOException {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                positions.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            sku = positions.getOrDefault("sku", -1);
+            name = positions.getOrDefault("name", -1);
+            price = positions.getOrDefault("price", -1);
+            category = positions.getOrDefault("category", -1);
+            description = positions.getOrDefault("description", -1);
+            quantity = positions.getOrDefault("quantity", -1);
+            location = positions.getOrDefault("location", -1);
+
+            if (sku < 0 || name < 0 || price < 0) {
+                throw new IOException("CSV header must contain sku, name and price columns, found " + header);
+            }
+        }
+
+        /**
+         * Validates a data row.
+         *
+         * @return the row, or null if it is invalid (the error is added to the result)
+         */
+        Row parse(List<String> record, long line, ImportResult result) {
+            String skuValue = get(record, sku);
+            String nameValue = get(record, name);
+            String categoryValue = get(record, category);
+            String descriptionValue = get(record, description);
+            String locationValue = get(record, location);
+            String quantityText = get(record, quantity);
+
+            String error = null;
+            double priceValue = 0;
+            int quantityValue = 0;
+            if (skuValue == null) {
+                error = "sku is missing";
+            } else if (skuValue.length() > 100) {
+                error = "sku is longer than 100 characters";
+            } else if (nameValue == null) {
+                error = "name is missing";
+            } else if (nameValue.length() > 255) {
+                error = "name is longer than 255 characters";
+            } else if (categoryValue != null && categoryValue.length() > 100) {
+                error = "category is longer than 100 characters";
+            } else if (descriptionValue != null && descriptionValue.length() > 500) {
+                error = "description is longer than 500 characters";
+            } else if (locationValue != null && locationValue.length() > 255) {
+                error = "location is longer than 255 characters";
+            } else {
+                try {
+                    priceValue = Double.parseDouble(get(record, price));
+                    if (!(priceValue >= 0) || Double.isInfinite(priceValue)) {
+                        error = "price must be a non-negative number";
+                    }
+                } catch (NumberFormatException | NullPointerException e) {
+                    error = "price is not a number";
+                }
+                if (error == null && quantityText != null) {
+                    try {
+                        quantityValue = Integer.parseInt(quantityText);
+                        if (quantityValue < 0) {
+                            error = "quantity cannot be negative";
+                        }
+                    } catch (NumberFormatException e) {
+                        error = "quantity is not a whole number";
+                    }
+                }
+            }
+
+            if (error != null) {
+                result.rowFailed(line, skuValue, error);
+                return null;
+            }
+            Product product = new Product(0, nameValue, skuValue, categoryValue, priceValue, descriptionValue);
+            InventoryItem item = new InventoryItem(product, quantityValue,
+                    locationValue != null ? locationValue : DEFAULT_LOCATION);
+            return new Row(line, item, quantityText != null);
+        }
+
+        /**
+         * Returns a trimmed field, or null if the column is absent, the row is short, or the field is blank.
+         */
+        private static String get(List<String> record, int column) {
+            if (column < 0 || column >= record.size()) {
+                return null;
+            }
+            String value = record.get(column).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.inventory_manager.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for comma-separated values (RFC 4180).
+ * Records are parsed one at a time from an internal buffer, so files of any size can be
+ * read in constant memory. Fields may be quoted; quoted fields can contain commas,
+ * line breaks and doubled quotes. Both LF and CRLF line endings are accepted, and a
+ * leading byte order mark is skipped.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean started;
+
+    private final StringBuilder field = new StringBuilder();
+    private long line = 1;
+    private long recordLine;
+
+    /**
+     * Constructs a new CsvReader.
+     *
+     * @param in the characters to parse; buffering is done internally
+     */
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the fields of the record, or null at the end of the input
+     * @throws IOException if reading fails or a quoted field is not closed
+     */
+    public List<String> readRecord() throws IOException {
+        int c = next();
+        if (!started) {
+            started = true;
+            if (c == '\uFEFF') {
+                c = next();
+            }
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+
+        while (true) {
+            if (c == '"' && field.length() == 0 && !quoted) {
+                quoted = true;
+                readQuoted();
+                c = next();
+                continue;
+            }
+            if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\n' || c == -1) {
+                line++;
+                break;
+            } else if (c == '\r') {
+                int following = next();
+                if (following != '\n' && following != -1) {
+                    position--;
+                }
+                line++;
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = next();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Returns the line on which the last record returned by {@link #readRecord()} started.
+     *
+     * @return a 1-based line number
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Appends the rest of a quoted field to the current field, stopping after the closing quote.
+     */
+    private void readQuoted() throws IOException {
+        long startLine = line;
+        while (true) {
+            int c = next();
+            if (c == -1) {
+                throw new IOException("Unterminated quoted field starting on line " + startLine);
+            }
+            if (c == '"') {
+                int following = next();
+                if (following != '"') {
+                    if (following != -1) {
+                        position--;
+                    }
+                    return;
+                }
+            } else if (c == '\n') {
+                line++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    private int next() throws IOException {
+        if (position == limit) {
+            int read = in.read(buffer, 0, buffer.length);
+            if (read <= 0) {
+                return -1;
+            }
+            position = 0;
+            limit = read;
+        }
+        return buffer[position++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
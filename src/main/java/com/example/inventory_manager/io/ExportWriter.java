@@ -0,0 +1,285 @@
+package com.example.inventory_manager.io;
+
+import com.example.inventory_manager.model.InventoryItem;
+import com.example.inventory_manager.model.Order;
+import com.example.inventory_manager.model.Product;
+import com.example.inventory_manager.model.Supplier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes products, inventory items or orders one record at a time as CSV or
+ * newline-delimited JSON. Used to stream exports from a DAO cursor straight to their
+ * destination; the write methods can be passed directly as row callbacks.
+ *
+ * <p>CSV output starts with a header row. Orders are flattened to one CSV row per
+ * order line (order columns repeated, line columns empty for orders without lines);
+ * in NDJSON each order is one object with a {@code lines} array.</p>
+ */
+public class ExportWriter {
+
+    /** Output formats. */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+
+        public String getExtension() { return extension; }
+    }
+
+    /** What is being exported, with its CSV columns. */
+    public enum Type {
+        PRODUCTS("id", "sku", "name", "category", "price", "description"),
+        INVENTORY("inventory_id", "product_id", "sku", "name", "category", "price", "quantity", "location"),
+        ORDERS("order_id", "order_date", "status", "supplier_id", "supplier_name",
+                "product_id", "sku", "quantity", "price");
+
+        private final String[] columns;
+
+        Type(String... columns) {
+            this.columns = columns;
+        }
+    }
+
+    private static final String[] ORDER_LINE_COLUMNS = {"product_id", "sku", "quantity", "price"};
+
+    private final Writer out;
+    private final Format format;
+    private final int flushEvery;
+    private String[] columns;
+    private long count;
+
+    /**
+     * Constructs a new ExportWriter.
+     *
+     * @param out        the destination of the export
+     * @param format     the output format
+     * @param flushEvery flush the writer after this many records, or 0 to never flush early
+     */
+    public ExportWriter(Writer out, Format format, int flushEvery) {
+        this.out = out;
+        this.format = format;
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Starts an export, writing the CSV header row if needed.
+     *
+     * @param type what will be exported
+     * @throws IOException if writing fails
+     */
+    public void begin(Type type) throws IOException {
+        columns = type.columns;
+        if (format == Format.CSV) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(columns[i]);
+            }
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Writes one product.
+     *
+     * @param product the product
+     * @throws UncheckedIOException if writing fails
+     */
+    public void writeProduct(Product product) {
+        record(product.getId(), product.getSku(), product.getName(), product.getCategory(),
+                product.getPrice(), product.getDescription());
+    }
+
+    /**
+     * Writes one inventory item with its product.
+     *
+     * @param item the inventory item
+     * @throws UncheckedIOException if writing fails
+     */
+    public void writeItem(InventoryItem item) {
+        Product product = item.getProduct();
+        record(item.getInventoryId(), product.getId(), product.getSku(), product.getName(),
+                product.getCategory(), product.getPrice(), item.getCurrentStock(), item.getLocation());
+    }
+
+    /**
+     * Writes one order with its lines.
+     *
+     * @param order the order
+     * @throws UncheckedIOException if writing fails
+     */
+    public void writeOrder(Order order) {
+        Supplier supplier = order.getSupplier();
+        Object supplierId = supplier != null ? supplier.getSupplierId() : null;
+        Object supplierName = supplier != null ? supplier.getName() : null;
+        String date = formatDate(order.getOrderDate());
+        List<InventoryItem> lines = order.getOrderedItems();
+
+        try {
+            if (format == Format.CSV) {
+                if (lines.isEmpty()) {
+                    writeCsv(order.getOrderId(), date, order.getStatus(), supplierId, supplierName,
+                            null, null, null, null);
+                }
+                for (InventoryItem line : lines) {
+                    Product product = line.getProduct();
+                    writeCsv(order.getOrderId(), date, order.getStatus(), supplierId, supplierName,
+                            product.getId(), product.getSku(), line.getCurrentStock(), product.getPrice());
+                }
+            } else {
+                out.write('{');
+                writeJsonFields(columns, 0, 5, order.getOrderId(), date, order.getStatus(), supplierId, supplierName);
+                out.write(",\"lines\":[");
+                for (int i = 0; i < lines.size(); i++) {
+                    Product product = lines.get(i).getProduct();
+                    out.write(i > 0 ? ",{" : "{");
+                    writeJsonFields(ORDER_LINE_COLUMNS, 0, ORDER_LINE_COLUMNS.length,
+                            product.getId(), product.getSku(), lines.get(i).getCurrentStock(), product.getPrice());
+                    out.write('}');
+                }
+                out.write("]}\n");
+            }
+            recordWritten();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes the output.
+     *
+     * @throws IOException if flushing fails
+     */
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Returns the number of records written so far.
+     *
+     * @return the record count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    private void record(Object... values) {
+        try {
+            if (format == Format.CSV) {
+                writeCsv(values);
+            } else {
+                out.write('{');
+                writeJsonFields(columns, 0, values.length, values);
+                out.write("}\n");
+            }
+            recordWritten();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void recordWritten() throws IOException {
+        count++;
+        if (flushEvery > 0 && count % flushEvery == 0) {
+            out.flush();
+        }
+    }
+
+    private void writeCsv(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (value instanceof String && needsQuotes(text)) {
+                out.write('"');
+                out.write(text.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(text);
+            }
+        }
+        out.write('\n');
+    }
+
+    private static boolean needsQuotes(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return !text.isEmpty() && (text.charAt(0) == ' ' || text.charAt(text.length() - 1) == ' ');
+    }
+
+    private void writeJsonFields(String[] names, int from, int to, Object... values) throws IOException {
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                out.write(',');
+            }
+            writeJsonString(out, names[i]);
+            out.write(':');
+            Object value = values[i - from];
+            if (value == null || (value instanceof Double && !Double.isFinite((Double) value))) {
+                out.write("null");
+            } else if (value instanceof Number) {
+                out.write(value.toString());
+            } else {
+                writeJsonString(out, value.toString());
+            }
+        }
+    }
+
+    /**
+     * Writes a string as a quoted JSON string, escaping quotes, backslashes and control characters.
+     *
+     * @param out  the writer to write to
+     * @param text the string to write
+     * @throws IOException if writing fails
+     */
+    public static void writeJsonString(Writer out, String text) throws IOException {
+        out.write('"');
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.write(text, run, i - run);
+            run = i + 1;
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default: out.write(String.format("\\u%04x", (int) c));
+            }
+        }
+        out.write(text, run, text.length() - run);
+        out.write('"');
+    }
+
+    private static String formatDate(Date date) {
+        return date != null ? new java.sql.Date(date.getTime()).toString() : null;
+    }
+}
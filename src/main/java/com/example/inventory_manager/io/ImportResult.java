@@ -0,0 +1,117 @@
+package com.example.inventory_manager.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Outcome of a CSV import: row counts, timing and the rows that could not be imported.
+ * Only the first few errors are kept; {@link #getRowsFailed()} counts all of them.
+ */
+public class ImportResult {
+
+    private final int maxErrors;
+    private final List<RowError> errors = new ArrayList<>();
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsFailed;
+    private long chunksRetried;
+    private long elapsedNanos;
+
+    /**
+     * Constructs a new ImportResult.
+     *
+     * @param maxErrors the number of row errors to keep
+     */
+    ImportResult(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    void rowRead() {
+        rowsRead++;
+    }
+
+    void rowsImported(int count) {
+        rowsImported += count;
+    }
+
+    void chunkRetried() {
+        chunksRetried++;
+    }
+
+    void rowFailed(long line, String sku, String message) {
+        rowsFailed++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(line, sku, message));
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowsRead() { return rowsRead; }
+
+    public long getRowsImported() { return rowsImported; }
+
+    public long getRowsFailed() { return rowsFailed; }
+
+    public long getChunksRetried() { return chunksRetried; }
+
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    /**
+     * Returns the kept row errors, in file order.
+     *
+     * @return an unmodifiable list of at most {@code maxErrors} errors
+     */
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Returns the import throughput.
+     *
+     * @return rows read per second
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rowsRead * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Returns a one-line summary of the import.
+     *
+     * @return the summary text
+     */
+    public String summary() {
+        return String.format(Locale.ROOT, "%d rows read, %d imported, %d failed in %.2f s (%.0f rows/s)",
+                rowsRead, rowsImported, rowsFailed, elapsedNanos / 1e9, getRowsPerSecond());
+    }
+
+    /**
+     * A row that could not be imported.
+     */
+    public static class RowError {
+        private final long line;
+        private final String sku;
+        private final String message;
+
+        RowError(long line, String sku, String message) {
+            this.line = line;
+            this.sku = sku;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+
+        public String getSku() { return sku; }
+
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "line " + line + (sku != null && !sku.isEmpty() ? " (" + sku + ")" : "") + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.inventory_manager.metrics;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two buckets from 1&nbsp;&micro;s to about 16.8&nbsp;s.
+ * Recording is a bucket index computation plus two atomic increments, so it neither
+ * blocks nor allocates and can be called on every request.
+ */
+public class LatencyHistogram {
+
+    /** Number of finite buckets; bucket {@code i} holds latencies up to {@code 2^i} microseconds. */
+    static final int FINITE_BUCKETS = 25;
+
+    /** Upper bounds of the finite buckets in seconds, formatted for the Prometheus {@code le} label. */
+    static final String[] UPPER_BOUNDS = new String[FINITE_BUCKETS];
+
+    static {
+        for (int i = 0; i < FINITE_BUCKETS; i++) {
+            UPPER_BOUNDS[i] = BigDecimal.valueOf(1000L << i, 9).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    /** Finite buckets followed by one overflow bucket. */
+    private final AtomicLongArray buckets = new AtomicLongArray(FINITE_BUCKETS + 1);
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Records one observation.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        buckets.incrementAndGet(bucketIndex(nanos));
+        sumNanos.add(Math.max(0, nanos));
+    }
+
+    /**
+     * Returns the smallest bucket whose upper bound, {@code 1000 * 2^i} ns, is at least the latency.
+     */
+    static int bucketIndex(long nanos) {
+        if (nanos <= 1000) {
+            return 0;
+        }
+        int index = 64 - Long.numberOfLeadingZeros((nanos - 1) / 1000);
+        return Math.min(index, FINITE_BUCKETS);
+    }
+
+    /**
+     * Returns the observation counts per bucket (not cumulative), overflow bucket last.
+     * Buckets are read one by one, so a snapshot taken under load may be slightly skewed.
+     *
+     * @return the bucket counts
+     */
+    public long[] getBucketCounts() {
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the sum of all recorded latencies.
+     *
+     * @return total nanoseconds
+     */
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.inventory_manager.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counter, error counter and latency histogram for one instrumented operation.
+ * Timers are created once, held in static fields and used like this:
+ *
+ * <pre>
+ * long start = TIMER.start();
+ * try {
+ *     ...
+ * } catch (SQLException e) {
+ *     TIMER.error();
+ *     ...
+ * } finally {
+ *     TIMER.stop(start);
+ * }
+ * </pre>
+ */
+public class MethodTimer {
+
+    private final String family;
+    private final String labels;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * Constructs a new MethodTimer. Use {@link MetricsRegistry} so the timer is exported.
+     *
+     * @param family the metric name prefix
+     * @param labels the Prometheus label pairs identifying this timer, without braces
+     */
+    MethodTimer(String family, String labels) {
+        this.family = family;
+        this.labels = labels;
+    }
+
+    /**
+     * Marks the start of a call.
+     *
+     * @return the start timestamp to pass to {@link #stop(long)}
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the end of a call, counting it and recording its latency.
+     *
+     * @param start the value returned by {@link #start()}
+     */
+    public void stop(long start) {
+        calls.increment();
+        histogram.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Counts a failed call. The call is still counted and timed by {@link #stop(long)}.
+     */
+    public void error() {
+        errors.increment();
+    }
+
+    public String getFamily() { return family; }
+
+    public String getLabels() { return labels; }
+
+    public long getCalls() { return calls.sum(); }
+
+    public long getErrors() { return errors.sum(); }
+
+    public LatencyHistogram getHistogram() { return histogram; }
+}
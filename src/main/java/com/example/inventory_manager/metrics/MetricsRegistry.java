@@ -0,0 +1,122 @@
+package com.example.inventory_manager.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide registry of {@link MethodTimer}s, rendered in the Prometheus text exposition format.
+ * Each timer family is exported as a {@code <family>_duration_seconds} histogram plus
+ * {@code <family>_calls_total} and {@code <family>_errors_total} counters.
+ */
+public final class MetricsRegistry {
+
+    /** Timers for public DAO methods, labelled with {@code dao} and {@code method}. */
+    public static final String DAO_FAMILY = "inventory_dao";
+
+    /** Timers for servlet POST actions, labelled with {@code servlet} and {@code action}. */
+    public static final String ACTION_FAMILY = "inventory_servlet_action";
+
+    private static final Map<String, String> DESCRIPTIONS = Map.of(
+            DAO_FAMILY, "DAO method calls",
+            ACTION_FAMILY, "servlet POST actions"
+    );
+
+    /** Timers keyed by family and labels, in registration order. Guarded by itself. */
+    private static final Map<String, MethodTimer> TIMERS = new LinkedHashMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Returns the timer for a DAO method, creating it on first use.
+     *
+     * @param dao    the DAO class
+     * @param method the method name
+     * @return the shared timer
+     */
+    public static MethodTimer daoTimer(Class<?> dao, String method) {
+        return timer(DAO_FAMILY, "dao=\"" + dao.getSimpleName() + "\",method=\"" + method + "\"");
+    }
+
+    /**
+     * Returns the timer for a servlet action, creating it on first use.
+     *
+     * @param servlet the servlet class
+     * @param action  the action name
+     * @return the shared timer
+     */
+    public static MethodTimer actionTimer(Class<?> servlet, String action) {
+        return timer(ACTION_FAMILY, "servlet=\"" + servlet.getSimpleName() + "\",action=\"" + action + "\"");
+    }
+
+    private static MethodTimer timer(String family, String labels) {
+        synchronized (TIMERS) {
+            return TIMERS.computeIfAbsent(family + "{" + labels + "}", key -> new MethodTimer(family, labels));
+        }
+    }
+
+    /**
+     * Returns all registered timers.
+     *
+     * @return a snapshot of the timers in registration order
+     */
+    public static List<MethodTimer> getTimers() {
+        synchronized (TIMERS) {
+            return new ArrayList<>(TIMERS.values());
+        }
+    }
+
+    /**
+     * Writes every timer family in the Prometheus text format (version 0.0.4).
+     *
+     * @param out the writer to render to
+     * @throws IOException if writing fails
+     */
+    public static void writePrometheus(Writer out) throws IOException {
+        List<MethodTimer> timers = getTimers();
+        for (String family : new String[]{DAO_FAMILY, ACTION_FAMILY}) {
+            writeFamily(out, family, timers);
+        }
+    }
+
+    private static void writeFamily(Writer out, String family, List<MethodTimer> timers) throws IOException {
+        String description = DESCRIPTIONS.get(family);
+
+        String histogram = family + "_duration_seconds";
+        out.write("# HELP " + histogram + " Latency of " + description + ".\n");
+        out.write("# TYPE " + histogram + " histogram\n");
+        for (MethodTimer timer : timers) {
+            if (!timer.getFamily().equals(family)) {
+                continue;
+            }
+            long[] counts = timer.getHistogram().getBucketCounts();
+            long cumulative = 0;
+            for (int i = 0; i < LatencyHistogram.FINITE_BUCKETS; i++) {
+                cumulative += counts[i];
+                out.write(histogram + "_bucket{" + timer.getLabels() + ",le=\"" + LatencyHistogram.UPPER_BOUNDS[i] + "\"} " + cumulative + "\n");
+            }
+            cumulative += counts[LatencyHistogram.FINITE_BUCKETS];
+            out.write(histogram + "_bucket{" + timer.getLabels() + ",le=\"+Inf\"} " + cumulative + "\n");
+            out.write(histogram + "_sum{" + timer.getLabels() + "} " + timer.getHistogram().getSumNanos() / 1e9 + "\n");
+            out.write(histogram + "_count{" + timer.getLabels() + "} " + cumulative + "\n");
+        }
+
+        writeCounter(out, family + "_calls_total", "Number of " + description + ".", family, timers, false);
+        writeCounter(out, family + "_errors_total", "Number of failed " + description + ".", family, timers, true);
+    }
+
+    private static void writeCounter(Writer out, String name, String help, String family,
+                                     List<MethodTimer> timers, boolean errors) throws IOException {
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " counter\n");
+        for (MethodTimer timer : timers) {
+            if (timer.getFamily().equals(family)) {
+                out.write(name + "{" + timer.getLabels() + "} " + (errors ? timer.getErrors() : timer.getCalls()) + "\n");
+            }
+        }
+    }
+}
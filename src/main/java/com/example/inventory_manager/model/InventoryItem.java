@@ -7,9 +7,11 @@ package com.example.inventory_manager.model;
  */
 
 public class InventoryItem implements StockTrackable {
+    private int inventoryId;
     private Product product;
-    private int quantity;
+    private volatile int quantity;
     private String location;
+    private long version;
 
     /**
      * Constructs a new InventoryItem with the given product, quantity, and location.
@@ -28,6 +30,9 @@ public class InventoryItem implements StockTrackable {
 
     /**
      * Updates the current stock based on a quantity change.
+     * The change is checked first, so a rejected change leaves the stock as it was.
+     * The read and write are not atomic; callers that share an item between threads
+     * serialize changes to it, as {@link InventoryManager} does with its stock locks.
      *
      * @param quantityChange the amount to change the stock (positive to increase, negative to decrease)
      * @throws RuntimeException if stock would fall below zero
@@ -35,8 +40,9 @@ public class InventoryItem implements StockTrackable {
 
     @Override
     public void updateStock(int quantityChange) {
-        quantity += quantityChange;
-        if (quantity < 0) throw new RuntimeException("Stock cannot go below zero.");
+        int updated = quantity + quantityChange;
+        if (updated < 0) throw new RuntimeException("Stock cannot go below zero.");
+        quantity = updated;
     }
 
     /**
@@ -62,6 +68,39 @@ public class InventoryItem implements StockTrackable {
     }
 
 
+    /**
+     * Returns the database ID of this inventory item.
+     *
+     * @return the inventory ID, or 0 if the item has not been loaded from the database
+     */
+
+    public int getInventoryId() { return inventoryId; }
+
+    /**
+     * Sets the database ID of this inventory item.
+     *
+     * @param inventoryId the inventory ID
+     */
+
+    public void setInventoryId(int inventoryId) { this.inventoryId = inventoryId; }
+
+    /**
+     * Returns the version of the inventory row this item was read from.
+     * Compare-and-swap updates only apply while the row still has this version.
+     *
+     * @return the row version, or 0 if the item has not been loaded from the database
+     */
+
+    public long getVersion() { return version; }
+
+    /**
+     * Sets the version of the inventory row this item was read from.
+     *
+     * @param version the row version
+     */
+
+    public void setVersion(long version) { this.version = version; }
+
     /**
      * Returns the product associated with this inventory item.
      *
@@ -1,18 +1,32 @@
 package com.example.inventory_manager.model;
 
+import com.example.inventory_manager.concurrent.LockStats;
+import com.example.inventory_manager.concurrent.StripedLockManager;
+
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Manages the inventory system including products, suppliers, and inventory items.
  * Provides operations to add new products, suppliers, update stock levels, and generate unique IDs.
+ * Products and their inventory items are indexed by normalized SKU, so lookups and
+ * stock updates take constant time regardless of catalog size.
+ * Stock updates may come from several threads: each one holds the striped lock of its SKU,
+ * so updates of one product are serialized while other products proceed in parallel.
+ * Adding products and suppliers is not thread-safe and should happen before updates start.
  */
 public class InventoryManager {
     private List<Product> products;
     private List<Supplier> suppliers;
     private List<InventoryItem> inventoryItems;
+    private Map<String, Product> productsBySku;
+    private Map<String, InventoryItem> inventoryItemsBySku;
     private int productIdCounter = 1;
     private int supplierIdCounter = 1;
+    private final StripedLockManager stockLocks = StripedLockManager.fromSystemProperties();
 
     /**
      * Constructs a new InventoryManager with empty lists of products, suppliers, and inventory items.
@@ -21,27 +35,51 @@ public class InventoryManager {
         this.products = new ArrayList<>();
         this.suppliers = new ArrayList<>();
         this.inventoryItems = new ArrayList<>();
+        this.productsBySku = new HashMap<>();
+        this.inventoryItemsBySku = new HashMap<>();
+    }
+
+    /**
+     * Normalizes a SKU for use as an index key, so lookups are case-insensitive.
+     * Each character is folded the way {@link String#equalsIgnoreCase(String)} compares it,
+     * upper case and then lower case, so two SKUs share a key exactly when they are equal
+     * ignoring case. Whole-string case mapping would differ: "ß" upper-cases to "SS".
+     *
+     * @param sku the SKU as entered
+     * @return the index key
+     */
+    private static String skuKey(String sku) {
+        StringBuilder key = new StringBuilder(sku.length());
+        sku.codePoints().forEach(c -> key.appendCodePoint(Character.toLowerCase(Character.toUpperCase(c))));
+        return key.toString();
     }
 
     // ===== PRODUCT =====
 
     /**
      * Adds a new product to the inventory and initializes its stock to zero.
+     * If several products share a SKU, lookups by that SKU return the first one added.
      *
      * @param product the product to add
      */
     public void addProduct(Product product) {
+        InventoryItem item = new InventoryItem(product, 0, "Unknown"); // start with 0 stock
         products.add(product);
-        inventoryItems.add(new InventoryItem(product, 0, "Unknown")); // start with 0 stock
+        inventoryItems.add(item);
+
+        String key = skuKey(product.getSku());
+        productsBySku.putIfAbsent(key, product);
+        inventoryItemsBySku.putIfAbsent(key, item);
     }
 
     /**
      * Returns the list of all products.
+     * The list is read-only; add products with {@link #addProduct(Product)} so they are indexed.
      *
      * @return list of products
      */
     public List<Product> getProducts() {
-        return products;
+        return Collections.unmodifiableList(products);
     }
 
     /**
@@ -51,12 +89,7 @@ public class InventoryManager {
      * @return the matching product, or null if not found
      */
     public Product findProductBySku(String sku) {
-        for (Product p : products) {
-            if (p.getSku().equalsIgnoreCase(sku)) {
-                return p;
-            }
-        }
-        return null;
+        return productsBySku.get(skuKey(sku));
     }
 
     // ===== SUPPLIER =====
@@ -89,22 +122,73 @@ public class InventoryManager {
      * @throws IllegalArgumentException if the product with the given SKU is not found
      */
     public void updateStockForProduct(String sku, int quantityChange) {
-        for (InventoryItem item : inventoryItems) {
-            if (item.getProduct().getSku().equalsIgnoreCase(sku)) {
-                item.updateStock(quantityChange);
-                return;
+        String key = skuKey(sku);
+        InventoryItem item = inventoryItemsBySku.get(key);
+        if (item == null) {
+            throw new IllegalArgumentException("Product with SKU " + sku + " not found.");
+        }
+        stockLocks.withLock(key, () -> item.updateStock(quantityChange));
+    }
+
+    /**
+     * Updates the stock of several products at once, for example for the lines of an order.
+     * The locks of all SKUs are taken together in a fixed order, every change is checked,
+     * and only then are they applied, so either all change or none does.
+     * Changes for the same SKU (in any letter case) are added together.
+     *
+     * @param changes quantity change per SKU
+     * @throws IllegalArgumentException if a SKU is not found
+     * @throws RuntimeException         if any product's stock would fall below zero
+     */
+    public void updateStockForProducts(Map<String, Integer> changes) {
+        Map<String, Integer> byKey = new HashMap<>();
+        for (Map.Entry<String, Integer> change : changes.entrySet()) {
+            String key = skuKey(change.getKey());
+            if (!inventoryItemsBySku.containsKey(key)) {
+                throw new IllegalArgumentException("Product with SKU " + change.getKey() + " not found.");
             }
+            byKey.merge(key, change.getValue(), Integer::sum);
         }
-        throw new IllegalArgumentException("Product with SKU " + sku + " not found.");
+
+        stockLocks.withLocks(byKey.keySet(), () -> {
+            for (Map.Entry<String, Integer> change : byKey.entrySet()) {
+                if (inventoryItemsBySku.get(change.getKey()).getCurrentStock() + change.getValue() < 0) {
+                    throw new RuntimeException("Stock cannot go below zero.");
+                }
+            }
+            for (Map.Entry<String, Integer> change : byKey.entrySet()) {
+                inventoryItemsBySku.get(change.getKey()).updateStock(change.getValue());
+            }
+        });
+    }
+
+    /**
+     * Returns the counters of the stock locks, to see how often updates waited for each other.
+     *
+     * @return the lock statistics
+     */
+    public LockStats getStockLockStats() {
+        return stockLocks.getStats();
+    }
+
+    /**
+     * Finds the inventory item of a product by its SKU (case-insensitive).
+     *
+     * @param sku the SKU of the product
+     * @return the matching inventory item, or null if not found
+     */
+    public InventoryItem findInventoryItemBySku(String sku) {
+        return inventoryItemsBySku.get(skuKey(sku));
     }
 
     /**
      * Returns the list of all inventory items.
+     * The list is read-only; items are created by {@link #addProduct(Product)}.
      *
      * @return list of inventory items
      */
     public List<InventoryItem> getInventoryItems() {
-        return inventoryItems;
+        return Collections.unmodifiableList(inventoryItems);
     }
 
     // ===== ID GENERATORS =====
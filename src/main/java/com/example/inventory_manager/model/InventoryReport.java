@@ -1,10 +1,14 @@
 package com.example.inventory_manager.model;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
  * Generates a report summarizing the inventory status.
  * Implements the ReportGeneratable interface to provide a text-based report.
+ * For reports too large to build in memory, use {@link InventoryReportWriter} directly.
  */
 public class InventoryReport implements ReportGeneratable {
 
@@ -26,19 +30,16 @@ public class InventoryReport implements ReportGeneratable {
      */
     @Override
     public String generateReport() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("=== Inventory Report ===\n\n");
-
-        for (InventoryItem item : inventoryItems) {
-            sb.append("Product: ").append(item.getProduct().getName())
-                    .append(" | SKU: ").append(item.getProduct().getSku())
-                    .append(" | Stock: ").append(item.getCurrentStock())
-                    .append(" | Location: ").append(item.getLocation())
-                    .append("\n");
+        StringWriter out = new StringWriter();
+        InventoryReportWriter writer = new InventoryReportWriter(out, 0);
+        try {
+            writer.begin();
+            inventoryItems.forEach(writer);
+            writer.finish();
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new UncheckedIOException(e);
         }
-
-        sb.append("\nTotal Items: ").append(inventoryItems.size());
-
-        return sb.toString();
+        return out.toString();
     }
 }
@@ -0,0 +1,87 @@
+package com.example.inventory_manager.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Writes the inventory report one item at a time to a {@link Writer}.
+ * Used to stream large reports straight to their destination without holding
+ * the whole inventory or the whole report text in memory.
+ * Can be passed directly as the row callback of a streaming DAO query.
+ */
+public class InventoryReportWriter implements Consumer<InventoryItem> {
+
+    private final Writer out;
+    private final int flushEvery;
+    private long count;
+
+    /**
+     * Constructs a new InventoryReportWriter.
+     *
+     * @param out        the destination of the report text
+     * @param flushEvery flush the writer after this many items, or 0 to never flush early
+     */
+    public InventoryReportWriter(Writer out, int flushEvery) {
+        this.out = out;
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Writes the report header.
+     *
+     * @throws IOException if writing fails
+     */
+    public void begin() throws IOException {
+        out.write("=== Inventory Report ===\n\n");
+    }
+
+    /**
+     * Writes one report line for the given item.
+     *
+     * @param item the inventory item
+     * @throws UncheckedIOException if writing fails
+     */
+    @Override
+    public void accept(InventoryItem item) {
+        try {
+            out.write("Product: ");
+            out.write(String.valueOf(item.getProduct().getName()));
+            out.write(" | SKU: ");
+            out.write(String.valueOf(item.getProduct().getSku()));
+            out.write(" | Stock: ");
+            out.write(Integer.toString(item.getCurrentStock()));
+            out.write(" | Location: ");
+            out.write(String.valueOf(item.getLocation()));
+            out.write('\n');
+
+            count++;
+            if (flushEvery > 0 && count % flushEvery == 0) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the report footer and flushes the writer.
+     *
+     * @throws IOException if writing fails
+     */
+    public void finish() throws IOException {
+        out.write("\nTotal Items: ");
+        out.write(Long.toString(count));
+        out.flush();
+    }
+
+    /**
+     * Returns the number of items written so far.
+     *
+     * @return item count
+     */
+    public long getCount() {
+        return count;
+    }
+}
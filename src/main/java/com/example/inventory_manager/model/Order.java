@@ -14,6 +14,7 @@ public class Order {
     private Date orderDate;
     private String status;
     private Supplier supplier;
+    private long version;
 
     /**
      * Constructs a new Order with the given ID and supplier.
@@ -126,6 +127,25 @@ public class Order {
         this.orderDate = orderDate;
     }
 
+    /**
+     * Returns the version of the order row this order was read from.
+     * Compare-and-swap updates only apply while the row still has this version.
+     *
+     * @return version, or 0 if the order has not been loaded from the database
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the order row this order was read from.
+     *
+     * @param version the row version
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Order #" + orderId + " (" + status + ") - Items: " + orderedItems.size();
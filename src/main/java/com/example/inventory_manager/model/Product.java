@@ -11,6 +11,7 @@ public class Product {
     private String category;
     private double price;
     private String description;
+    private long version;
 
     /**
      * Constructs a new Product with the given attributes.
@@ -97,6 +98,25 @@ public class Product {
         return id;
     }
 
+    /**
+     * Returns the version of the product row this product was read from.
+     * Compare-and-swap updates only apply while the row still has this version.
+     *
+     * @return version, or 0 if the product has not been loaded from the database
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the product row this product was read from.
+     *
+     * @param version the row version
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return name + " (" + sku + ") - $" + price;
@@ -0,0 +1,117 @@
+package com.example.inventory_manager.model;
+
+import java.util.Date;
+
+/**
+ * Represents one entry in the stock ledger: a change to the stock of a product at a location.
+ * Movements are never updated or deleted; the current stock is the sum of all movements.
+ */
+public class StockMovement {
+
+    /**
+     * Why the stock changed.
+     */
+    public enum Reason {
+        /** Manual change from the stock update form. */
+        ADJUSTMENT,
+        /** Goods received for a completed order. */
+        ORDER,
+        /** Stock level set by a bulk import. */
+        IMPORT,
+        /** Stock level set directly, for example when a product is added. */
+        COUNT
+    }
+
+    private long movementId;
+    private int productId;
+    private String location;
+    private int delta;
+    private Reason reason;
+    private int orderId;
+    private Date createdAt;
+
+    /**
+     * Constructs a new StockMovement with the given attributes.
+     *
+     * @param movementId the ledger ID of the movement
+     * @param productId  the ID of the product
+     * @param location   the location whose stock changed
+     * @param delta      the stock change (positive or negative)
+     * @param reason     why the stock changed
+     * @param orderId    the related order ID, or 0 if none
+     * @param createdAt  when the movement was recorded
+     */
+    public StockMovement(long movementId, int productId, String location, int delta,
+                         Reason reason, int orderId, Date createdAt) {
+        this.movementId = movementId;
+        this.productId = productId;
+        this.location = location;
+        this.delta = delta;
+        this.reason = reason;
+        this.orderId = orderId;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Returns the ledger ID of the movement.
+     *
+     * @return the movement ID
+     */
+    public long getMovementId() {
+        return movementId;
+    }
+
+    /**
+     * Returns the ID of the product.
+     *
+     * @return the product ID
+     */
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Returns the location whose stock changed.
+     *
+     * @return the location
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns the stock change.
+     *
+     * @return the delta (positive or negative)
+     */
+    public int getDelta() {
+        return delta;
+    }
+
+    /**
+     * Returns why the stock changed.
+     *
+     * @return the reason
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Returns the related order ID.
+     *
+     * @return the order ID, or 0 if none
+     */
+    public int getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Returns when the movement was recorded.
+     *
+     * @return the creation time
+     */
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,10 @@
+-- Indexes for the hottest lookups: stock by product, order lines by order
+-- and by product, and orders by status.
+
+CREATE INDEX IF NOT EXISTS idx_inventory_items_product_id ON inventory_items(product_id);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items(order_id);
+
+CREATE INDEX IF NOT EXISTS idx_order_items_product_id ON order_items(product_id);
+
+CREATE INDEX IF NOT EXISTS idx_orders_status ON orders(status);
@@ -0,0 +1,21 @@
+-- One inventory row per product and location. Older databases may hold
+-- duplicates, so fold their quantities into the oldest row first.
+
+UPDATE inventory_items i
+SET quantity = (
+    SELECT SUM(d.quantity) FROM inventory_items d
+    WHERE d.product_id = i.product_id AND d.location IS NOT DISTINCT FROM i.location
+)
+WHERE i.inventory_id = (
+    SELECT MIN(d.inventory_id) FROM inventory_items d
+    WHERE d.product_id = i.product_id AND d.location IS NOT DISTINCT FROM i.location
+);
+
+DELETE FROM inventory_items i
+WHERE i.inventory_id > (
+    SELECT MIN(d.inventory_id) FROM inventory_items d
+    WHERE d.product_id = i.product_id AND d.location IS NOT DISTINCT FROM i.location
+);
+
+ALTER TABLE inventory_items
+    ADD CONSTRAINT IF NOT EXISTS uq_inventory_items_product_location UNIQUE (product_id, location);
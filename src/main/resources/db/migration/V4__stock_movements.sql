@@ -0,0 +1,42 @@
+-- Append-only stock ledger. Every stock change is a movement; a background
+-- job folds movements into inventory_items and records the folded quantities
+-- in stock_snapshots, so stock at a past time is a snapshot plus a short tail.
+
+CREATE TABLE IF NOT EXISTS stock_movements (
+    movement_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id INT NOT NULL,
+    location VARCHAR(255),
+    delta INT NOT NULL,
+    reason VARCHAR(20) NOT NULL,
+    order_id INT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE,
+    FOREIGN KEY (order_id) REFERENCES orders(order_id) ON DELETE SET NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_movements_product ON stock_movements(product_id, movement_id);
+
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    snapshot_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id INT NOT NULL,
+    location VARCHAR(255),
+    quantity INT NOT NULL,
+    last_movement_id BIGINT NOT NULL,
+    taken_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_snapshots_product ON stock_snapshots(product_id, taken_at);
+
+-- Single row: how far the ledger has been folded into inventory_items,
+-- and how far the last snapshot reaches.
+CREATE TABLE IF NOT EXISTS stock_ledger (
+    id INT PRIMARY KEY,
+    folded_movement_id BIGINT NOT NULL,
+    folded_at TIMESTAMP,
+    snapshot_movement_id BIGINT NOT NULL,
+    snapshot_at TIMESTAMP
+);
+
+INSERT INTO stock_ledger (id, folded_movement_id, snapshot_movement_id)
+SELECT 1, 0, 0 WHERE NOT EXISTS (SELECT 1 FROM stock_ledger);
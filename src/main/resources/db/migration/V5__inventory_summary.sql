@@ -0,0 +1,13 @@
+-- Persisted copy of the in-memory inventory totals, one row per group:
+-- dimension TOTAL (name ''), CATEGORY or LOCATION.
+
+CREATE TABLE IF NOT EXISTS inventory_summary (
+    dimension VARCHAR(20) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    products BIGINT NOT NULL,
+    stocked_items BIGINT NOT NULL,
+    units BIGINT NOT NULL,
+    value_cents BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    PRIMARY KEY (dimension, name)
+);
@@ -0,0 +1,9 @@
+-- Row versions for optimistic concurrency. Every write increments the version,
+-- and compare-and-swap updates only apply while it still has the value the
+-- caller read.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE inventory_items ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,12 @@
+-- Single row: the newest write-behind journal segment whose deltas have been
+-- committed. A flush updates it in the same transaction as the deltas, so
+-- segments up to it are not replayed if the process dies before deleting them.
+
+CREATE TABLE IF NOT EXISTS stock_journal (
+    id INT PRIMARY KEY,
+    sealed_segment BIGINT NOT NULL,
+    flushed_at TIMESTAMP
+);
+
+INSERT INTO stock_journal (id, sealed_segment)
+SELECT 1, 0 WHERE NOT EXISTS (SELECT 1 FROM stock_journal);
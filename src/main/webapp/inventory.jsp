@@ -112,6 +112,16 @@
       vertical-align: middle;
     }
 
+    .pager {
+      margin-top: 0.75rem;
+    }
+    .pager a {
+      margin-right: 1rem;
+      font-weight: bold;
+      color: #007bff;
+      text-decoration: none;
+    }
+
 
   </style>
 </head>
@@ -126,8 +136,8 @@
 
 <div class="card">
   <h2>System Information</h2>
-  <p>Total Products: ${products.size()}</p>
-  <p>Total Suppliers: ${suppliers.size()}</p>
+  <p>Products on this page: ${products.size()}</p>
+  <p>Suppliers on this page: ${suppliers.size()}</p>
   <form action="${pageContext.request.contextPath}/inventory" method="post" style="margin-top: 2rem;">
     <input type="hidden" name="action" value="generateReport">
     <button type="submit">📄 Generate Inventory Report</button>
@@ -170,11 +180,40 @@
       </c:forEach>
       </tbody>
     </table>
+    <div class="pager">
+      <c:url var="suppliersFirstUrl" value="/inventory">
+        <c:param name="productAfter" value="${param.productAfter}"/>
+        <c:param name="size" value="${pageSize}"/>
+        <c:param name="sort" value="${sort}"/>
+      </c:url>
+      <c:if test="${not empty param.supplierAfter}">
+        <a href="${suppliersFirstUrl}">⏮ First suppliers</a>
+      </c:if>
+      <c:if test="${not empty suppliersNext}">
+        <c:url var="suppliersNextUrl" value="/inventory">
+          <c:param name="productAfter" value="${param.productAfter}"/>
+          <c:param name="supplierAfter" value="${suppliersNext}"/>
+          <c:param name="size" value="${pageSize}"/>
+          <c:param name="sort" value="${sort}"/>
+        </c:url>
+        <a href="${suppliersNextUrl}">Next suppliers ⏭</a>
+      </c:if>
+    </div>
   </c:otherwise>
 </c:choose>
 
 <!-- List Products -->
 <h2>Products Available 🛒</h2>
+<div class="pager">
+  Sort by:
+  <c:forEach var="key" items="id,name,sku,category,price">
+    <c:url var="sortUrl" value="/inventory">
+      <c:param name="size" value="${pageSize}"/>
+      <c:param name="sort" value="${key}"/>
+    </c:url>
+    <a href="${sortUrl}">${key}</a>
+  </c:forEach>
+</div>
 <c:choose>
   <c:when test="${empty products}">
     <p>No products added yet.</p>
@@ -209,6 +248,38 @@
           <td>${product.category}</td>
           <td>$${product.price}</td>
 
+          <td>
+            <%-- The edit form changes the stock of the product's first inventory row --%>
+            <c:remove var="stockItem"/>
+            <c:forEach var="item" items="${inventoryItems}">
+              <c:if test="${item.product.id == product.id and (empty stockItem or item.inventoryId lt stockItem.inventoryId)}">
+                <c:set var="stockItem" value="${item}"/>
+              </c:if>
+            </c:forEach>
+            <details>
+              <summary style="cursor:pointer;">Edit</summary>
+              <form action="${pageContext.request.contextPath}/inventory" method="post">
+                <input type="hidden" name="action" value="editProduct">
+                <input type="hidden" name="productId" value="${product.id}">
+                <%-- Versions the page was rendered with; the update is refused if either row changed since --%>
+                <input type="hidden" name="productVersion" value="${product.version}">
+                <c:if test="${not empty stockItem}">
+                  <input type="hidden" name="inventoryId" value="${stockItem.inventoryId}">
+                  <input type="hidden" name="inventoryVersion" value="${stockItem.version}">
+                </c:if>
+                <input type="text" name="productName" value="<c:out value='${product.name}'/>" placeholder="Name" required>
+                <input type="text" name="productSku" value="<c:out value='${product.sku}'/>" placeholder="SKU" required>
+                <input type="text" name="productCategory" value="<c:out value='${product.category}'/>" placeholder="Category">
+                <input type="text" name="productPrice" value="${product.price}" placeholder="Price" required>
+                <input type="text" name="productDescription" value="<c:out value='${product.description}'/>" placeholder="Description">
+                <c:if test="${not empty stockItem}">
+                  <input type="number" name="productQuantity" value="${stockItem.currentStock}" min="0" required>
+                </c:if>
+                <button type="submit">Save</button>
+              </form>
+            </details>
+          </td>
+
           <td>
             <form action="${pageContext.request.contextPath}/inventory" method="post" style="display:inline;">
               <input type="hidden" name="action" value="deleteProduct">
@@ -221,6 +292,25 @@
       </c:forEach>
       </tbody>
     </table>
+    <div class="pager">
+      <c:url var="productsFirstUrl" value="/inventory">
+        <c:param name="supplierAfter" value="${param.supplierAfter}"/>
+        <c:param name="size" value="${pageSize}"/>
+        <c:param name="sort" value="${sort}"/>
+      </c:url>
+      <c:if test="${not empty param.productAfter}">
+        <a href="${productsFirstUrl}">⏮ First products</a>
+      </c:if>
+      <c:if test="${not empty productsNext}">
+        <c:url var="productsNextUrl" value="/inventory">
+          <c:param name="productAfter" value="${productsNext}"/>
+          <c:param name="supplierAfter" value="${param.supplierAfter}"/>
+          <c:param name="size" value="${pageSize}"/>
+          <c:param name="sort" value="${sort}"/>
+        </c:url>
+        <a href="${productsNextUrl}">Next products ⏭</a>
+      </c:if>
+    </div>
   </c:otherwise>
 </c:choose>
 
@@ -301,13 +391,13 @@
       <input type="hidden" name="action" value="updateStock">
 
       <div class="form-group">
-        <label for="productSkuStock">Select Product SKU:</label>
-        <select id="productSkuStock" name="productSku" required>
-          <option value="">-- Select Product --</option>
+        <label for="productSkuStock">Product SKU:</label>
+        <input type="text" id="productSkuStock" name="productSku" list="productSkuOptions" required>
+        <datalist id="productSkuOptions">
           <c:forEach var="product" items="${products}">
             <option value="${product.sku}">${product.sku} - ${product.name}</option>
           </c:forEach>
-        </select>
+        </datalist>
       </div>
 
       <div class="form-group">
@@ -319,6 +409,19 @@
     </form>
   </div>
 
+  <!-- Bulk Import Form -->
+  <div class="card">
+    <h2>Import CSV 📥</h2>
+    <form action="${pageContext.request.contextPath}/import" method="post" enctype="multipart/form-data">
+      <div class="form-group">
+        <label for="importFile">CSV file (sku, name, price[, category, description, quantity, location]):</label>
+        <input type="file" id="importFile" name="file" accept=".csv,text/csv" required>
+      </div>
+
+      <button type="submit">Import</button>
+    </form>
+  </div>
+
 </div>
 
 <c:if test="${not empty sessionScope.inventoryReport}">
@@ -79,6 +79,15 @@
     .small-btn:hover {
       background: #0062cc;
     }
+    .pager {
+      margin-top: 0.75rem;
+    }
+    .pager a {
+      margin-right: 1rem;
+      font-weight: bold;
+      color: #007bff;
+      text-decoration: none;
+    }
   </style>
 </head>
 <body>
@@ -92,6 +101,16 @@
 
 <!-- Existing Orders Section -->
 <h2>Existing Orders 🧾</h2>
+<div class="pager">
+  Sort by:
+  <c:forEach var="key" items="id,date,status">
+    <c:url var="sortUrl" value="/order">
+      <c:param name="size" value="${pageSize}"/>
+      <c:param name="sort" value="${key}"/>
+    </c:url>
+    <a href="${sortUrl}">${key}</a>
+  </c:forEach>
+</div>
 
 <c:choose>
   <c:when test="${empty orders}">
@@ -143,6 +162,25 @@
       </c:forEach>
       </tbody>
     </table>
+    <div class="pager">
+      <c:url var="ordersFirstUrl" value="/order">
+        <c:param name="productAfter" value="${param.productAfter}"/>
+        <c:param name="size" value="${pageSize}"/>
+        <c:param name="sort" value="${sort}"/>
+      </c:url>
+      <c:if test="${not empty param.orderAfter}">
+        <a href="${ordersFirstUrl}">⏮ First orders</a>
+      </c:if>
+      <c:if test="${not empty ordersNext}">
+        <c:url var="ordersNextUrl" value="/order">
+          <c:param name="orderAfter" value="${ordersNext}"/>
+          <c:param name="productAfter" value="${param.productAfter}"/>
+          <c:param name="size" value="${pageSize}"/>
+          <c:param name="sort" value="${sort}"/>
+        </c:url>
+        <a href="${ordersNextUrl}">Next orders ⏭</a>
+      </c:if>
+    </div>
   </c:otherwise>
 </c:choose>
 
@@ -176,6 +214,25 @@
       </c:forEach>
       </tbody>
     </table>
+    <div class="pager">
+      <c:url var="productsFirstUrl" value="/order">
+        <c:param name="orderAfter" value="${param.orderAfter}"/>
+        <c:param name="size" value="${pageSize}"/>
+        <c:param name="sort" value="${sort}"/>
+      </c:url>
+      <c:if test="${not empty param.productAfter}">
+        <a href="${productsFirstUrl}">⏮ First products</a>
+      </c:if>
+      <c:if test="${not empty productsNext}">
+        <c:url var="productsNextUrl" value="/order">
+          <c:param name="orderAfter" value="${param.orderAfter}"/>
+          <c:param name="productAfter" value="${productsNext}"/>
+          <c:param name="size" value="${pageSize}"/>
+          <c:param name="sort" value="${sort}"/>
+        </c:url>
+        <a href="${productsNextUrl}">Next products ⏭</a>
+      </c:if>
+    </div>
   </c:otherwise>
 </c:choose>
 
@@ -195,13 +252,13 @@
     </div>
 
     <div class="form-group">
-      <label for="productSku">Select Product SKU:</label>
-      <select id="productSku" name="productSku" required>
-        <option value="">-- Select Product --</option>
+      <label for="productSku">Product SKU:</label>
+      <input type="text" id="productSku" name="productSku" list="productSkuOptions" required>
+      <datalist id="productSkuOptions">
         <c:forEach var="product" items="${products}">
           <option value="${product.sku}">${product.sku} - ${product.name}</option>
         </c:forEach>
-      </select>
+      </datalist>
     </div>
 
     <div class="form-group">
@@ -0,0 +1,177 @@
+package com.example.inventory_manager.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedLockManagerTest {
+
+    private final StripedLockManager locks = new StripedLockManager(16);
+
+    @Test
+    void roundsStripeCountUpToPowerOfTwo() {
+        assertEquals(1, new StripedLockManager(1).getStripeCount());
+        assertEquals(16, new StripedLockManager(9).getStripeCount());
+        assertEquals(16, new StripedLockManager(16).getStripeCount());
+        assertThrows(IllegalArgumentException.class, () -> new StripedLockManager(0));
+    }
+
+    @Test
+    void overlappingLockAllFromTwoThreadsDoesNotDeadlock() throws Exception {
+        List<Integer> keys = keysOnDistinctStripes(4);
+        List<Integer> forward = List.of(keys.get(0), keys.get(1), keys.get(2));
+        List<Integer> backward = List.of(keys.get(3), keys.get(2), keys.get(1));
+        int rounds = 20_000;
+        int[] counter = {0};
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Integer> set : List.of(forward, backward)) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < rounds; i++) {
+                        try (StripedLockManager.Held held = locks.lockAll(set)) {
+                            counter[0]++;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                // A deadlock shows up as a TimeoutException here
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // The shared stripes serialized the unsynchronized increments
+        assertEquals(2 * rounds, counter[0]);
+    }
+
+    @Test
+    void lockAllTakesDuplicateKeysOnce() throws Exception {
+        List<Integer> keys = keysOnDistinctStripes(2);
+        Integer a = keys.get(0);
+        Integer b = keys.get(1);
+        long before = locks.getStats().getAcquisitions();
+
+        try (StripedLockManager.Held held = locks.lockAll(List.of(a, b, a, a, b))) {
+            assertEquals(before + 2, locks.getStats().getAcquisitions());
+            assertHeldElsewhere(a);
+        }
+
+        // Each stripe was locked once, so one close frees it
+        assertFreeElsewhere(a);
+        assertFreeElsewhere(b);
+    }
+
+    @Test
+    void lockAllTakesKeysOnOneStripeOnce() throws Exception {
+        StripedLockManager single = new StripedLockManager(1);
+
+        try (StripedLockManager.Held held = single.lockAll(List.of(1, 2, 3))) {
+            assertEquals(1, single.getStats().getAcquisitions());
+        }
+
+        assertFreeElsewhere(single, 4);
+    }
+
+    @Test
+    void nestedHandlesReleaseOnlyTheirOwnHolds() throws Exception {
+        List<Integer> keys = keysOnDistinctStripes(2);
+        Integer a = keys.get(0);
+        Integer b = keys.get(1);
+
+        StripedLockManager.Held outer = locks.lockAll(List.of(a, b));
+        StripedLockManager.Held inner = locks.lock(a);
+        // Closed out of order: the inner hold keeps a's stripe until it is closed too
+        outer.close();
+        assertFreeElsewhere(b);
+        assertHeldElsewhere(a);
+
+        inner.close();
+        assertFreeElsewhere(a);
+    }
+
+    @Test
+    void closingTwiceReleasesOnce() throws Exception {
+        Integer key = 42;
+        StripedLockManager.Held outer = locks.lock(key);
+        StripedLockManager.Held inner = locks.lock(key);
+
+        inner.close();
+        inner.close();
+
+        // A second unlock would have dropped the outer hold as well
+        assertHeldElsewhere(key);
+        outer.close();
+        assertFreeElsewhere(key);
+    }
+
+    @Test
+    void withLocksReleasesWhenTheActionThrows() throws Exception {
+        List<Integer> keys = keysOnDistinctStripes(2);
+
+        StripedLockManager.LockedTask<IllegalStateException> failing = () -> {
+            throw new IllegalStateException("fails");
+        };
+        assertThrows(IllegalStateException.class, () -> locks.withLocks(keys, failing));
+        assertEquals("done", locks.withLock(keys.get(0), () -> "done"));
+
+        assertFreeElsewhere(keys.get(0));
+        assertFreeElsewhere(keys.get(1));
+    }
+
+    private List<Integer> keysOnDistinctStripes(int count) {
+        boolean[] used = new boolean[locks.getStripeCount()];
+        List<Integer> keys = new ArrayList<>();
+        for (int key = 0; keys.size() < count; key++) {
+            int stripe = locks.stripeOf(key);
+            if (!used[stripe]) {
+                used[stripe] = true;
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private void assertFreeElsewhere(Object key) throws InterruptedException {
+        assertFreeElsewhere(locks, key);
+    }
+
+    private static void assertFreeElsewhere(StripedLockManager manager, Object key) throws InterruptedException {
+        assertTrue(lockElsewhere(manager, key, 5_000), "stripe of " + key + " should be free");
+    }
+
+    private void assertHeldElsewhere(Object key) throws InterruptedException {
+        assertFalse(lockElsewhere(locks, key, 100), "stripe of " + key + " should be held");
+    }
+
+    /**
+     * Tries to lock and release a key on another thread and reports whether it managed to
+     * within the timeout. A thread left waiting finishes once the stripe is released.
+     */
+    private static boolean lockElsewhere(StripedLockManager manager, Object key, long timeoutMillis)
+            throws InterruptedException {
+        Thread thread = new Thread(() -> manager.withLock(key, () -> { }));
+        thread.setDaemon(true);
+        thread.start();
+        thread.join(timeoutMillis);
+        return !thread.isAlive();
+    }
+}
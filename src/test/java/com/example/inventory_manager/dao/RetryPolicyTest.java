@@ -0,0 +1,104 @@
+package com.example.inventory_manager.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    @Test
+    void backoffDoublesUpToTheMaximum() {
+        RetryPolicy policy = new RetryPolicy(10, 1, 50);
+
+        List<Long> bounds = new ArrayList<>();
+        for (int retry = 1; retry <= 9; retry++) {
+            bounds.add(policy.backoffBound(retry));
+        }
+        assertEquals(List.of(1L, 2L, 4L, 8L, 16L, 32L, 50L, 50L, 50L), bounds);
+    }
+
+    @Test
+    void backoffDoesNotOverflowForLargeValues() {
+        RetryPolicy policy = new RetryPolicy(100, 1L << 40, Long.MAX_VALUE / 2);
+
+        for (int retry = 1; retry < 100; retry++) {
+            long bound = policy.backoffBound(retry);
+            assertTrue(bound >= 1L << 40 && bound <= Long.MAX_VALUE / 2, "retry " + retry + ": " + bound);
+        }
+        assertEquals(Long.MAX_VALUE / 2, policy.backoffBound(99));
+    }
+
+    @Test
+    void constructorClampsBounds() {
+        RetryPolicy policy = new RetryPolicy(3, -5, -1);
+        assertEquals(0, policy.getInitialBackoffMillis());
+        assertEquals(0, policy.getMaxBackoffMillis());
+        assertEquals(0, policy.backoffBound(1));
+
+        RetryPolicy raised = new RetryPolicy(3, 20, 5);
+        assertEquals(20, raised.getMaxBackoffMillis());
+        assertEquals(20, raised.backoffBound(3));
+
+        assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(0, 1, 1));
+    }
+
+    @Test
+    void retriesConflictsUntilTheAttemptsRunOut() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        UpdateResult result = new RetryPolicy(4, 0, 0).run(() -> {
+            attempts.incrementAndGet();
+            return UpdateResult.CONFLICT;
+        });
+
+        assertEquals(UpdateResult.CONFLICT, result);
+        assertEquals(4, attempts.get());
+    }
+
+    @Test
+    void stopsAtTheFirstResultThatIsNotAConflict() {
+        Queue<UpdateResult> results = new ArrayDeque<>(List.of(
+                UpdateResult.CONFLICT, UpdateResult.CONFLICT, UpdateResult.REJECTED, UpdateResult.UPDATED));
+
+        assertEquals(UpdateResult.REJECTED, new RetryPolicy(5, 1, 2).run(results::remove));
+        assertEquals(List.of(UpdateResult.UPDATED), List.copyOf(results));
+    }
+
+    @Test
+    void noneTriesOnce() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        RetryPolicy.NONE.run(() -> {
+            attempts.incrementAndGet();
+            return UpdateResult.CONFLICT;
+        });
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void stopsWhenInterruptedWhilePausing() {
+        AtomicInteger attempts = new AtomicInteger();
+        Thread.currentThread().interrupt();
+        try {
+            UpdateResult result = new RetryPolicy(5, 1000, 1000).run(() -> {
+                attempts.incrementAndGet();
+                return UpdateResult.CONFLICT;
+            });
+
+            assertEquals(UpdateResult.CONFLICT, result);
+            assertEquals(1, attempts.get());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.inventory_manager.dao.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysAppendedDeltasPerProduct() throws IOException {
+        StockJournal journal = new StockJournal(directory, 0);
+        journal.append(1, 5);
+        journal.append(2, -3);
+        journal.append(1, -2);
+        journal.rotate();
+        journal.append(2, 10);
+        journal.rotate();
+
+        List<Path> sealed = journal.sealedSegments();
+        assertEquals(2, sealed.size());
+        assertEquals(Map.of(1, 3, 2, 7), StockJournal.read(sealed));
+        journal.close(true);
+    }
+
+    @Test
+    void ignoresTornLastLine() throws IOException {
+        // A crash while appending leaves a line without its newline; it was never acknowledged
+        Path segment = directory.resolve("stock-1.journal");
+        Files.write(segment, "1 5\n2 4\n1 1".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(Map.of(1, 5, 2, 4), StockJournal.read(List.of(segment)));
+    }
+
+    @Test
+    void replaysSegmentsLeftByACrashWithATornLastLine() throws IOException {
+        StockJournal crashed = new StockJournal(directory, 0);
+        crashed.append(7, 2);
+        crashed.append(8, 1);
+        Files.write(directory.resolve("stock-1.journal"), "7 -4".getBytes(StandardCharsets.US_ASCII),
+                StandardOpenOption.APPEND);
+
+        // The next start sees every segment of the previous run as sealed
+        StockJournal restarted = new StockJournal(directory, 0);
+
+        assertEquals(Map.of(7, 2, 8, 1), StockJournal.read(restarted.sealedSegments()));
+        crashed.close(false);
+        restarted.close(true);
+    }
+
+    @Test
+    void skipsDamagedLines() throws IOException {
+        Path segment = directory.resolve("stock-1.journal");
+        Files.write(segment, "1 5\ngarbage\n3\n1 x\n2 4\n".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(Map.of(1, 5, 2, 4), StockJournal.read(List.of(segment)));
+    }
+
+    @Test
+    void readsEmptySegments() throws IOException {
+        Path segment = directory.resolve("stock-1.journal");
+        Files.createFile(segment);
+
+        assertTrue(StockJournal.read(List.of(segment)).isEmpty());
+    }
+
+    @Test
+    void numbersNewSegmentsAfterExistingAndCommittedOnes() throws IOException {
+        Files.createFile(directory.resolve("stock-4.journal"));
+
+        StockJournal journal = new StockJournal(directory, 2);
+        assertEquals(4, journal.lastSealed());
+        assertEquals("stock-5.journal", journal.rotate().getFileName().toString());
+        journal.close(true);
+
+        StockJournal afterWipe = new StockJournal(Files.createDirectory(directory.resolve("wiped")), 9);
+        assertEquals(9, afterWipe.lastSealed());
+        afterWipe.close(true);
+    }
+
+    @Test
+    void failedRotationKeepsWritingToTheCurrentSegment() throws IOException {
+        StockJournal journal = new StockJournal(directory, 0);
+        journal.append(1, 5);
+        // A directory where the next segment belongs makes creating it fail
+        Path blocked = Files.createDirectory(directory.resolve("stock-2.journal"));
+
+        assertThrows(IOException.class, journal::rotate);
+        assertEquals(0, journal.lastSealed());
+        journal.append(1, 2);
+
+        Files.delete(blocked);
+        Path sealed = journal.rotate();
+        assertEquals(directory.resolve("stock-1.journal"), sealed);
+        assertEquals(1, journal.lastSealed());
+        assertEquals(Map.of(1, 7), StockJournal.read(List.of(sealed)));
+        journal.close(true);
+    }
+
+    @Test
+    void sealedSegmentsExcludeTheCurrentOne() throws IOException {
+        StockJournal journal = new StockJournal(directory, 0);
+        assertTrue(journal.sealedSegments().isEmpty());
+
+        Path sealed = journal.rotate();
+        assertEquals(List.of(sealed), journal.sealedSegments());
+        assertEquals(1, StockJournal.sequenceOf(sealed));
+        assertEquals(1, journal.lastSealed());
+
+        StockJournal.delete(journal.sealedSegments());
+        assertFalse(Files.exists(sealed));
+        journal.close(true);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
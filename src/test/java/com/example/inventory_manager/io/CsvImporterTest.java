@@ -0,0 +1,164 @@
+package com.example.inventory_manager.io;
+
+import com.example.inventory_manager.dao.InventoryItemDAO;
+import com.example.inventory_manager.dao.ProductDAO;
+import com.example.inventory_manager.model.InventoryItem;
+import com.example.inventory_manager.model.Product;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvImporterTest {
+
+    /** Every saveAll call, as the SKUs it was given. */
+    private final List<List<String>> calls = new ArrayList<>();
+
+    /** A SKU that makes saveAll fail, standing in for a row the database rejects. */
+    private String rejectedSku;
+
+    @Test
+    void importsProductsInChunks() throws IOException {
+        ImportResult result = importCsv(2, "sku,name,price\nA,Alpha,1\nB,Beta,2\nC,Gamma,3\n");
+
+        assertEquals(3, result.getRowsRead());
+        assertEquals(3, result.getRowsImported());
+        assertEquals(0, result.getRowsFailed());
+        assertEquals(List.of(List.of("A", "B"), List.of("C")), calls);
+    }
+
+    @Test
+    void readsQuotedFieldsAndByteOrderMark() throws IOException {
+        List<Product> saved = new ArrayList<>();
+        CsvImporter importer = new CsvImporter(productDAO(saved), null, 10, 10);
+
+        importer.importCsv(new StringReader("\uFEFFSKU,Name,Price,Description\r\n"
+                + "A,\"Bolt, hex\",0.10,\"M8\r\nzinc plated\"\r\n"));
+
+        assertEquals(1, saved.size());
+        assertEquals("A", saved.get(0).getSku());
+        assertEquals("Bolt, hex", saved.get(0).getName());
+        assertEquals("M8\r\nzinc plated", saved.get(0).getDescription());
+    }
+
+    @Test
+    void reportsShortAndInvalidRowsWithTheirLines() throws IOException {
+        ImportResult result = importCsv(10, "sku,name,price\nA,Alpha,1\nB,Beta\nC\n\nD,Delta,-1\nE,Epsilon,5\n");
+
+        assertEquals(5, result.getRowsRead());
+        assertEquals(2, result.getRowsImported());
+        assertEquals(3, result.getRowsFailed());
+        assertEquals(List.of(List.of("A", "E")), calls);
+        assertError(result.getErrors().get(0), 3, "B", "price is not a number");
+        assertError(result.getErrors().get(1), 4, "C", "name is missing");
+        assertError(result.getErrors().get(2), 6, "D", "price must be a non-negative number");
+    }
+
+    @Test
+    void retriesRejectedChunkOneRowAtATime() throws IOException {
+        rejectedSku = "B";
+
+        ImportResult result = importCsv(3, "sku,name,price\nA,Alpha,1\nB,Beta,2\nC,Gamma,3\nD,Delta,4\n");
+
+        assertEquals(4, result.getRowsRead());
+        assertEquals(3, result.getRowsImported());
+        assertEquals(1, result.getRowsFailed());
+        assertEquals(1, result.getChunksRetried());
+        assertError(result.getErrors().get(0), 3, "B", "rejected by the database");
+        assertEquals(List.of(List.of("A", "B", "C"), List.of("A"), List.of("B"), List.of("C"), List.of("D")), calls);
+    }
+
+    @Test
+    void writesStockWhenFileHasQuantityColumn() throws IOException {
+        List<InventoryItem> saved = new ArrayList<>();
+        CsvImporter importer = new CsvImporter(null, inventoryItemDAO(saved), 10, 10);
+
+        ImportResult result = importer.importCsv(new StringReader(
+                "sku,name,price,quantity,location\nA,Alpha,1,5,Shelf 1\nB,Beta,2,7,\nC,Gamma,3,x,\n"));
+
+        assertEquals(2, result.getRowsImported());
+        assertError(result.getErrors().get(0), 4, "C", "quantity is not a whole number");
+        assertEquals(5, saved.get(0).getCurrentStock());
+        assertEquals("Shelf 1", saved.get(0).getLocation());
+        assertEquals("Default Location", saved.get(1).getLocation());
+    }
+
+    @Test
+    void blankQuantityWritesProductOnly() throws IOException {
+        List<InventoryItem> stocked = new ArrayList<>();
+        List<Product> productsOnly = new ArrayList<>();
+        CsvImporter importer = new CsvImporter(productDAO(productsOnly), inventoryItemDAO(stocked), 10, 10);
+
+        ImportResult result = importer.importCsv(new StringReader(
+                "sku,name,price,quantity\nA,Alpha,1,5\nB,Beta,2,\nC,Gamma,3\n"));
+
+        assertEquals(3, result.getRowsImported());
+        assertEquals(0, result.getRowsFailed());
+        assertEquals(List.of(List.of("A"), List.of("B", "C")), calls);
+        assertEquals(5, stocked.get(0).getCurrentStock());
+        assertEquals("Beta", productsOnly.get(0).getName());
+    }
+
+    @Test
+    void rejectsHeaderWithoutRequiredColumns() {
+        IOException e = assertThrows(IOException.class, () -> importCsv(10, "sku,name\nA,Alpha\n"));
+        assertTrue(e.getMessage().contains("sku, name and price"), e.getMessage());
+    }
+
+    @Test
+    void failsOnUnterminatedQuote() {
+        assertThrows(IOException.class, () -> importCsv(10, "sku,name,price\nA,\"Alpha,1\n"));
+    }
+
+    private ImportResult importCsv(int chunkSize, String csv) throws IOException {
+        return new CsvImporter(productDAO(new ArrayList<>()), null, chunkSize, 10).importCsv(new StringReader(csv));
+    }
+
+    private static void assertError(ImportResult.RowError error, long line, String sku, String message) {
+        assertEquals(line, error.getLine());
+        assertEquals(sku, error.getSku());
+        assertEquals(message, error.getMessage());
+    }
+
+    private ProductDAO productDAO(List<Product> saved) {
+        return saveAllStub(ProductDAO.class, saved, Product::getSku);
+    }
+
+    private InventoryItemDAO inventoryItemDAO(List<InventoryItem> saved) {
+        return saveAllStub(InventoryItemDAO.class, saved, item -> item.getProduct().getSku());
+    }
+
+    /**
+     * Returns a DAO whose saveAll records its rows and fails if one of them has the rejected SKU.
+     * Other methods are not used by the importer and throw.
+     */
+    private <D, T> D saveAllStub(Class<D> type, List<T> saved, Function<T, String> sku) {
+        Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (!method.getName().equals("saveAll")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            @SuppressWarnings("unchecked")
+            List<T> rows = (List<T>) args[0];
+            List<String> skus = new ArrayList<>();
+            for (T row : rows) {
+                skus.add(sku.apply(row));
+            }
+            calls.add(skus);
+            if (skus.contains(rejectedSku)) {
+                return false;
+            }
+            saved.addAll(rows);
+            return true;
+        });
+        return type.cast(stub);
+    }
+}
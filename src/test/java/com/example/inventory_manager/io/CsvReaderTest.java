@@ -0,0 +1,104 @@
+package com.example.inventory_manager.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvReaderTest {
+
+    @Test
+    void splitsUnquotedFields() throws IOException {
+        assertEquals(List.of(List.of("a", "b", "c"), List.of("1", "", "3")), readAll("a,b,c\n1,,3\n"));
+    }
+
+    @Test
+    void keepsCommasInsideQuotes() throws IOException {
+        assertEquals(List.of(List.of("SKU-1", "Bolt, hex", "0.10")), readAll("SKU-1,\"Bolt, hex\",0.10\n"));
+    }
+
+    @Test
+    void unescapesDoubledQuotes() throws IOException {
+        assertEquals(List.of(List.of("2\" pipe", "")), readAll("\"2\"\" pipe\",\"\"\n"));
+    }
+
+    @Test
+    void acceptsCrlfLineEndings() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d")), readAll("a,b\r\nc,d\r\n"));
+    }
+
+    @Test
+    void acceptsLastRecordWithoutLineEnding() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d")), readAll("a,b\nc,d"));
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotes() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("sku,description\r\nA,\"first\r\nsecond\nthird\"\r\nB,x\r\n"));
+
+        assertEquals(List.of("sku", "description"), csv.readRecord());
+        assertEquals(1, csv.getRecordLine());
+        assertEquals(List.of("A", "first\r\nsecond\nthird"), csv.readRecord());
+        assertEquals(2, csv.getRecordLine());
+        assertEquals(List.of("B", "x"), csv.readRecord());
+        assertEquals(5, csv.getRecordLine());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    void skipsOnlyLeadingByteOrderMark() throws IOException {
+        assertEquals(List.of(List.of("sku", "name"), List.of("\uFEFFA", "x")), readAll("\uFEFFsku,name\n\uFEFFA,x\n"));
+    }
+
+    @Test
+    void failsOnUnterminatedQuote() {
+        CsvReader csv = new CsvReader(new StringReader("sku,name\nA,\"open\nB,x\n"));
+
+        IOException e = assertThrows(IOException.class, () -> {
+            while (csv.readRecord() != null) {
+                // read until the malformed record
+            }
+        });
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+    }
+
+    @Test
+    void returnsShortRowsAsRead() throws IOException {
+        assertEquals(List.of(List.of("a", "b", "c"), List.of("1"), List.of("")), readAll("a,b,c\n1\n\n"));
+    }
+
+    @Test
+    void readsRecordsAcrossBufferBoundaries() throws IOException {
+        // Longer than the internal buffer, so fields and CRLF pairs straddle refills
+        StringBuilder text = new StringBuilder();
+        List<List<String>> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            text.append(i).append(",\"v,").append(i).append("\"\r\n");
+            expected.add(List.of(String.valueOf(i), "v," + i));
+        }
+        assertEquals(expected, readAll(text.toString()));
+    }
+
+    @Test
+    void returnsNullForEmptyInput() throws IOException {
+        assertNull(new CsvReader(new StringReader("")).readRecord());
+    }
+
+    private static List<List<String>> readAll(String text) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader csv = new CsvReader(new StringReader(text))) {
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}